@@ -1,6 +1,7 @@
 package cz.zcu.kiv.spac;
 
 import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.utils.Metrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -45,4 +46,10 @@ public class AntipatternsCatalogue extends Application {
             System.exit(1);
         }
     }
+
+    @Override
+    public void stop() {
+
+        log.info("Stopping Antipattern Catalogue, metrics: " + Metrics.getAll());
+    }
 }
@@ -0,0 +1,311 @@
+package cz.zcu.kiv.spac;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.export.SiteExportResult;
+import cz.zcu.kiv.spac.export.SiteExporter;
+import cz.zcu.kiv.spac.file.FileLoader;
+import cz.zcu.kiv.spac.file.FileWriter;
+import cz.zcu.kiv.spac.html.HTMLGenerator;
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+import cz.zcu.kiv.spac.migration.MigrationPlan;
+import cz.zcu.kiv.spac.migration.MigrationReport;
+import cz.zcu.kiv.spac.migration.TemplateMigration;
+import cz.zcu.kiv.spac.utils.Metrics;
+import cz.zcu.kiv.spac.utils.Utils;
+import cz.zcu.kiv.spac.validation.CatalogueValidationJob;
+import cz.zcu.kiv.spac.validation.ValidationCheckResult;
+import cz.zcu.kiv.spac.validation.ValidationReport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runner of batch commands, which work with catalogue without user interface.
+ * Commands are run from application folder, same as application itself.
+ */
+public class HeadlessRunner {
+
+    public static final String COMMAND_VALIDATE = "--validate";
+    public static final String COMMAND_MIGRATE = "--migrate";
+    public static final String COMMAND_EXPORT = "--export";
+    public static final String OPTION_APPLY = "--apply";
+
+    public static final String VALIDATION_REPORT_JSON = "validation-report.json";
+    public static final String VALIDATION_REPORT_HTML = "validation-report.html";
+    public static final String MIGRATION_REPORT_JSON = "migration-report.json";
+    public static final String SITE_FOLDER = "site";
+
+    // Exit codes.
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_PROBLEMS_FOUND = 1;
+    public static final int EXIT_ERROR = 2;
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(HeadlessRunner.class);
+
+    private Template template;
+    private MarkdownParser markdownParser;
+    private Catalogue catalogue;
+    private Map<AntipatternKey, Antipattern> antipatterns;
+
+    /**
+     * Check if arguments contain batch command.
+     * @param args - Program arguments.
+     * @return True if application should run without user interface.
+     */
+    public static boolean isHeadlessCommand(String[] args) {
+
+        return args.length > 0 && (args[0].equals(COMMAND_VALIDATE) || args[0].equals(COMMAND_MIGRATE) || args[0].equals(COMMAND_EXPORT));
+    }
+
+    /**
+     * Run batch command.
+     * @param args - Program arguments, first argument is command.
+     * @return Exit code.
+     */
+    public static int run(String[] args) {
+
+        HeadlessRunner runner = new HeadlessRunner();
+
+        if (!runner.loadCatalogue()) {
+
+            return EXIT_ERROR;
+        }
+
+        int exitCode = runner.runCommand(args);
+
+        log.info("Metrics: " + Metrics.getAll());
+
+        return exitCode;
+    }
+
+    /**
+     * Run batch command with loaded catalogue.
+     * @param args - Program arguments, first argument is command.
+     * @return Exit code.
+     */
+    private int runCommand(String[] args) {
+
+        switch (args[0]) {
+
+            case COMMAND_VALIDATE:
+                return validate(args.length > 1 ? args[1] : ".");
+
+            case COMMAND_MIGRATE:
+
+                if (args.length < 2) {
+
+                    log.error("Usage: " + COMMAND_MIGRATE + " <old configuration> [" + OPTION_APPLY + "] [output directory]");
+                    return EXIT_ERROR;
+                }
+
+                boolean apply = false;
+                String outputDirectory = ".";
+
+                for (int i = 2; i < args.length; i++) {
+
+                    if (args[i].equals(OPTION_APPLY)) {
+
+                        apply = true;
+
+                    } else {
+
+                        outputDirectory = args[i];
+                    }
+                }
+
+                return migrate(args[1], apply, outputDirectory);
+
+            case COMMAND_EXPORT:
+                return export(args.length > 1 ? args[1] : SITE_FOLDER);
+
+            default:
+                log.error("Unknown command '" + args[0] + "'.");
+                return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Load template, catalogue and antipatterns.
+     * @return True if catalogue was loaded, false if not.
+     */
+    private boolean loadCatalogue() {
+
+        template = FileLoader.loadTemplate(Utils.getRootDir() + "/" + Constants.CONFIGURATION_NAME);
+
+        if (template == null) {
+
+            log.error("Template '" + Constants.CONFIGURATION_NAME + "' cannot be loaded.");
+            return false;
+        }
+
+        markdownParser = new MarkdownParser(template);
+        catalogue = FileLoader.loadCatalogue(markdownParser);
+
+        if (catalogue == null) {
+
+            return false;
+        }
+
+        antipatterns = FileLoader.loadAntipatterns(markdownParser, catalogue);
+
+        return true;
+    }
+
+    /**
+     * Validate whole catalogue and write JSON and HTML report.
+     * @param outputDirectory - Directory for reports.
+     * @return Exit code.
+     */
+    private int validate(String outputDirectory) {
+
+        String referencesContent = FileLoader.loadFileContent(Utils.getRootDir() + "/" + Constants.REFERENCES_NAME);
+        Set<String> referenceKeys = referencesContent != null ? MarkdownParser.parseReferenceKeys(referencesContent) : Collections.emptySet();
+
+        CatalogueValidationJob job = new CatalogueValidationJob(template, catalogue, antipatterns, referenceKeys, new File(Utils.getAntipatternFolderPath()));
+        ValidationReport report = job.run();
+
+        File directory = new File(outputDirectory);
+
+        if (!directory.exists() && !directory.mkdirs()) {
+
+            log.error("Output directory '" + outputDirectory + "' cannot be created.");
+            return EXIT_ERROR;
+        }
+
+        if (!FileWriter.write(new File(directory, VALIDATION_REPORT_JSON), report.toJson())
+                || !FileWriter.write(new File(directory, VALIDATION_REPORT_HTML), HTMLGenerator.createValidationReportHTMLContent(report))) {
+
+            return EXIT_ERROR;
+        }
+
+        for (ValidationCheckResult result : report.getResults()) {
+
+            if (result.isFailed()) {
+
+                log.error(result.getName() + ": check failed - " + result.getError());
+                continue;
+            }
+
+            log.info(result.getName() + ": " + result.getIssues().size() + " problems, " + String.format("%.1f", result.getDurationMillis()) + " ms");
+        }
+
+        log.info("Validation report was written to '" + directory.getAbsolutePath() + "'.");
+
+        // Report of failed check is not complete, so catalogue cannot pass validation.
+        if (report.getFailedCheckCount() > 0) {
+
+            return EXIT_ERROR;
+        }
+
+        return report.getIssueCount() > 0 ? EXIT_PROBLEMS_FOUND : EXIT_OK;
+    }
+
+    /**
+     * Migrate antipattern files from old template to current template and write JSON report.
+     * Without apply, files are not changed and report contains planned changes only.
+     * @param oldConfigurationPath - Path to configuration with old template.
+     * @param apply - True if changes should be written to files.
+     * @param outputDirectory - Directory for report.
+     * @return Exit code, in dry run files waiting for migration are reported as problems.
+     */
+    private int migrate(String oldConfigurationPath, boolean apply, String outputDirectory) {
+
+        Template oldTemplate = FileLoader.loadTemplate(oldConfigurationPath);
+
+        if (oldTemplate == null) {
+
+            log.error("Template '" + oldConfigurationPath + "' cannot be loaded.");
+            return EXIT_ERROR;
+        }
+
+        File antipatternFolder = new File(Utils.getAntipatternFolderPath());
+        List<File> files = new ArrayList<>();
+
+        // Linking antipatterns do not follow template, so only antipatterns with own content are migrated.
+        for (Antipattern antipattern : antipatterns.values()) {
+
+            if (antipattern.isCreated() && !antipattern.isLinking()) {
+
+                files.add(new File(antipatternFolder, antipattern.getPath()));
+            }
+        }
+
+        long start = System.nanoTime();
+
+        TemplateMigration migration = new TemplateMigration(oldTemplate, template);
+        List<MigrationPlan> plans = migration.planAll(files);
+
+        if (plans.size() < files.size()) {
+
+            log.error((files.size() - plans.size()) + " antipattern files cannot be loaded, migration is stopped.");
+            return EXIT_ERROR;
+        }
+
+        if (apply && !TemplateMigration.apply(plans)) {
+
+            return EXIT_ERROR;
+        }
+
+        MigrationReport report = new MigrationReport(migration.getDiff(), plans, antipatternFolder, apply, System.nanoTime() - start);
+
+        File directory = new File(outputDirectory);
+
+        if (!directory.exists() && !directory.mkdirs()) {
+
+            log.error("Output directory '" + outputDirectory + "' cannot be created.");
+            return EXIT_ERROR;
+        }
+
+        if (!FileWriter.write(new File(directory, MIGRATION_REPORT_JSON), report.toJson())) {
+
+            return EXIT_ERROR;
+        }
+
+        log.info(report.getChangedFileCount() + " of " + plans.size() + " files " + (apply ? "were" : "would be") + " migrated in "
+                + String.format("%.1f", report.getDurationMillis()) + " ms, report was written to '" + directory.getAbsolutePath() + "'.");
+
+        return !apply && report.getChangedFileCount() > 0 ? EXIT_PROBLEMS_FOUND : EXIT_OK;
+    }
+
+    /**
+     * Export catalogue to static HTML site. Pages, whose inputs were not changed since previous export to same folder, are not rendered.
+     * @param outputDirectory - Directory of site.
+     * @return Exit code.
+     */
+    private int export(String outputDirectory) {
+
+        File directory = new File(outputDirectory);
+
+        if (!directory.exists() && !directory.mkdirs()) {
+
+            log.error("Output directory '" + outputDirectory + "' cannot be created.");
+            return EXIT_ERROR;
+        }
+
+        SiteExporter exporter = new SiteExporter(markdownParser, catalogue, antipatterns, new File(Utils.getAntipatternFolderPath()), directory);
+        SiteExportResult result = exporter.run();
+
+        log.info(result.getRenderedCount() + " of " + result.getPageCount() + " pages were rendered, " + result.getSkippedCount() + " pages were up to date, "
+                + result.getDeletedCount() + " stale pages were deleted in " + String.format("%.1f", result.getDurationMillis())
+                + " ms, site was written to '" + directory.getAbsolutePath() + "'.");
+
+        if (result.getFailedCount() > 0) {
+
+            log.error(result.getFailedCount() + " files of site cannot be written.");
+            return EXIT_ERROR;
+        }
+
+        return EXIT_OK;
+    }
+}
@@ -1,5 +1,7 @@
 package cz.zcu.kiv.spac;
 
+import cz.zcu.kiv.spac.file.WriteJournal;
+
 /**
  * Main class for application (it must be classic main class, because maven has problem with classes extending Application).
  */
@@ -7,6 +9,15 @@ public class MainClass {
 
     public static void main(String[] args) {
 
+        // Finish file writes interrupted by crash before catalogue is loaded.
+        WriteJournal.recover();
+
+        // Batch commands run without user interface.
+        if (HeadlessRunner.isHeadlessCommand(args)) {
+
+            System.exit(HeadlessRunner.run(args));
+        }
+
         AntipatternsCatalogue.main(args);
     }
 }
@@ -0,0 +1,101 @@
+package cz.zcu.kiv.spac.components;
+
+import cz.zcu.kiv.spac.data.git.PreviewFileContentLine;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+/**
+ * List cell showing one row of file diff in git window (line numbers, diff symbol and line).
+ */
+public class DiffLineListCell extends ListCell<PreviewFileContentLine> {
+
+    private static final String[] TYPE_STYLE_CLASSES = {"diff-line-added", "diff-line-deleted", "diff-line-diff-info"};
+
+    private final HBox row;
+    private final Label lblOldLineNumber;
+    private final Label lblNewLineNumber;
+    private final Label lblSymbol;
+    private final Label lblLine;
+
+    /**
+     * Constructor.
+     */
+    public DiffLineListCell() {
+
+        lblOldLineNumber = new Label();
+        lblNewLineNumber = new Label();
+        lblSymbol = new Label();
+        lblLine = new Label();
+
+        lblOldLineNumber.getStyleClass().add("diff-line-index");
+        lblNewLineNumber.getStyleClass().add("diff-line-index");
+        lblSymbol.getStyleClass().add("diff-line-symbol");
+        lblLine.getStyleClass().add("diff-line");
+
+        // Long lines are wrapped in width of list view.
+        lblLine.setWrapText(true);
+        lblLine.setMinWidth(0);
+        HBox.setHgrow(lblLine, Priority.ALWAYS);
+
+        row = new HBox(lblOldLineNumber, lblNewLineNumber, lblSymbol, lblLine);
+
+        getStyleClass().add("diff-line-cell");
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(PreviewFileContentLine contentLine, boolean empty) {
+
+        super.updateItem(contentLine, empty);
+
+        getStyleClass().removeAll(TYPE_STYLE_CLASSES);
+
+        if (empty || contentLine == null) {
+
+            setGraphic(null);
+            return;
+        }
+
+        String lineNumber = "" + contentLine.getLineNumber();
+        String lineNumberDeleted = "";
+        String lineNumberAdded = "";
+        String symbol = "";
+
+        switch (contentLine.getType()) {
+
+            case ADDED:
+
+                lineNumberAdded = lineNumber;
+                symbol = "+";
+                getStyleClass().add("diff-line-added");
+                break;
+
+            case DELETED:
+
+                lineNumberDeleted = lineNumber;
+                symbol = "-";
+                getStyleClass().add("diff-line-deleted");
+                break;
+
+            case DIFF_INFO:
+
+                getStyleClass().add("diff-line-diff-info");
+                break;
+
+            case NOT_MODIFIED:
+
+                lineNumberDeleted = lineNumber;
+                lineNumberAdded = lineNumber;
+                break;
+        }
+
+        lblOldLineNumber.setText(lineNumberDeleted);
+        lblNewLineNumber.setText(lineNumberAdded);
+        lblSymbol.setText(symbol);
+        lblLine.setText(contentLine.getLine());
+
+        setGraphic(row);
+    }
+}
@@ -0,0 +1,35 @@
+package cz.zcu.kiv.spac.components;
+
+import cz.zcu.kiv.spac.data.git.FileDiff;
+import cz.zcu.kiv.spac.data.git.PreviewFileContentLine;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only observable list of rows of file diff for list view.
+ * Rows are created from diff only when list view shows them, so only visible part of diff is materialised.
+ */
+public class FileDiffList extends ObservableListBase<PreviewFileContentLine> {
+
+    private final FileDiff fileDiff;
+
+    /**
+     * Constructor.
+     * @param fileDiff - File diff.
+     */
+    public FileDiffList(FileDiff fileDiff) {
+
+        this.fileDiff = fileDiff;
+    }
+
+    @Override
+    public PreviewFileContentLine get(int index) {
+
+        return fileDiff.getRow(index);
+    }
+
+    @Override
+    public int size() {
+
+        return fileDiff.getRowCount();
+    }
+}
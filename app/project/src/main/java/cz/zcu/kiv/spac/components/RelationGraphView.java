@@ -0,0 +1,417 @@
+package cz.zcu.kiv.spac.components;
+
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.graph.BarnesHutLayout;
+import cz.zcu.kiv.spac.graph.RelationGraph;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.function.Consumer;
+
+/**
+ * Component rendering relation graph into canvas.
+ * Canvas is redrawn only when layout publishes new positions or when view is zoomed / moved.
+ * Nodes outside of view are skipped and labels are drawn only when graph is zoomed in enough.
+ */
+public class RelationGraphView extends Pane {
+
+    private static final double NODE_RADIUS = 5;
+    private static final double LABEL_MIN_SCALE = 0.7;
+    private static final double MIN_SCALE = 0.02;
+    private static final double MAX_SCALE = 8;
+    private static final double ZOOM_FACTOR = 1.15;
+    private static final double FIT_PADDING = 40;
+
+    private static final Color BACKGROUND_COLOR = Color.WHITE;
+    private static final Color EDGE_COLOR = Color.rgb(150, 150, 150, 0.6);
+    private static final Color NODE_COLOR = Color.rgb(50, 110, 180);
+    private static final Color NODE_NOT_CREATED_COLOR = Color.rgb(190, 190, 190);
+    private static final Color NODE_SELECTED_COLOR = Color.rgb(220, 60, 40);
+    private static final Color LABEL_COLOR = Color.BLACK;
+
+    private final Canvas canvas;
+    private final AnimationTimer timer;
+
+    private BarnesHutLayout layout;
+    private RelationGraph graph;
+    private double[] positions;
+
+    private long drawnVersion = -1;
+    private boolean dirty = true;
+
+    // View transformation - screen = world * scale + offset.
+    private double scale = 1;
+    private double offsetX = 0;
+    private double offsetY = 0;
+    private boolean autoFit = true;
+
+    private double dragStartX;
+    private double dragStartY;
+    private boolean dragged;
+
+    private int selectedNode = -1;
+    private Consumer<AntipatternKey> onNodeSelected;
+
+    /**
+     * Constructor.
+     */
+    public RelationGraphView() {
+
+        canvas = new Canvas();
+        getChildren().add(canvas);
+
+        canvas.widthProperty().addListener((observable, oldValue, newValue) -> dirty = true);
+        canvas.heightProperty().addListener((observable, oldValue, newValue) -> dirty = true);
+
+        setOnScroll(this::zoom);
+        setOnMousePressed(this::mousePressed);
+        setOnMouseDragged(this::mouseDragged);
+        setOnMouseReleased(this::mouseReleased);
+
+        timer = new AnimationTimer() {
+
+            @Override
+            public void handle(long now) {
+
+                redrawIfNeeded();
+            }
+        };
+    }
+
+    /**
+     * Show graph, which is laid out by layout. Previous layout is stopped.
+     * @param layout - Layout of graph.
+     */
+    public void setLayout(BarnesHutLayout layout) {
+
+        if (this.layout != null) {
+
+            this.layout.stop();
+        }
+
+        this.layout = layout;
+        this.graph = layout.getGraph();
+        this.positions = layout.getPositions();
+
+        selectedNode = -1;
+        drawnVersion = -1;
+        autoFit = true;
+        dirty = true;
+    }
+
+    /**
+     * Stop layout and rendering, layout continues when view is started again.
+     */
+    public void stop() {
+
+        timer.stop();
+
+        if (layout != null) {
+
+            layout.stop();
+        }
+    }
+
+    /**
+     * Start rendering and layout, if layout did not converge yet.
+     */
+    public void start() {
+
+        if (layout != null) {
+
+            layout.start();
+        }
+
+        dirty = true;
+        timer.start();
+    }
+
+    /**
+     * Highlight node of antipattern.
+     * @param key - Key of antipattern.
+     */
+    public void selectNode(AntipatternKey key) {
+
+        if (graph == null) {
+
+            return;
+        }
+
+        selectedNode = graph.getNodeIndex(key);
+        dirty = true;
+    }
+
+    public void setOnNodeSelected(Consumer<AntipatternKey> onNodeSelected) {
+
+        this.onNodeSelected = onNodeSelected;
+    }
+
+    @Override
+    protected void layoutChildren() {
+
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+    }
+
+    /**
+     * Redraw canvas if layout published new positions or if view changed.
+     */
+    private void redrawIfNeeded() {
+
+        if (layout == null) {
+
+            return;
+        }
+
+        long version = layout.getVersion();
+
+        if (version == drawnVersion && !dirty) {
+
+            return;
+        }
+
+        positions = layout.getPositions();
+        drawnVersion = version;
+        dirty = false;
+
+        if (autoFit) {
+
+            fitToView();
+        }
+
+        draw();
+    }
+
+    /**
+     * Draw graph.
+     */
+    private void draw() {
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, width, height);
+
+        int nodeCount = graph.getNodeCount();
+        double[] screenX = new double[nodeCount];
+        double[] screenY = new double[nodeCount];
+
+        for (int i = 0; i < nodeCount; i++) {
+
+            screenX[i] = positions[i * 2] * scale + offsetX;
+            screenY[i] = positions[i * 2 + 1] * scale + offsetY;
+        }
+
+        // Edges are drawn as one path.
+        gc.setStroke(EDGE_COLOR);
+        gc.setLineWidth(1);
+        gc.beginPath();
+
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+
+            int source = graph.getEdgeSource(e);
+            int target = graph.getEdgeTarget(e);
+
+            if (isLineOutside(screenX[source], screenY[source], screenX[target], screenY[target], width, height)) {
+
+                continue;
+            }
+
+            gc.moveTo(screenX[source], screenY[source]);
+            gc.lineTo(screenX[target], screenY[target]);
+        }
+
+        gc.stroke();
+
+        double radius = Math.max(1.5, NODE_RADIUS * Math.min(scale, 1.5));
+        boolean drawLabels = scale >= LABEL_MIN_SCALE;
+
+        if (drawLabels) {
+
+            gc.setFont(Font.font(11));
+            gc.setTextAlign(TextAlignment.CENTER);
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+
+            if (isPointOutside(screenX[i], screenY[i], radius, width, height)) {
+
+                continue;
+            }
+
+            if (i == selectedNode) {
+
+                gc.setFill(NODE_SELECTED_COLOR);
+
+            } else if (graph.isNodeCreated(i)) {
+
+                gc.setFill(NODE_COLOR);
+
+            } else {
+
+                gc.setFill(NODE_NOT_CREATED_COLOR);
+            }
+
+            gc.fillOval(screenX[i] - radius, screenY[i] - radius, radius * 2, radius * 2);
+
+            if (drawLabels || i == selectedNode) {
+
+                gc.setFill(LABEL_COLOR);
+                gc.fillText(graph.getNodeLabel(i), screenX[i], screenY[i] - radius - 3);
+            }
+        }
+    }
+
+    /**
+     * Set view transformation, so whole graph is visible.
+     */
+    private void fitToView() {
+
+        int nodeCount = graph.getNodeCount();
+
+        if (nodeCount == 0 || getWidth() <= 0 || getHeight() <= 0) {
+
+            return;
+        }
+
+        double left = Double.MAX_VALUE;
+        double top = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+        double bottom = -Double.MAX_VALUE;
+
+        for (int i = 0; i < nodeCount; i++) {
+
+            left = Math.min(left, positions[i * 2]);
+            top = Math.min(top, positions[i * 2 + 1]);
+            right = Math.max(right, positions[i * 2]);
+            bottom = Math.max(bottom, positions[i * 2 + 1]);
+        }
+
+        double graphWidth = Math.max(right - left, 1);
+        double graphHeight = Math.max(bottom - top, 1);
+
+        scale = Math.min((getWidth() - 2 * FIT_PADDING) / graphWidth, (getHeight() - 2 * FIT_PADDING) / graphHeight);
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+
+        offsetX = getWidth() / 2 - (left + graphWidth / 2) * scale;
+        offsetY = getHeight() / 2 - (top + graphHeight / 2) * scale;
+    }
+
+    /**
+     * Zoom view around mouse position.
+     * @param event - Scroll event.
+     */
+    private void zoom(ScrollEvent event) {
+
+        if (event.getDeltaY() == 0) {
+
+            return;
+        }
+
+        double factor = event.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+
+        // Keep world point under cursor on its place.
+        offsetX = event.getX() - (event.getX() - offsetX) * newScale / scale;
+        offsetY = event.getY() - (event.getY() - offsetY) * newScale / scale;
+        scale = newScale;
+
+        autoFit = false;
+        dirty = true;
+        event.consume();
+    }
+
+    private void mousePressed(MouseEvent event) {
+
+        dragStartX = event.getX();
+        dragStartY = event.getY();
+        dragged = false;
+    }
+
+    private void mouseDragged(MouseEvent event) {
+
+        offsetX += event.getX() - dragStartX;
+        offsetY += event.getY() - dragStartY;
+        dragStartX = event.getX();
+        dragStartY = event.getY();
+
+        dragged = true;
+        autoFit = false;
+        dirty = true;
+    }
+
+    private void mouseReleased(MouseEvent event) {
+
+        if (dragged || event.getButton() != MouseButton.PRIMARY || graph == null) {
+
+            return;
+        }
+
+        int node = findNode(event.getX(), event.getY());
+
+        if (node == -1) {
+
+            return;
+        }
+
+        selectedNode = node;
+        dirty = true;
+
+        if (onNodeSelected != null) {
+
+            onNodeSelected.accept(graph.getNodeKey(node));
+        }
+    }
+
+    /**
+     * Find node nearest to screen position.
+     * @param screenX - X position on screen.
+     * @param screenY - Y position on screen.
+     * @return Index of node, -1 if there is no node near position.
+     */
+    private int findNode(double screenX, double screenY) {
+
+        double worldX = (screenX - offsetX) / scale;
+        double worldY = (screenY - offsetY) / scale;
+
+        // Tolerance is at least few pixels, so small nodes can be clicked when zoomed out.
+        double tolerance = Math.max(NODE_RADIUS, 6 / scale);
+        double bestDistance = tolerance * tolerance;
+        int best = -1;
+
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+
+            double dx = positions[i * 2] - worldX;
+            double dy = positions[i * 2 + 1] - worldY;
+            double distance = dx * dx + dy * dy;
+
+            if (distance <= bestDistance) {
+
+                bestDistance = distance;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    private boolean isPointOutside(double x, double y, double margin, double width, double height) {
+
+        return x < -margin || y < -margin || x > width + margin || y > height + margin;
+    }
+
+    private boolean isLineOutside(double x1, double y1, double x2, double y2, double width, double height) {
+
+        return (x1 < 0 && x2 < 0) || (y1 < 0 && y2 < 0) || (x1 > width && x2 > width) || (y1 > height && y2 > height);
+    }
+}
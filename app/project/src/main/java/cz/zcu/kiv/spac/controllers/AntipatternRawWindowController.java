@@ -11,17 +11,27 @@ import cz.zcu.kiv.spac.data.template.TableField;
 import cz.zcu.kiv.spac.data.template.Template;
 import cz.zcu.kiv.spac.data.template.TemplateField;
 import cz.zcu.kiv.spac.utils.Utils;
+import cz.zcu.kiv.spac.validation.SectionedAntipatternValidator;
+import cz.zcu.kiv.spac.validation.TemplateViolation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
-import javafx.scene.control.TextArea;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.LineNumberFactory;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Controller for antipattern raw window.
@@ -29,10 +39,10 @@ import java.util.List;
 public class AntipatternRawWindowController {
 
     @FXML
-    private TextArea txtAreaRawAntipatternContent;
+    private CodeArea txtAreaRawAntipatternContent;
 
     @FXML
-    private ListView listDifferences;
+    private ListView<String> listDifferences;
 
     @FXML
     private Button btnBack;
@@ -52,6 +62,20 @@ public class AntipatternRawWindowController {
 
     private boolean antipatternUpdated = false;
 
+    // Delay between last change of content and live validation.
+    private static final double LIVE_VALIDATION_DELAY_MS = 300;
+
+    // Live validation.
+    private PauseTransition liveValidationDelay;
+    private ExecutorService liveValidationExecutor;
+    private Future<?> liveValidationTask;
+    private SectionedAntipatternValidator liveValidator;
+    private long liveValidationVersion = 0;
+
+    // Lines highlighted by last live validation, line of every item in list of differences (-1 if not related to line).
+    private Set<Integer> diagnosticLines = new HashSet<>();
+    private List<Integer> differenceLines = new ArrayList<>();
+
     // Logger.
     private static Logger log = LogManager.getLogger(AntipatternRawWindowController.class);
 
@@ -70,6 +94,142 @@ public class AntipatternRawWindowController {
 
         // Set line break.
         txtAreaRawAntipatternContent.setWrapText(true);
+        txtAreaRawAntipatternContent.setParagraphGraphicFactory(LineNumberFactory.get(txtAreaRawAntipatternContent));
+
+        // Content is validated after user stops typing, every change only restarts delay.
+        liveValidationDelay = new PauseTransition(Duration.millis(LIVE_VALIDATION_DELAY_MS));
+        liveValidationDelay.setOnFinished(event -> startLiveValidation());
+        txtAreaRawAntipatternContent.plainTextChanges().subscribe(change -> liveValidationDelay.playFromStart());
+
+        // Move caret to line with difference.
+        listDifferences.getSelectionModel().selectedIndexProperty().addListener((observable, oldValue, newValue) -> {
+
+            int index = newValue.intValue();
+
+            if (index >= 0 && index < differenceLines.size() && differenceLines.get(index) >= 0
+                    && differenceLines.get(index) < txtAreaRawAntipatternContent.getParagraphs().size()) {
+
+                txtAreaRawAntipatternContent.moveTo(differenceLines.get(index), 0);
+                txtAreaRawAntipatternContent.requestFollowCaret();
+                txtAreaRawAntipatternContent.requestFocus();
+            }
+        });
+    }
+
+    /**
+     * Validate current content in background. Running validation of older content is cancelled.
+     */
+    private void startLiveValidation() {
+
+        if (template == null || parser == null || tempAntipattern == null) {
+
+            return;
+        }
+
+        if (liveValidationExecutor == null) {
+
+            liveValidationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+
+                Thread thread = new Thread(runnable, "raw-antipattern-validation");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            liveValidator = new SectionedAntipatternValidator(parser, template, tempAntipattern.getName(), tempAntipattern.getPath());
+        }
+
+        if (liveValidationTask != null) {
+
+            liveValidationTask.cancel(true);
+        }
+
+        String content = txtAreaRawAntipatternContent.getText();
+        long version = ++liveValidationVersion;
+
+        liveValidationTask = liveValidationExecutor.submit(() -> {
+
+            try {
+
+                SectionedAntipatternValidator.Result result = liveValidator.validate(content);
+
+                Platform.runLater(() -> {
+
+                    // Show result only if content was not changed meanwhile.
+                    if (version == liveValidationVersion) {
+
+                        showLiveValidationResult(result);
+                    }
+                });
+
+            } catch (CancellationException e) {
+
+                // Newer content is validated.
+
+            } catch (Exception e) {
+
+                log.warn("Live validation of antipattern '" + tempAntipattern.getName() + "' failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Show result of live validation - highlight lines with differences and fill list of differences.
+     * @param result - Result of validation.
+     */
+    private void showLiveValidationResult(SectionedAntipatternValidator.Result result) {
+
+        int paragraphCount = txtAreaRawAntipatternContent.getParagraphs().size();
+        Set<Integer> lines = new HashSet<>();
+
+        listDifferences.getItems().clear();
+        differenceLines.clear();
+
+        for (TemplateViolation violation : result.getViolations()) {
+
+            int line = result.getLine(violation);
+
+            if (line >= 0 && line < paragraphCount) {
+
+                lines.add(line);
+                listDifferences.getItems().add("Line " + (line + 1) + ": " + violation.getMessage());
+
+            } else {
+
+                line = -1;
+                listDifferences.getItems().add(violation.getMessage());
+            }
+
+            differenceLines.add(line);
+        }
+
+        // Remove highlight from lines without differences.
+        for (Integer line : diagnosticLines) {
+
+            if (!lines.contains(line) && line < paragraphCount) {
+
+                txtAreaRawAntipatternContent.setParagraphStyle(line, Collections.emptyList());
+            }
+        }
+
+        for (Integer line : lines) {
+
+            txtAreaRawAntipatternContent.setParagraphStyle(line, Collections.singletonList("diagnostic"));
+        }
+
+        diagnosticLines = lines;
+    }
+
+    /**
+     * Stop live validation, must be called when window is closed.
+     */
+    public void stopLiveValidation() {
+
+        liveValidationDelay.stop();
+
+        if (liveValidationExecutor != null) {
+
+            liveValidationExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -109,6 +269,7 @@ public class AntipatternRawWindowController {
                     "Antipattern content does not match template fields !");
 
             listDifferences.getItems().clear();
+            differenceLines.clear();
             setDifferences(differences);
 
         }
@@ -130,7 +291,8 @@ public class AntipatternRawWindowController {
         tempAntipattern.setAntipatternHeadings(antipattern.getAntipatternHeadings());
 
         // Set textarea text.
-        txtAreaRawAntipatternContent.setText(tempAntipattern.getContent().toString());
+        txtAreaRawAntipatternContent.replaceText(tempAntipattern.getContent().toString());
+        txtAreaRawAntipatternContent.getUndoManager().forgetHistory();
     }
 
     public void setTemplate(Template template) {
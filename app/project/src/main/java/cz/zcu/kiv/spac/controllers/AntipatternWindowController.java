@@ -3,6 +3,7 @@ package cz.zcu.kiv.spac.controllers;
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternContent;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternRelationTable;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
@@ -12,6 +13,7 @@ import cz.zcu.kiv.spac.data.catalogue.Catalogue;
 import cz.zcu.kiv.spac.data.reference.References;
 import cz.zcu.kiv.spac.enums.AntipatternHeadingType;
 import cz.zcu.kiv.spac.file.FileWriter;
+import cz.zcu.kiv.spac.file.WriteBatch;
 import cz.zcu.kiv.spac.markdown.MarkdownGenerator;
 import cz.zcu.kiv.spac.markdown.MarkdownParser;
 import cz.zcu.kiv.spac.data.template.TableColumnField;
@@ -71,8 +73,9 @@ public class AntipatternWindowController {
     private Antipattern tempAntipattern;
     private Template template;
     private Catalogue catalogue;
-    private Map<String, Antipattern> antipatterns;
+    private Map<AntipatternKey, Antipattern> antipatterns;
     private References references;
+    private WriteBatch writeBatch;
 
     private List<String> updatedAntipatterns = new ArrayList<>();
 
@@ -218,7 +221,7 @@ public class AntipatternWindowController {
      */
     private boolean saveAntipatternToFile(File file) {
 
-        return FileWriter.write(file, tempAntipattern.getContent().toString());
+        return FileWriter.write(file, tempAntipattern.getContent().toString(), writeBatch);
     }
 
     /**
@@ -590,7 +593,7 @@ public class AntipatternWindowController {
                             if (antipattern != null) {
 
                                 // Get related Antipattern if exists.
-                                Antipattern relatedAntipattern = antipatterns.get(MarkdownParser.parseAntipatternFromTableRecord(relation.getAntipattern()));
+                                Antipattern relatedAntipattern = antipatterns.get(relation.getAntipatternKey());
 
                                 if (relatedAntipattern != null) {
 
@@ -858,7 +861,7 @@ public class AntipatternWindowController {
 
                         for (AntipatternRelationTable relation : relationsSet) {
 
-                            Antipattern relatedAntipattern = antipatterns.get(relation.getAntipattern());
+                            Antipattern relatedAntipattern = antipatterns.get(AntipatternKey.of(relation.getAntipattern()));
 
                             // Add both-side link with specific texts.
                             if (relatedAntipattern != null) {
@@ -997,7 +1000,7 @@ public class AntipatternWindowController {
         }
 
         // Create markdown content from headings.
-        String markdownContent = MarkdownGenerator.createAntipatternMarkdownContent(tempAntipattern.getAntipatternHeadings(), template.getFieldList(), catalogue);
+        String markdownContent = MarkdownGenerator.createAntipatternMarkdownContent(tempAntipattern.getAntipatternHeadings(), template, catalogue);
 
         // Set created markdown content to antipattern.
         tempAntipattern.setContent(markdownContent);
@@ -1064,7 +1067,7 @@ public class AntipatternWindowController {
         this.catalogue = catalogue;
     }
 
-    public void setAntipatterns(Map<String, Antipattern> antipatterns) {
+    public void setAntipatterns(Map<AntipatternKey, Antipattern> antipatterns) {
 
         this.antipatterns = antipatterns;
     }
@@ -1074,6 +1077,15 @@ public class AntipatternWindowController {
         return updatedAntipatterns;
     }
 
+    /**
+     * Set write batch, to which saved antipattern is written. Batch is committed by caller.
+     * @param writeBatch - Write batch, null if antipattern is written immediately.
+     */
+    public void setWriteBatch(WriteBatch writeBatch) {
+
+        this.writeBatch = writeBatch;
+    }
+
     public void setReferences(References references) {
 
         this.references = references;
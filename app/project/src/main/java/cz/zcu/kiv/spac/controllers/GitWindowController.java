@@ -1,14 +1,19 @@
 package cz.zcu.kiv.spac.controllers;
 
+import cz.zcu.kiv.spac.components.DiffLineListCell;
+import cz.zcu.kiv.spac.components.FileDiffList;
 import cz.zcu.kiv.spac.components.ListViewItemWithStringAndCheckBox;
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.git.CommitType;
+import cz.zcu.kiv.spac.data.git.CommittedFile;
 import cz.zcu.kiv.spac.data.git.CustomGitObject;
+import cz.zcu.kiv.spac.data.git.FileDiff;
 import cz.zcu.kiv.spac.data.git.PreviewFileContentLine;
-import cz.zcu.kiv.spac.data.git.PreviewFileContentLineType;
+import cz.zcu.kiv.spac.data.git.WorkingTreeStatus;
 import cz.zcu.kiv.spac.file.FileLoader;
-import cz.zcu.kiv.spac.html.HTMLGenerator;
 import cz.zcu.kiv.spac.utils.Utils;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -19,7 +24,6 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxListCell;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.web.WebView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
@@ -32,6 +36,10 @@ import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 /**
@@ -52,7 +60,7 @@ public class GitWindowController {
     private Label lblCommitsBehind;
 
     @FXML
-    private WebView wviewChanges;
+    private ListView<PreviewFileContentLine> listViewChanges;
 
     @FXML
     private Button btnCommit;
@@ -64,7 +72,7 @@ public class GitWindowController {
     private TextField txtfieldSummary;
 
     @FXML
-    private ListView listViewFileChanged;
+    private ListView<ListViewItemWithStringAndCheckBox> listViewFileChanged;
 
     @FXML
     private Label lblRepositoryName;
@@ -86,7 +94,22 @@ public class GitWindowController {
     private int commitsAhead = 0;
     private int commitsBehind = 0;
 
-    private HashMap<String, List<PreviewFileContentLine>> changedFiles;
+    private HashMap<String, FileDiff> changedFiles;
+
+    // Path of renamed file -> path of file in latest commit.
+    private HashMap<String, String> renamedFiles;
+
+    // Path of updated file -> computation of its diff, diff is computed only when file or its neighbour is selected.
+    private HashMap<String, FutureTask<FileDiff>> diffTasks;
+
+    // Diffs of neighbours are computed in parallel, diff of selected file is computed right away on separate thread.
+    private ExecutorService diffExecutor;
+    private ExecutorService selectedDiffExecutor;
+
+    // Number of files before and after selected file, whose diffs are computed in background.
+    private static final int DIFF_PREFETCH_DISTANCE = 3;
+
+    private Label lblPreviewPlaceholder;
 
     private boolean successfullyPulled = false;
 
@@ -100,6 +123,8 @@ public class GitWindowController {
     public GitWindowController() {
 
         changedFiles = new HashMap<>();
+        renamedFiles = new HashMap<>();
+        diffTasks = new HashMap<>();
     }
 
     /**
@@ -116,7 +141,10 @@ public class GitWindowController {
 
         listViewFileChanged.setCellFactory(CheckBoxListCell.forListView(ListViewItemWithStringAndCheckBox::onProperty));
 
-        wviewChanges.getEngine().setUserStyleSheetLocation(getClass().getResource(Constants.RESOURCE_GIT_PREVIEW_CSS).toString());
+        // Rows of diff are created only for visible cells.
+        listViewChanges.setCellFactory(listView -> new DiffLineListCell());
+        lblPreviewPlaceholder = new Label("No content for preview");
+        listViewChanges.setPlaceholder(lblPreviewPlaceholder);
     }
 
     /**
@@ -198,17 +226,39 @@ public class GitWindowController {
         }
 
         ListViewItemWithStringAndCheckBox selectedItem = (ListViewItemWithStringAndCheckBox) item;
+        FutureTask<FileDiff> diffTask = diffTasks.get(selectedItem.getFilename());
 
-        try {
+        prefetchDiffs(listViewFileChanged.getSelectionModel().getSelectedIndex());
 
-            List<PreviewFileContentLine> contentLines = changedFiles.get(selectedItem.getFilename());
-            String html = HTMLGenerator.createHTMLFileContent(contentLines);
-            wviewChanges.getEngine().loadContent(html);
+        if (diffTask != null && !diffTask.isDone()) {
 
-        } catch (Exception e) {
+            // Diff of selected file does not wait for diffs of other files, it is shown when it is computed.
+            lblPreviewPlaceholder.setText("Computing differences ...");
+            listViewChanges.setItems(FXCollections.emptyObservableList());
+            selectedDiffExecutor.execute(diffTask);
+            return;
+        }
 
-            wviewChanges.getEngine().loadContent(HTMLGenerator.getNoContentForPreviewText());
+        showFileDiff(selectedItem.getFilename());
+    }
+
+    /**
+     * Show diff of file in preview.
+     * @param filename - Path of updated file.
+     */
+    private void showFileDiff(String filename) {
+
+        FileDiff fileDiff = changedFiles.get(filename);
+
+        if (fileDiff == null) {
+
+            lblPreviewPlaceholder.setText("No content for preview");
+            listViewChanges.setItems(FXCollections.emptyObservableList());
+            return;
         }
+
+        listViewChanges.setItems(new FileDiffList(fileDiff));
+        listViewChanges.scrollTo(0);
     }
 
     /**
@@ -400,9 +450,8 @@ public class GitWindowController {
         try {
 
             listViewFileChanged.getItems().clear();
-            Git git = customGitObject.getGit();
-
-            Status status = git.status().call();
+            renamedFiles.clear();
+            WorkingTreeStatus status = customGitObject.getWorkingTreeStatus();
 
             Set<String> added = status.getAdded();
             Set<String> untracked = status.getUntracked();
@@ -420,6 +469,15 @@ public class GitWindowController {
                 } else {
 
                     listViewFileChanged.getItems().add(new ListViewItemWithStringAndCheckBox(add, false, CommitType.RENAMED));
+
+                    for (String remove : removed) {
+
+                        if (Utils.getFilenameFromStringPath(remove).equals(Utils.getFilenameFromStringPath(add))) {
+
+                            renamedFiles.put(add, remove);
+                            break;
+                        }
+                    }
                 }
             }
 
@@ -563,166 +621,193 @@ public class GitWindowController {
     }
 
     /**
-     * Compare updated files with files from latest commit and assign color to lines (GREEN - Added line, RED - deleted line).
+     * Prepare computation of diff of every updated file with file from latest commit (added, deleted and unchanged lines).
+     * Diff is computed when file is selected, diffs of files around selected file are computed in parallel in background.
+     * Diffs of first files in list are computed right away, because they are visible first.
      */
     private void compareUpdatedFiles() {
 
-        // Get map of files from latest commit.
-        Map<String, String> filesFromPreviousCommit = customGitObject.loadFilesFromPreviousCommit();
-
         // Get list of updated files.
-        ObservableList updatedFiles = listViewFileChanged.getItems();
+        ObservableList<ListViewItemWithStringAndCheckBox> updatedFiles = listViewFileChanged.getItems();
 
-        if (updatedFiles == null) {
+        if (updatedFiles == null || updatedFiles.isEmpty()) {
 
             return;
         }
 
-        for (Object file : updatedFiles) {
+        // Get paths of updated files in latest commit, only these files are loaded from latest commit.
+        Set<String> previousPaths = new HashSet<>();
 
-            ListViewItemWithStringAndCheckBox updatedFile = (ListViewItemWithStringAndCheckBox) file;
-            String fullPathFilename = updatedFile.getFilename();
-            String filename = Utils.getFilenameFromStringPath(fullPathFilename);
+        for (ListViewItemWithStringAndCheckBox updatedFile : updatedFiles) {
 
-            if (updatedFile.getType() == CommitType.ADD) {
+            if (updatedFile.getType() != CommitType.ADD) {
 
-                // File was added.
-                // Get new lines from disk.
-                try {
+                previousPaths.add(getPreviousPath(updatedFile.getFilename()));
+            }
+        }
 
-                    String contentPath = Utils.getAntipatternFolderPath()  +  fullPathFilename;
-                    String content = FileLoader.loadFileContent(contentPath);
-                    List<String> lines = Utils.parseStringByLines(Utils.getFilesDifference("", content));
+        // Get map of files from latest commit, their content is loaded in background.
+        Map<String, CommittedFile> filesFromPreviousCommit = customGitObject.loadFilesFromPreviousCommit(previousPaths);
 
-                    changedFiles.put(fullPathFilename, createPreviewLinesWithOneType(lines, PreviewFileContentLineType.ADDED));
+        diffExecutor = Executors.newFixedThreadPool(Math.min(updatedFiles.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
 
-                } catch (Exception e) {
+            Thread thread = new Thread(runnable, "git-diff");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-                    // Do nothing.
-                }
+        selectedDiffExecutor = Executors.newSingleThreadExecutor(runnable -> {
 
-            } else if (updatedFile.getType() == CommitType.REMOVE) {
+            Thread thread = new Thread(runnable, "git-diff-selected");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-                // File was deleted.
-                // Get lines from latest commit.
-                try {
+        for (ListViewItemWithStringAndCheckBox updatedFile : updatedFiles) {
 
-                    String content = filesFromPreviousCommit.get(filename);
+            String fullPathFilename = updatedFile.getFilename();
+            CommitType type = updatedFile.getType();
+            CommittedFile committedFile = filesFromPreviousCommit.get(getPreviousPath(fullPathFilename));
 
-                    if (content == null) {
+            DiffTask diffTask = new DiffTask(fullPathFilename, () -> computeFileDiff(fullPathFilename, type, committedFile));
 
-                        log.error("Error while comparing updated files (deleting).");
-                    }
+            diffTasks.put(fullPathFilename, diffTask);
+        }
 
-                    List<String> lines = Utils.parseStringByLines(Utils.getFilesDifference(content, ""));
+        prefetchDiffs(0);
+    }
 
-                    changedFiles.put(fullPathFilename, createPreviewLinesWithOneType(lines, PreviewFileContentLineType.DELETED));
+    /**
+     * Start computation of diffs of files around file in background. Diffs, which are computed or computing, are skipped.
+     * @param index - Index of file in list of updated files.
+     */
+    private void prefetchDiffs(int index) {
 
-                } catch (Exception e) {
+        ObservableList<ListViewItemWithStringAndCheckBox> updatedFiles = listViewFileChanged.getItems();
 
-                    // Do nothing.
-                }
+        if (diffExecutor == null || index < 0) {
 
-            } else {
+            return;
+        }
+
+        int from = Math.max(0, index - DIFF_PREFETCH_DISTANCE);
+        int to = Math.min(updatedFiles.size() - 1, index + DIFF_PREFETCH_DISTANCE);
 
-                String newContentPath = Utils.getAntipatternFolderPath() + fullPathFilename;
-                // Get contents.
-                String oldContent = filesFromPreviousCommit.get(filename);
-                String newContent = FileLoader.loadFileContent(newContentPath);
+        for (int i = from; i <= to; i++) {
 
-                if (oldContent != null && newContent != null) {
+            FutureTask<FileDiff> diffTask = diffTasks.get(updatedFiles.get(i).getFilename());
+
+            // Task, which already runs, is not run again by another thread.
+            if (diffTask != null && !diffTask.isDone()) {
+
+                diffExecutor.execute(diffTask);
+            }
+        }
+    }
 
-                    // Get different lines.
-                    List<String> lines = Utils.parseStringByLines(Utils.getFilesDifference(oldContent, newContent));
-                    List<PreviewFileContentLine> contentLines = new ArrayList<>();
+    /**
+     * Compute diff of updated file with file from latest commit.
+     * @param fullPathFilename - Path of updated file.
+     * @param type - Change type.
+     * @param committedFile - File from latest commit.
+     * @return Diff of file or null if content of file cannot be loaded.
+     */
+    private FileDiff computeFileDiff(String fullPathFilename, CommitType type, CommittedFile committedFile) {
 
-                    int infoOldIndex = 0;
-                    int infoNewIndex = 0;
+        // Added file is compared with empty content, deleted file with empty content on disk.
+        String oldContent = type == CommitType.ADD ? "" : loadCommittedContent(committedFile);
+        String newContent = type == CommitType.REMOVE ? "" : FileLoader.loadFileContent(Utils.getAntipatternFolderPath() + fullPathFilename);
 
-                    // Iterate through every diff line and assign his line index and type.
-                    for (String line : lines) {
+        if (oldContent == null || newContent == null) {
 
-                        PreviewFileContentLineType type;
+            log.error("Error while comparing updated file " + fullPathFilename + ".");
+            return null;
+        }
 
-                        int lineIndex = 0;
+        return FileDiff.compute(oldContent, newContent);
+    }
 
-                        switch (line.charAt(0)) {
+    /**
+     * Store computed diff of file and show it, if file is selected.
+     * @param filename - Path of updated file.
+     * @param diffTask - Computation of diff.
+     */
+    private void diffComputed(String filename, FutureTask<FileDiff> diffTask) {
 
-                            case '-':
+        // Window was closed meanwhile.
+        if (diffTasks.get(filename) != diffTask) {
 
-                                type = PreviewFileContentLineType.DELETED;
-                                lineIndex = infoOldIndex;
-                                infoOldIndex++;
-                                break;
+            return;
+        }
 
-                            case '+':
+        try {
 
-                                type = PreviewFileContentLineType.ADDED;
-                                lineIndex = infoNewIndex;
-                                infoNewIndex++;
-                                break;
+            changedFiles.put(filename, diffTask.get());
 
-                            case ' ':
+        } catch (Exception e) {
 
-                                type = PreviewFileContentLineType.NOT_MODIFIED;
-                                lineIndex = infoNewIndex;
-                                infoOldIndex++;
-                                infoNewIndex++;
-                                break;
+            log.error("Error while comparing updated file " + filename + ": " + e.getMessage());
+            changedFiles.put(filename, null);
+        }
 
-                            default:
+        Object selectedItem = listViewFileChanged.getSelectionModel().getSelectedItem();
 
-                                type = PreviewFileContentLineType.DIFF_INFO;
+        if (selectedItem != null && ((ListViewItemWithStringAndCheckBox) selectedItem).getFilename().equals(filename)) {
 
-                                // If current line is diff info.
-                                if (line.contains("@")) {
+            showFileDiff(filename);
+        }
+    }
 
-                                    List<String> indexes = getIndexesFromDiff(line);
+    /**
+     * Stop computation of diffs, must be called when window is closed.
+     */
+    public void stopDiffComputation() {
 
-                                    // Do Math.abs, because old file index contains '-'.
-                                    infoOldIndex = Math.abs(Integer.parseInt(indexes.get(0)));
-                                    infoNewIndex = Integer.parseInt(indexes.get(1));
-                                }
-                                break;
-                        }
-                        contentLines.add(new PreviewFileContentLine(line, type, lineIndex));
-                    }
+        for (FutureTask<FileDiff> diffTask : diffTasks.values()) {
 
-                    changedFiles.put(fullPathFilename, contentLines);
+            diffTask.cancel(true);
+        }
 
-                } else {
+        diffTasks.clear();
 
-                    changedFiles.put(fullPathFilename, null);
-                }
+        if (diffExecutor != null) {
 
-            }
+            diffExecutor.shutdownNow();
+            selectedDiffExecutor.shutdownNow();
         }
     }
 
     /**
-     * Create content line (line + type of line (ADDED, DELETED)).
-     * @param lines - Content in lines.
-     * @param type - Type of lines.
-     * @return Content lines.
+     * Get path of file in latest commit.
+     * @param path - Path of updated file.
+     * @return Path of file in latest commit (different only for renamed file).
      */
-    private List<PreviewFileContentLine> createPreviewLinesWithOneType(List<String> lines, PreviewFileContentLineType type) {
+    private String getPreviousPath(String path) {
 
-        long i = 1;
-        List<PreviewFileContentLine> contentLines = new ArrayList<>();
-
-        for (String line : lines) {
+        return renamedFiles.getOrDefault(path, path);
+    }
 
-            if (line.matches("^(@@)[^@]*(@@)$")) {
+    /**
+     * Load content of file from latest commit.
+     * @param committedFile - File from latest commit.
+     * @return Content of file or null if file is not in latest commit or it cannot be read.
+     */
+    private String loadCommittedContent(CommittedFile committedFile) {
 
-                contentLines.add(new PreviewFileContentLine(line, PreviewFileContentLineType.DIFF_INFO, 0));
-                continue;
-            }
+        if (committedFile == null) {
 
-            contentLines.add(new PreviewFileContentLine(line, type, i));
-            i++;
+            return null;
         }
 
-        return contentLines;
+        try {
+
+            return committedFile.loadContent();
+
+        } catch (Exception e) {
+
+            log.warn("File '" + committedFile.getPath() + "' cannot be loaded from latest commit: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -752,33 +837,32 @@ public class GitWindowController {
         System.out.println();
     }
 
-    /**
-     * Get indexes from diff string.
-     * @param diffString - Diff string.
-     * @return List of indexes.
-     */
-    private static List<String> getIndexesFromDiff(String diffString) {
-
-        // Format: @@ -61,11 +66,33 @@
+    public boolean isSuccessfullyPulled() {
 
-        String[] diffStringArray = diffString.split(" ");
+        return successfullyPulled;
+    }
 
-        String infoOld = diffStringArray[1];
-        String infoNew = diffStringArray[2];
+    /**
+     * Computation of diff of one file, computed diff is passed to FX thread.
+     * Task can be executed by more executors, diff is computed only once.
+     */
+    private class DiffTask extends FutureTask<FileDiff> {
 
-        String[] infoOldIndex = infoOld.split(",");
-        String[] infoNewIndex = infoNew.split(",");
+        private final String filename;
 
-        List<String> indexes = new ArrayList<>();
+        private DiffTask(String filename, Callable<FileDiff> computation) {
 
-        indexes.add(infoOldIndex[0]);
-        indexes.add(infoNewIndex[0]);
+            super(computation);
+            this.filename = filename;
+        }
 
-        return indexes;
-    }
+        @Override
+        protected void done() {
 
-    public boolean isSuccessfullyPulled() {
+            if (!isCancelled()) {
 
-        return successfullyPulled;
+                Platform.runLater(() -> diffComputed(filename, this));
+            }
+        }
     }
 }
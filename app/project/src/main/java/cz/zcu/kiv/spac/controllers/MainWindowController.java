@@ -1,19 +1,30 @@
 package cz.zcu.kiv.spac.controllers;
 
 import cz.zcu.kiv.spac.bibtex.BibtexParser;
+import cz.zcu.kiv.spac.components.RelationGraphView;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
+import cz.zcu.kiv.spac.data.antipattern.RelationIndex;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
 import cz.zcu.kiv.spac.data.catalogue.Catalogue;
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
 import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueSnapshotStore;
 import cz.zcu.kiv.spac.data.reference.References;
 import cz.zcu.kiv.spac.enums.AntipatternFilterChoices;
+import cz.zcu.kiv.spac.file.CatalogueWriter;
 import cz.zcu.kiv.spac.file.FileLoader;
 import cz.zcu.kiv.spac.file.FileWriter;
+import cz.zcu.kiv.spac.file.WriteBatch;
+import cz.zcu.kiv.spac.graph.BarnesHutLayout;
+import cz.zcu.kiv.spac.graph.RelationGraph;
+import cz.zcu.kiv.spac.html.PreviewPrefetcher;
 import cz.zcu.kiv.spac.data.git.CustomGitObject;
 import cz.zcu.kiv.spac.markdown.MarkdownGenerator;
 import cz.zcu.kiv.spac.markdown.MarkdownParser;
 import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.utils.Metrics;
 import cz.zcu.kiv.spac.utils.Utils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -21,6 +32,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.web.WebView;
@@ -54,15 +66,34 @@ public class MainWindowController {
     @FXML
     private Button btnEditAP;
 
+    @FXML
+    private TabPane tabPanePreview;
+
+    @FXML
+    private Tab tabPreview;
+
+    @FXML
+    private Tab tabRelationGraph;
+
+    @FXML
+    private RelationGraphView relationGraphView;
+
     // App variables.
     private MarkdownParser markdownParser;
     private Template template;
     private CustomGitObject customGitObject;
-    private Map<String, Antipattern> antipatterns;
+    private Map<AntipatternKey, Antipattern> antipatterns;
     private Catalogue catalogue;
     private AntipatternFilterChoices selectedAPFilterChoice;
     private Antipattern selectedAntipattern;
     private References references;
+    private RelationIndex relationIndex;
+    private boolean relationGraphOutdated = true;
+    private final CatalogueSnapshotStore snapshotStore = new CatalogueSnapshotStore();
+    private PreviewPrefetcher previewPrefetcher;
+
+    // Number of list entries before and after selected antipattern, whose previews are rendered in background.
+    private static final int PREVIEW_PREFETCH_DISTANCE = 3;
 
     // Logger.
     private static Logger log = LogManager.getLogger(MainWindowController.class);
@@ -88,33 +119,28 @@ public class MainWindowController {
 
         // Create new markdown parser.
         markdownParser = new MarkdownParser(template);
+        previewPrefetcher = new PreviewPrefetcher(markdownParser::generateHTMLContent);
 
-        // Get catalogue markdown content.
-        String catalogueContent = FileLoader.loadFileContent(Utils.getRootDir() + "/" + Constants.CATALOGUE_FILE);
-
-        // If catalogue file was not loaded correctly.
-        if (catalogueContent == null) {
-
-            log.error("Catalogue file '" + Constants.CATALOGUE_FILE + "' does not exists !");
-            System.exit(1);
-        }
-
-        // Parse catalogue content.
-        catalogue = markdownParser.parseCatalogue(catalogueContent);
+        // Load catalogue (single file or shards).
+        catalogue = FileLoader.loadCatalogue(markdownParser);
 
-        // If catalogue content is not correctly writed.
+        // If catalogue was not loaded correctly.
         if (catalogue == null) {
 
-            log.error("Catalogue file has bad markdown format.");
             System.exit(1);
         }
 
         // Load all antipatterns from catalogue folder.
         antipatterns = FileLoader.loadAntipatterns(markdownParser, catalogue);
+        relationIndex = RelationIndex.build(antipatterns);
+        antipatternsChanged();
 
         // Set css styles for preview.
         wviewAntipatternPreview.getEngine().setUserStyleSheetLocation(getClass().getResource(Constants.RESOURCE_PREVIEW_CSS).toString());
 
+        // Clicking on node in relation graph selects antipattern.
+        relationGraphView.setOnNodeSelected(this::relationGraphNodeSelected);
+
         // Add all choices for filtering.
         selectAPFilter.getItems().addAll(AntipatternFilterChoices.getTexts());
         selectAPFilter.getSelectionModel().select(0);
@@ -159,9 +185,8 @@ public class MainWindowController {
 
             listAntipatterns.getItems().clear();
 
-            for (String aPatternName : antipatterns.keySet()) {
+            for (Antipattern antipattern : antipatterns.values()) {
 
-                Antipattern antipattern = antipatterns.get(aPatternName);
                 String name = antipattern.getName();
 
                 if (name.toLowerCase().contains(searchText.toLowerCase())) {
@@ -194,8 +219,7 @@ public class MainWindowController {
 
         item = item.replace(Constants.ANTIPATTERN_NOT_CREATED_SYMBOL, "");
 
-        String formattedName = Utils.formatAntipatternName(item);
-        selectedAntipattern = antipatterns.get(formattedName);
+        selectedAntipattern = antipatterns.get(AntipatternKey.of(item));
 
         // If no antipattern was selected.
         if (selectedAntipattern == null) {
@@ -216,6 +240,7 @@ public class MainWindowController {
 
                 // Show preview.
                 wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(selectedAntipattern.getContent().toString()));
+                prefetchNeighbourPreviews();
 
             } else if (mouseEvent.getClickCount() == 2) {
 
@@ -224,6 +249,193 @@ public class MainWindowController {
         }
     }
 
+    /**
+     * Key event for antipattern list.
+     * Moving selection by keyboard shows preview of selected antipattern.
+     * @param keyEvent - Key event.
+     */
+    @FXML
+    private void antipatternListKeyReleased(KeyEvent keyEvent) {
+
+        if (!keyEvent.getCode().isNavigationKey()) {
+
+            return;
+        }
+
+        String item = listAntipatterns.getSelectionModel().getSelectedItem();
+
+        if (item == null) {
+
+            return;
+        }
+
+        Antipattern antipattern = antipatterns.get(AntipatternKey.of(item.replace(Constants.ANTIPATTERN_NOT_CREATED_SYMBOL, "")));
+
+        // Preview is not reloaded if selection did not move (e.g. first or last entry).
+        if (antipattern == null || antipattern == selectedAntipattern) {
+
+            return;
+        }
+
+        selectedAntipattern = antipattern;
+        btnEditAP.setDisable(false);
+
+        wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(antipattern.getContent().toString()));
+        prefetchNeighbourPreviews();
+    }
+
+    /**
+     * Render previews of antipatterns near selected entry of antipattern list in background, nearest entries first.
+     * Previews, which were requested for previous selection and not rendered yet, are cancelled.
+     */
+    private void prefetchNeighbourPreviews() {
+
+        int index = listAntipatterns.getSelectionModel().getSelectedIndex();
+
+        if (index < 0) {
+
+            return;
+        }
+
+        List<String> contents = new ArrayList<>();
+
+        for (int distance = 1; distance <= PREVIEW_PREFETCH_DISTANCE; distance++) {
+
+            for (int neighbour : new int[] { index + distance, index - distance }) {
+
+                if (neighbour < 0 || neighbour >= listAntipatterns.getItems().size()) {
+
+                    continue;
+                }
+
+                String item = listAntipatterns.getItems().get(neighbour).replace(Constants.ANTIPATTERN_NOT_CREATED_SYMBOL, "");
+                Antipattern antipattern = antipatterns.get(AntipatternKey.of(item));
+
+                if (antipattern != null && antipattern.getContent() != null) {
+
+                    contents.add(antipattern.getContent().toString());
+                }
+            }
+        }
+
+        previewPrefetcher.prefetch(contents);
+    }
+
+    /**
+     * Selection event for relation graph tab.
+     * Graph is built and laid out in background only when tab is shown and antipatterns changed since last layout.
+     */
+    @FXML
+    private void tabRelationGraphSelectionChanged() {
+
+        if (relationGraphView == null) {
+
+            return;
+        }
+
+        if (!tabRelationGraph.isSelected()) {
+
+            relationGraphView.stop();
+            return;
+        }
+
+        if (relationGraphOutdated) {
+
+            relationGraphView.setLayout(new BarnesHutLayout(RelationGraph.build(snapshotStore.getSnapshot())));
+
+            relationGraphOutdated = false;
+        }
+
+        if (selectedAntipattern != null) {
+
+            relationGraphView.selectNode(selectedAntipattern.getKey());
+        }
+
+        relationGraphView.start();
+    }
+
+    /**
+     * Publish new catalogue snapshot after catalogue or antipatterns were changed and mark relation graph as outdated.
+     * Visible graph is rebuilt immediately.
+     */
+    private void antipatternsChanged() {
+
+        snapshotStore.publish(catalogue, antipatterns);
+        graphChanged();
+    }
+
+    /**
+     * Publish new catalogue snapshot, in which only changed antipatterns are updated, and mark relation graph as outdated.
+     * @param changedKeys - Keys of changed, added or removed antipatterns.
+     */
+    private void antipatternsChanged(Collection<AntipatternKey> changedKeys) {
+
+        snapshotStore.publish(catalogue, antipatterns, changedKeys);
+        graphChanged();
+    }
+
+    private void graphChanged() {
+
+        relationGraphOutdated = true;
+
+        if (tabRelationGraph != null && tabRelationGraph.isSelected()) {
+
+            tabRelationGraphSelectionChanged();
+        }
+    }
+
+    /**
+     * Load catalogue and antipatterns from files again, e.g. after changes made in memory could not be written.
+     */
+    private void reloadCatalogueAndAntipatterns() {
+
+        catalogue = FileLoader.loadCatalogue(markdownParser);
+
+        // If catalogue was not loaded correctly.
+        if (catalogue == null) {
+
+            System.exit(1);
+        }
+
+        antipatterns = FileLoader.loadAntipatterns(markdownParser, catalogue);
+        relationIndex = RelationIndex.build(antipatterns);
+        antipatternsChanged();
+    }
+
+    /**
+     * Select antipattern clicked in relation graph in antipattern list and show its preview.
+     * @param key - Key of antipattern.
+     */
+    private void relationGraphNodeSelected(AntipatternKey key) {
+
+        Antipattern antipattern = antipatterns.get(key);
+
+        if (antipattern == null) {
+
+            return;
+        }
+
+        selectedAntipattern = antipattern;
+        btnEditAP.setDisable(false);
+
+        // Antipattern may be hidden by search or filter.
+        String item = prepareAntipatternName(antipattern);
+
+        if (!listAntipatterns.getItems().contains(item)) {
+
+            txtFieldAPSearch.clear();
+            selectAPFilter.getSelectionModel().select(0);
+            selectedAPFilterChoice = AntipatternFilterChoices.ALL;
+            fillAntipatternList();
+        }
+
+        listAntipatterns.getSelectionModel().select(item);
+        listAntipatterns.scrollTo(item);
+
+        wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(antipattern.getContent().toString()));
+        tabPanePreview.getSelectionModel().select(tabPreview);
+    }
+
     /**
      * Exit main window action for menu item "Exit".
      */
@@ -295,18 +507,330 @@ public class MainWindowController {
     @FXML
     private void menuRelationExistenceCheckAllAction(ActionEvent actionEvent) {
 
+        long performedWrites = Metrics.get(Metrics.FILE_WRITES_PERFORMED);
+        long skippedWrites = Metrics.get(Metrics.FILE_WRITES_SKIPPED);
+
+        // All rewritten antipatterns are replaced together in one transaction.
+        WriteBatch writeBatch = new WriteBatch().begin();
+        boolean committed = false;
+
         List<String> notCompletedExistenceCheck = new ArrayList<>();
-        for (Antipattern antipattern : antipatterns.values()) {
 
-            notCompletedExistenceCheck.addAll(relationExistenceCheck(antipattern));
+        try {
+
+            for (Antipattern antipattern : antipatterns.values()) {
+
+                notCompletedExistenceCheck.addAll(relationExistenceCheck(antipattern));
+            }
+
+            committed = writeBatch.commit();
+
+        } finally {
+
+            if (!committed) {
+
+                writeBatch.rollback();
+
+                // Relations were changed only in memory, so state matching files is loaded again.
+                reloadCatalogueAndAntipatterns();
+            }
+        }
+
+        if (!committed) {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Existence check",
+                    "Changed files cannot be written, no file was changed.");
+            return;
         }
 
+        // Existence check adds and removes relations of checked and related antipatterns.
+        relationIndex = RelationIndex.build(antipatterns);
+        antipatternsChanged();
+
         if (notCompletedExistenceCheck.size() > 0) {
 
             printExistenceCheckError(notCompletedExistenceCheck);
         }
 
-        Utils.showAlertWindow(Alert.AlertType.INFORMATION, Constants.APP_NAME, "Existence check", "Existence check for all antipatterns was successfully executed.");
+        performedWrites = Metrics.get(Metrics.FILE_WRITES_PERFORMED) - performedWrites;
+        skippedWrites = Metrics.get(Metrics.FILE_WRITES_SKIPPED) - skippedWrites;
+
+        Utils.showAlertWindow(Alert.AlertType.INFORMATION, Constants.APP_NAME, "Existence check", "Existence check for all antipatterns was successfully executed. "
+                + performedWrites + " files were rewritten, " + skippedWrites + " files were already up to date.");
+    }
+
+    /**
+     * Menu action for renaming selected antipattern.
+     * @param actionEvent - Action event.
+     */
+    @FXML
+    private void menuRenameAntipatternAction(ActionEvent actionEvent) {
+
+        if (selectedAntipattern == null) {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while renaming antipattern",
+                    "No antipattern selected.");
+            return;
+        }
+
+        if (selectedAntipattern.isLinking()) {
+
+            displayAntipatternLinkedError(selectedAntipattern.getName());
+            return;
+        }
+
+        TextInputDialog dialog = new TextInputDialog(selectedAntipattern.getName());
+        dialog.setTitle(Constants.APP_NAME);
+        dialog.setHeaderText("Rename anti-pattern '" + selectedAntipattern.getName() + "'");
+        dialog.setContentText("New name:");
+
+        Optional<String> result = dialog.showAndWait();
+
+        if (result.isPresent()) {
+
+            renameAntipattern(selectedAntipattern, result.get().trim());
+        }
+    }
+
+    /**
+     * Rename antipattern and propagate new name to every antipattern, which contains relation to it.
+     * Only files found in reverse relation index are rewritten, all files are written in one batch.
+     * @param antipattern - Renamed antipattern.
+     * @param newName - New antipattern name.
+     */
+    private void renameAntipattern(Antipattern antipattern, String newName) {
+
+        String oldName = antipattern.getName();
+
+        if (newName.isEmpty() || Utils.isAntipatternNamesEquals(oldName, newName)) {
+
+            return;
+        }
+
+        if (catalogue.isAntipatternPresentedInCatalogue(newName) || antipatterns.containsKey(AntipatternKey.of(newName))) {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while renaming antipattern",
+                    "Anti-pattern '" + newName + "' is already presented in catalogue.");
+            return;
+        }
+
+        // Renamed antipattern file is regenerated from headings, so it must match template.
+        if (antipattern.isCreated() && template.getHeadingDifferences(antipattern).size() > 0) {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while renaming antipattern",
+                    "Anti-pattern '" + oldName + "' does not match template, please fix it first.");
+            return;
+        }
+
+        AntipatternKey oldKey = antipattern.getKey();
+        String oldPath = antipattern.getPath();
+
+        // Files are collected first and written at the end in one batch.
+        Map<File, String> changedFiles = new LinkedHashMap<>();
+        List<String> notRenamedRelations = new ArrayList<>();
+
+        Set<AntipatternKey> referencingAntipatterns = new LinkedHashSet<>(relationIndex.getReferencingAntipatterns(oldName));
+        relationIndex.removeAntipattern(antipattern);
+
+        // Rename antipattern.
+        antipattern.setName(newName);
+
+        String newPath = oldPath;
+
+        if (antipattern.isCreated()) {
+
+            AntipatternTextHeading nameHeading = (AntipatternTextHeading) antipattern.getAntipatternHeading(template.getFieldList().get(0).getName());
+            nameHeading.setValue(newName);
+
+            newPath = Constants.CATALOGUE_FOLDER + "/" + Utils.getFilenameFromStringPath(Utils.createMarkdownFilename(antipattern));
+            antipattern.setPath(newPath);
+
+        } else {
+
+            antipattern.setContent(MarkdownGenerator.getNonExistingAntipatternContent(newName));
+        }
+
+        // Update catalogue record.
+        catalogue.deleteCatalogueRecord(oldName);
+        catalogue.addCatalogueRecord(new CatalogueRecord(newName, newPath));
+
+        // Update linking antipatterns ('Known as'), which points to renamed antipattern.
+        for (String linkingAntipatternName : antipattern.getLinkingAntipatterns()) {
+
+            CatalogueRecord linkingRecord = catalogue.getCatalogueRecordByAntipatternName(linkingAntipatternName);
+
+            if (linkingRecord != null) {
+
+                linkingRecord.setPath(newPath);
+            }
+
+            Antipattern linkingAntipattern = antipatterns.get(AntipatternKey.of(linkingAntipatternName));
+
+            if (linkingAntipattern != null) {
+
+                linkingAntipattern.setPath(newPath);
+                linkingAntipattern.setLinkedAntipatternName(antipattern.getFormattedName());
+            }
+        }
+
+        // Replace key in map of antipatterns, but keep order of antipatterns.
+        Map<AntipatternKey, Antipattern> renamedAntipatterns = new LinkedHashMap<>();
+
+        for (Map.Entry<AntipatternKey, Antipattern> entry : antipatterns.entrySet()) {
+
+            if (entry.getKey().equals(oldKey)) {
+
+                renamedAntipatterns.put(antipattern.getKey(), antipattern);
+
+            } else {
+
+                renamedAntipatterns.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        antipatterns = renamedAntipatterns;
+
+        // Rewrite relation rows only in antipatterns, which references renamed antipattern.
+        for (AntipatternKey referencingAntipatternKey : referencingAntipatterns) {
+
+            // Relation of renamed antipattern to itself is indexed under old key.
+            boolean selfRelation = referencingAntipatternKey.equals(oldKey);
+            Antipattern referencingAntipattern = selfRelation ? antipattern : antipatterns.get(referencingAntipatternKey);
+
+            if (referencingAntipattern == null) {
+
+                continue;
+            }
+
+            if (!selfRelation && template.getHeadingDifferences(referencingAntipattern).size() > 0) {
+
+                notRenamedRelations.add(referencingAntipattern.getName());
+                continue;
+            }
+
+            Set<AntipatternRelation> relations = referencingAntipattern.getRelations();
+            List<AntipatternRelation> renamedRelations = new ArrayList<>();
+
+            for (AntipatternRelation relation : relations) {
+
+                if (relation.getAntipatternKey().equals(oldKey)) {
+
+                    renamedRelations.add(new AntipatternRelation(newName, relation.getRelation()));
+
+                } else {
+
+                    renamedRelations.add(relation);
+                }
+            }
+
+            relations.clear();
+            relations.addAll(renamedRelations);
+
+            // Renamed antipattern is regenerated below.
+            if (selfRelation) {
+
+                continue;
+            }
+
+            String content = MarkdownGenerator.createAntipatternMarkdownContent(referencingAntipattern.getAntipatternHeadings(), template, catalogue);
+            referencingAntipattern.setContent(content);
+            updateLinkingAntipatternsContent(referencingAntipattern);
+
+            changedFiles.put(new File(Utils.getAntipatternFolderPath() + referencingAntipattern.getPath()), content);
+        }
+
+        relationIndex.renameRelatedAntipattern(oldName, newName);
+        relationIndex.addAntipattern(antipattern);
+
+        // Regenerate renamed antipattern.
+        if (antipattern.isCreated()) {
+
+            String content = MarkdownGenerator.createAntipatternMarkdownContent(antipattern.getAntipatternHeadings(), template, catalogue);
+            antipattern.setContent(content);
+            updateLinkingAntipatternsContent(antipattern);
+
+            changedFiles.put(new File(Utils.getAntipatternFolderPath() + newPath), content);
+        }
+
+        // Rewritten antipatterns and catalogue are replaced together.
+        WriteBatch writeBatch = new WriteBatch().begin();
+        boolean committed = false;
+
+        try {
+
+            for (Map.Entry<File, String> changedFile : changedFiles.entrySet()) {
+
+                FileWriter.write(changedFile.getKey(), changedFile.getValue());
+            }
+
+            // Rewrite only catalogue instances with renamed antipattern and its linking antipatterns.
+            Set<String> changedInstances = new LinkedHashSet<>();
+            changedInstances.add(Catalogue.getInstanceKey(oldName));
+            changedInstances.add(Catalogue.getInstanceKey(newName));
+
+            for (String linkingAntipatternName : antipattern.getLinkingAntipatterns()) {
+
+                changedInstances.add(Catalogue.getInstanceKey(linkingAntipatternName));
+            }
+
+            CatalogueWriter.writeSections(catalogue, antipatterns, changedInstances);
+
+            committed = writeBatch.commit();
+
+        } finally {
+
+            if (!committed) {
+
+                writeBatch.rollback();
+
+                // Antipattern was renamed only in memory, so state matching files is loaded again.
+                reloadCatalogueAndAntipatterns();
+            }
+        }
+
+        if (!committed) {
+
+            selectedAntipattern = antipatterns.get(oldKey);
+            fillAntipatternList();
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while renaming antipattern",
+                    "Changed files cannot be written, no file was changed.");
+            return;
+        }
+
+        if (antipattern.isCreated() && !oldPath.equals(newPath)) {
+
+            File oldFile = new File(Utils.getAntipatternFolderPath() + oldPath);
+
+            if (!oldFile.delete()) {
+
+                log.warn("Cannot delete old antipattern file: " + oldFile.getAbsolutePath());
+            }
+        }
+
+        log.info("Antipattern '" + oldName + "' was renamed to '" + newName + "', " + changedFiles.size() + " files were rewritten.");
+
+        Set<AntipatternKey> changedKeys = new LinkedHashSet<>(referencingAntipatterns);
+        changedKeys.add(oldKey);
+        changedKeys.add(antipattern.getKey());
+
+        for (String linkingAntipatternName : antipattern.getLinkingAntipatterns()) {
+
+            changedKeys.add(AntipatternKey.of(linkingAntipatternName));
+        }
+
+        antipatternsChanged(changedKeys);
+
+        selectedAntipattern = antipattern;
+        fillAntipatternList();
+        wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(antipattern.getContent().toString()));
+
+        if (notRenamedRelations.size() > 0) {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while renaming antipattern",
+                    "Relations in anti-patterns " + notRenamedRelations + " were not renamed, because they do not match template.",
+                    Constants.ALERT_WINDOW_LONGER_WIDTH);
+        }
     }
 
     /**
@@ -323,6 +847,48 @@ public class MainWindowController {
         generateReferencesFile();
     }
 
+    /**
+     * Menu action for splitting catalogue into shards (one file per catalogue instance).
+     * @param actionEvent - Action event.
+     */
+    @FXML
+    private void menuSplitCatalogueAction(ActionEvent actionEvent) {
+
+        if (catalogue.isSharded()) {
+
+            Utils.showAlertWindow(Alert.AlertType.INFORMATION, Constants.APP_NAME, "Split catalogue", "Catalogue is already split into shards.");
+            return;
+        }
+
+        if (CatalogueWriter.writeShards(catalogue, antipatterns)) {
+
+            Utils.showAlertWindow(Alert.AlertType.INFORMATION, Constants.APP_NAME, "Split catalogue",
+                    "Catalogue was split into shards listed in '" + Utils.getFilenameFromStringPath(Constants.CATALOGUE_MANIFEST_FILE) + "'.");
+
+        } else {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Split catalogue", "Error while writing catalogue shards.");
+        }
+    }
+
+    /**
+     * Menu action for exporting whole catalogue into single catalogue file.
+     * @param actionEvent - Action event.
+     */
+    @FXML
+    private void menuExportCatalogueAction(ActionEvent actionEvent) {
+
+        if (CatalogueWriter.exportSingleFile(new File(Constants.CATALOGUE_FILE), catalogue, antipatterns)) {
+
+            Utils.showAlertWindow(Alert.AlertType.INFORMATION, Constants.APP_NAME, "Export catalogue",
+                    "Catalogue was exported to '" + Utils.getFilenameFromStringPath(Constants.CATALOGUE_FILE) + "'.");
+
+        } else {
+
+            Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Export catalogue", "Error while exporting catalogue.");
+        }
+    }
+
     /**
      * Menu action for adding new reference.
      * @param actionEvent - Action event.
@@ -425,6 +991,9 @@ public class MainWindowController {
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.showAndWait();
 
+            // Stop computation of diffs of closed window.
+            gitWindowController.stopDiffComputation();
+
             if (gitWindowController.isSuccessfullyPulled()) {
 
                 template = FileLoader.loadTemplate(Utils.getRootDir() + "/" + Constants.CONFIGURATION_NAME);
@@ -432,28 +1001,19 @@ public class MainWindowController {
                 // Create new markdown parser.
                 markdownParser = new MarkdownParser(template);
 
-                // Get catalogue markdown content.
-                String catalogueContent = FileLoader.loadFileContent(Utils.getRootDir() + "/" + Constants.CATALOGUE_FILE);
-
-                // If catalogue file was not loaded correctly.
-                if (catalogueContent == null) {
-
-                    log.error("Catalogue file '" + Constants.CATALOGUE_FILE + "' does not exists !");
-                    System.exit(1);
-                }
-
-                // Parse catalogue content.
-                catalogue = markdownParser.parseCatalogue(catalogueContent);
+                // Load catalogue (single file or shards).
+                catalogue = FileLoader.loadCatalogue(markdownParser);
 
-                // If catalogue content is not correctly writed.
+                // If catalogue was not loaded correctly.
                 if (catalogue == null) {
 
-                    log.error("Catalogue file has bad markdown format.");
                     System.exit(1);
                 }
 
                 // Load all antipatterns from catalogue folder.
                 antipatterns = FileLoader.loadAntipatterns(markdownParser, catalogue);
+                relationIndex = RelationIndex.build(antipatterns);
+                antipatternsChanged();
             }
 
         } catch (Exception e) {
@@ -500,9 +1060,7 @@ public class MainWindowController {
     private void fillAntipatternList() {
 
         listAntipatterns.getItems().clear();
-        for (String aPatternName : antipatterns.keySet()) {
-
-            Antipattern antipattern = antipatterns.get(aPatternName);
+        for (Antipattern antipattern : antipatterns.values()) {
 
             switch(selectedAPFilterChoice) {
 
@@ -535,6 +1093,9 @@ public class MainWindowController {
      */
     private void openAntipatternWindow(Antipattern antipattern) {
 
+        // Saved antipattern, related antipatterns and catalogue are replaced together.
+        WriteBatch writeBatch = new WriteBatch();
+
         try {
 
             String stageTitle = Constants.APP_NAME;
@@ -581,12 +1142,15 @@ public class MainWindowController {
             antipatternWindowController.setCatalogue(catalogue);
             antipatternWindowController.setAntipatterns(antipatterns);
             antipatternWindowController.setReferences(references);
+            antipatternWindowController.setWriteBatch(writeBatch);
 
             // Create Form tab and init values in fields.
             antipatternWindowController.loadAntipatternInfo(stage);
 
             stage.showAndWait();
 
+            writeBatch.begin();
+
             List<String> notCompletedExistenceCheck = new ArrayList<>();
 
             // If new antipattern was created in form, then save this antipattern to new file and update catalogue file.
@@ -618,8 +1182,8 @@ public class MainWindowController {
 
                 for (String antipatternWithUpdatedRelation : antipatternWindowController.getUpdatedAntipatterns()) {
 
-                    Antipattern antipatternWithUpdatedRelations = antipatterns.get(antipatternWithUpdatedRelation);
-                    String markdownContent = MarkdownGenerator.createAntipatternMarkdownContent(antipatternWithUpdatedRelations.getAntipatternHeadings(), template.getFieldList(), catalogue);
+                    Antipattern antipatternWithUpdatedRelations = antipatterns.get(AntipatternKey.of(antipatternWithUpdatedRelation));
+                    String markdownContent = MarkdownGenerator.createAntipatternMarkdownContent(antipatternWithUpdatedRelations.getAntipatternHeadings(), template, catalogue);
 
                     FileWriter.write(new File(Utils.getAntipatternFolderPath() + antipatternWithUpdatedRelations.getPath()), markdownContent);
                 }
@@ -636,13 +1200,22 @@ public class MainWindowController {
                 wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(updatedAntipattern.getContent().toString()));
             }
 
+            if (!writeBatch.commit()) {
+
+                Utils.showAlertWindow(Alert.AlertType.ERROR, Constants.APP_NAME, "Error while saving antipattern",
+                        "Changed files cannot be written, no file was changed.");
+            }
+
             antipatterns = null;
             antipatterns = FileLoader.loadAntipatterns(markdownParser, catalogue);
+            relationIndex = RelationIndex.build(antipatterns);
+            antipatternsChanged();
 
             fillAntipatternList();
 
         } catch (Exception e) {
 
+            writeBatch.rollback();
             log.error("Invalid AntipatternWindowController scene.");
         }
     }
@@ -656,7 +1229,7 @@ public class MainWindowController {
 
         for (AntipatternRelation deletedRelation : deletedRelations) {
 
-            Antipattern relatedAntipattern = antipatterns.get(deletedRelation.getAntipattern());
+            Antipattern relatedAntipattern = antipatterns.get(deletedRelation.getAntipatternKey());
 
             if (relatedAntipattern != null) {
 
@@ -665,7 +1238,7 @@ public class MainWindowController {
                 relatedAntipattern.getRelations().remove(tmpRelation);
 
                 // Write change to file immediately -> existence check is after this method (when saving updated antipattern values).
-                String content = MarkdownGenerator.createAntipatternMarkdownContent(relatedAntipattern.getAntipatternHeadings(), template.getFieldList(), catalogue);
+                String content = MarkdownGenerator.createAntipatternMarkdownContent(relatedAntipattern.getAntipatternHeadings(), template, catalogue);
                 FileWriter.write(new File(Utils.createMarkdownFilename(relatedAntipattern)), content);
                 relatedAntipattern.setContent(content);
             }
@@ -697,7 +1270,7 @@ public class MainWindowController {
                 // Iterate through every relation of current antipattern and do the same existence check.
                 for (AntipatternRelation relation : relations) {
 
-                    Antipattern relatedAntipattern = antipatterns.get(relation.getAntipattern());
+                    Antipattern relatedAntipattern = antipatterns.get(relation.getAntipatternKey());
 
                     if (relatedAntipattern != null) {
 
@@ -756,7 +1329,7 @@ public class MainWindowController {
 
             for (String linkingAntipatternName : linkedAntipatterns) {
 
-                Antipattern linkingAntipattern = antipatterns.get(linkingAntipatternName);
+                Antipattern linkingAntipattern = antipatterns.get(AntipatternKey.of(linkingAntipatternName));
 
                 if (linkingAntipattern != null) {
 
@@ -806,23 +1379,23 @@ public class MainWindowController {
         List<String> deletedLinkedAntipatterns = new ArrayList<>(antipattern.getLinkingAntipatterns());
         deletedLinkedAntipatterns.removeAll(updatedAntipattern.getLinkingAntipatterns());
 
+        Set<String> changedInstances = new LinkedHashSet<>();
+
         for (String linkedAntipatternString : addedLinkedAntipatterns) {
 
             addAntipatternToMapAndCatalogue(linkedAntipatternString, updatedAntipattern);
+            changedInstances.add(Catalogue.getInstanceKey(linkedAntipatternString));
         }
 
         for (String linkedAntipatternString : deletedLinkedAntipatterns) {
 
-            Antipattern deletedLinkedAntipattern = antipatterns.get(Utils.formatAntipatternName(linkedAntipatternString));
-            antipatterns.remove(deletedLinkedAntipattern);
+            antipatterns.remove(AntipatternKey.of(linkedAntipatternString));
             catalogue.deleteCatalogueRecord(linkedAntipatternString);
+            changedInstances.add(Catalogue.getInstanceKey(linkedAntipatternString));
         }
 
-        // Create new catalogue content.
-        String catalogueMarkdownContent = MarkdownGenerator.createCatalogueMarkdownContent(catalogue, antipatterns);
-
-        // Replace old catalogue content with new catalogue content.
-        FileWriter.write(new File(Constants.CATALOGUE_FILE), catalogueMarkdownContent);
+        // Rewrite only changed catalogue instances in catalogue file.
+        CatalogueWriter.writeSections(catalogue, antipatterns, changedInstances);
     }
 
     /**
@@ -868,23 +1441,34 @@ public class MainWindowController {
             antipatternRawWindowController.setDifferences(missingHeadings);
             antipatternRawWindowController.setParser(markdownParser);
 
+            Scene scene = new Scene(root);
+            scene.getStylesheets().add(getClass().getResource(Constants.RESOURCE_ANTIPATTERN_RAW_WINDOW_CSS).toExternalForm());
+
             // Set stage.
             stage.setTitle(stageTitle);
-            stage.setScene(new Scene(root));
+            stage.setScene(scene);
             stage.setResizable(false);
             stage.initModality(Modality.APPLICATION_MODAL);
             stage.showAndWait();
 
+            // Stop live validation of closed window.
+            antipatternRawWindowController.stopLiveValidation();
+
             // If antipattern was updated, then it means it contains all required headings.
             if (antipatternRawWindowController.isUpdated()) {
 
+                // Relations may be changed in raw content, so antipattern is indexed again.
+                relationIndex.removeAntipattern(antipattern);
+
                 Antipattern tempAntipattern = antipatternRawWindowController.getTempAntipattern();
                 antipattern.setAntipatternHeadings(tempAntipattern.getAntipatternHeadings());
                 antipattern.setContent(tempAntipattern.getContent().toString());
                 antipattern.setAntipatternHeadings(markdownParser.parseHeadings(antipattern, antipattern.getContent().toString()));
+                relationIndex.addAntipattern(antipattern);
 
                 // Save content changes to file.
                 FileWriter.write(new File(Utils.getAntipatternFolderPath() + antipattern.getPath()), antipattern.getContent().toString());
+                antipatternsChanged(Collections.singleton(antipattern.getKey()));
                 wviewAntipatternPreview.getEngine().loadContent(markdownParser.generateHTMLContent(tempAntipattern.getContent().toString()));
             }
 
@@ -907,29 +1491,11 @@ public class MainWindowController {
         linkedAntipattern.setLinking(true);
         linkedAntipattern.setLinkedAntipatternName(antipattern.getName());
 
-        antipatterns.put(linkedAntipattern.getFormattedName(), linkedAntipattern);
-
-        // Then create catalogue record to push it to catalogue filel
-        String firstLetter = linkedAntipatternString.toUpperCase().substring(0, 1);
-
-        // Get catalogue instance for linked antipattern.
-        List<CatalogueRecord> catalogueRecords = catalogue.getCatalogueInstance(firstLetter);
-
-        // If catalogue does not contains specific instance, then create new arraylist.
-        if (catalogueRecords == null) {
-
-            catalogueRecords = new ArrayList<>();
-        }
+        antipatterns.put(linkedAntipattern.getKey(), linkedAntipattern);
 
+        // Then create catalogue record to push it to catalogue file.
         String path = Constants.CATALOGUE_FOLDER + "/" + Utils.getFilenameFromStringPath(antipattern.getPath());
-
-        catalogueRecords.add(new CatalogueRecord(linkedAntipattern.getName(), path));
-
-        // Push it to catalogue.
-        catalogue.addCatalogueInstance(firstLetter, catalogueRecords);
-
-        // Sort specific instance.
-        catalogue.sortCatalogueInstance(firstLetter);
+        catalogue.addCatalogueRecord(new CatalogueRecord(linkedAntipattern.getName(), path));
     }
 
     /**
@@ -940,40 +1506,23 @@ public class MainWindowController {
 
         try {
 
-            // Get first letter of antipattern name.
-            String firstLetter = newAntipattern.getName().toUpperCase().substring(0, 1);
-
-            // Get list of catalogue records by first letter of name.
-            List<CatalogueRecord> catalogueRecords = catalogue.getCatalogueInstance(firstLetter);
-
-            // If catalogue does not contains specific instance, then create new arraylist.
-            if (catalogueRecords == null) {
-
-                catalogueRecords = new ArrayList<>();
-            }
-
-            // Add created antipattern to list.
+            // Add created antipattern to catalogue.
             String path = Constants.CATALOGUE_FOLDER + "/" + Utils.getFilenameFromStringPath(newAntipattern.getPath());
-            catalogueRecords.add(new CatalogueRecord(newAntipattern.getName(), path));
-            antipatterns.put(newAntipattern.getFormattedName(), newAntipattern);
+            catalogue.addCatalogueRecord(new CatalogueRecord(newAntipattern.getName(), path));
+            antipatterns.put(newAntipattern.getKey(), newAntipattern);
 
-            // Push it to catalogue.
-            catalogue.addCatalogueInstance(firstLetter, catalogueRecords);
-
-            // Sort specific instance.
-            catalogue.sortCatalogueInstance(firstLetter);
+            Set<String> changedInstances = new LinkedHashSet<>();
+            changedInstances.add(Catalogue.getInstanceKey(newAntipattern.getName()));
 
             // Create CatalogueRecords from 'Known as' field.
             for (String linkedAntipatternString : newAntipattern.getLinkingAntipatterns()) {
 
                 addAntipatternToMapAndCatalogue(linkedAntipatternString, newAntipattern);
+                changedInstances.add(Catalogue.getInstanceKey(linkedAntipatternString));
             }
 
-            // Create new catalogue content.
-            String catalogueMarkdownContent = MarkdownGenerator.createCatalogueMarkdownContent(catalogue, antipatterns);
-
-            // Replace old catalogue content with new catalogue content.
-            FileWriter.write(new File(Constants.CATALOGUE_FILE), catalogueMarkdownContent);
+            // Rewrite only changed catalogue instances in catalogue file.
+            CatalogueWriter.writeSections(catalogue, antipatterns, changedInstances);
 
             log.info("New antipattern '" + newAntipattern.getName() + "' was created successfully and pushed to catalogue.");
 
@@ -37,7 +37,7 @@ public class Constants {
     public static final String RESOURCE_NEW_REFERENCE_WINDOW = "/windows/NewReferenceWindow.fxml";
 
     public static final String RESOURCE_PREVIEW_CSS = "/css/AntipatternPreview.css";
-    public static final String RESOURCE_GIT_PREVIEW_CSS = "/css/GitAntipatternPreview.css";
+    public static final String RESOURCE_ANTIPATTERN_RAW_WINDOW_CSS = "/css/AntipatternRawWindow.css";
     public static final String RESOURCE_GIT_WINDOW_STYLES_CSS = "/css/GitWindowStyles.css";
 
     public static final String CATALOGUE_NAME = "../Antipatterns_catalogue.md";
@@ -49,8 +49,12 @@ public class Constants {
     public static final String BIBTEX_REFERENCES_NAME = "references.bib";
     public static final String REFERENCES_NAME = "../References.md";
     public static final String CATALOGUE_FILE = "../Antipatterns_catalogue" + FILES_EXTENSION;
+    public static final String CATALOGUE_MANIFEST_FILE = "../Antipatterns_catalogue_index" + FILES_EXTENSION;
+    public static final String CATALOGUE_SHARD_PREFIX = "Antipatterns_catalogue_";
     public static final String TEMPLATE_FILE = "template" + FILES_EXTENSION;
     public static final String GIT_FOLDER = "../.git";
+    public static final String JOURNAL_FOLDER = ".journal";
+    public static final String IMAGE_CACHE_FOLDER = ".image-cache";
 
     public static final String LINE_BREAKER_LF = "\n";
     public static final String LINE_BREAKER_CRLF = "\r\n";
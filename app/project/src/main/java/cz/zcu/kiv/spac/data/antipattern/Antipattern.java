@@ -3,7 +3,6 @@ package cz.zcu.kiv.spac.data.antipattern;
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
-import cz.zcu.kiv.spac.utils.Utils;
 
 import java.util.*;
 
@@ -13,7 +12,7 @@ import java.util.*;
 public class Antipattern {
 
     private String name;
-    private String formattedName;
+    private AntipatternKey key;
     private AntipatternContent content;
     private String path;
 
@@ -34,7 +33,7 @@ public class Antipattern {
     public Antipattern(String name, AntipatternContent content, String path) {
 
         this.name = name;
-        this.formattedName = Utils.formatAntipatternName(name);
+        this.key = AntipatternKey.of(name);
         this.content = content;
         this.path = path;
         this.antipatternHeadings = new LinkedHashMap<>();
@@ -155,7 +154,7 @@ public class Antipattern {
     public void setName(String name) {
 
         this.name = name;
-        this.formattedName = Utils.formatAntipatternName(name);
+        this.key = AntipatternKey.of(name);
     }
 
     public boolean isCreated() {
@@ -175,7 +174,12 @@ public class Antipattern {
 
     public String getFormattedName() {
 
-        return formattedName;
+        return key.getName();
+    }
+
+    public AntipatternKey getKey() {
+
+        return key;
     }
 
     public void setRelationsHeadingName(String relationsHeadingName) {
@@ -0,0 +1,149 @@
+package cz.zcu.kiv.spac.data.antipattern;
+
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+
+/**
+ * Immutable key of antipattern used in map of antipatterns, catalogue index and relation graph.
+ * Antipattern name is formatted only once when key is created and hash is precomputed,
+ * so lookups do not need to format names again.
+ */
+public final class AntipatternKey implements Comparable<AntipatternKey> {
+
+    private final String name;
+    private final int hash;
+
+    /**
+     * Constructor.
+     * @param name - Formatted antipattern name.
+     */
+    private AntipatternKey(String name) {
+
+        this.name = name;
+        this.hash = name.hashCode();
+    }
+
+    /**
+     * Create key from antipattern name or filename.
+     * @param name - Antipattern name or filename.
+     * @return Antipattern key.
+     */
+    public static AntipatternKey of(String name) {
+
+        return new AntipatternKey(format(name));
+    }
+
+    /**
+     * Create key from antipattern in relation table record.
+     * @param relationName - Antipattern name or link to antipattern ([Name](path)).
+     * @return Antipattern key.
+     */
+    public static AntipatternKey fromRelation(String relationName) {
+
+        return of(MarkdownParser.parseAntipatternFromTableRecord(relationName));
+    }
+
+    /**
+     * Format antipattern filename into antipattern name in one pass.
+     * Extension is removed, '_' is replaced by space and apostrophes are removed.
+     * @param filename - Antipattern name as filename.
+     * @return Formatted antipattern name.
+     */
+    public static String format(String filename) {
+
+        int end = getExtensionIndex(filename);
+
+        StringBuilder sb = null;
+
+        for (int i = 0; i < end; i++) {
+
+            char c = filename.charAt(i);
+
+            if (c == '_' || c == '\'' || c == '’') {
+
+                if (sb == null) {
+
+                    sb = new StringBuilder(end);
+                    sb.append(filename, 0, i);
+                }
+
+                if (c == '_') {
+
+                    sb.append(' ');
+                }
+
+            } else if (sb != null) {
+
+                sb.append(c);
+            }
+        }
+
+        if (sb != null) {
+
+            return sb.toString();
+        }
+
+        return end == filename.length() ? filename : filename.substring(0, end);
+    }
+
+    /**
+     * Get index of extension separator, same as FilenameUtils.indexOfExtension.
+     * @param filename - Filename.
+     * @return Index of extension separator, length of filename if there is no extension.
+     */
+    private static int getExtensionIndex(String filename) {
+
+        int extensionIndex = filename.lastIndexOf('.');
+        int separatorIndex = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+
+        if (extensionIndex == -1 || separatorIndex > extensionIndex) {
+
+            return filename.length();
+        }
+
+        return extensionIndex;
+    }
+
+    /**
+     * Get formatted antipattern name.
+     * @return Formatted antipattern name.
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+
+            return true;
+        }
+
+        if (!(o instanceof AntipatternKey)) {
+
+            return false;
+        }
+
+        AntipatternKey other = (AntipatternKey) o;
+        return hash == other.hash && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return hash;
+    }
+
+    @Override
+    public int compareTo(AntipatternKey other) {
+
+        return name.compareTo(other.name);
+    }
+
+    @Override
+    public String toString() {
+
+        return name;
+    }
+}
@@ -1,5 +1,7 @@
 package cz.zcu.kiv.spac.data.antipattern;
 
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+
 /**
  * Class representing antipattern relation, which is used in 'Related Anti-patterns' table.
  */
@@ -9,6 +11,9 @@ public class AntipatternRelation {
     private String antipattern;
     private String relation;
 
+    // Key of related antipattern, created on first use.
+    private AntipatternKey antipatternKey;
+
     /**
      * Constructor.
      */
@@ -47,7 +52,7 @@ public class AntipatternRelation {
     public void setAntipattern(String antipattern) {
 
         String value = "";
-        if (antipattern.matches("^\\[.*\\]\\(.*\\)$")) {
+        if (MarkdownParser.isTableRecordLink(antipattern)) {
 
             value = antipattern.substring(antipattern.indexOf("[") + 1, antipattern.indexOf("]"));
 
@@ -59,6 +64,21 @@ public class AntipatternRelation {
         }
 
         this.antipattern = value;
+        this.antipatternKey = null;
+    }
+
+    /**
+     * Get key of related antipattern. Key is created only once for relation.
+     * @return Key of related antipattern.
+     */
+    public AntipatternKey getAntipatternKey() {
+
+        if (antipatternKey == null) {
+
+            antipatternKey = AntipatternKey.fromRelation(antipattern);
+        }
+
+        return antipatternKey;
     }
 
     public boolean isLinked() {
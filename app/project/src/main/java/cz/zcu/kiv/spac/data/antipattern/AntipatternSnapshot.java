@@ -0,0 +1,210 @@
+package cz.zcu.kiv.spac.data.antipattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable state of antipattern in catalogue snapshot.
+ * Snapshot can be read from background threads while controllers change original antipattern.
+ */
+public final class AntipatternSnapshot {
+
+    private final AntipatternKey key;
+    private final String name;
+    private final String path;
+    private final String content;
+    private final boolean created;
+    private final boolean linking;
+    private final String linkedAntipatternName;
+    private final List<String> linkingAntipatterns;
+    private final List<Relation> relations;
+
+    /**
+     * Constructor.
+     * @param antipattern - Antipattern.
+     */
+    private AntipatternSnapshot(Antipattern antipattern) {
+
+        this.key = antipattern.getKey();
+        this.name = antipattern.getName();
+        this.path = antipattern.getPath();
+        this.content = getContent(antipattern);
+        this.created = antipattern.isCreated();
+        this.linking = antipattern.isLinking();
+        this.linkedAntipatternName = antipattern.getLinkedAntipatternName();
+        this.linkingAntipatterns = Collections.unmodifiableList(new ArrayList<>(antipattern.getLinkingAntipatterns()));
+        this.relations = createRelations(antipattern.getRelations());
+    }
+
+    /**
+     * Create snapshot of antipattern.
+     * Previous snapshot is returned, if antipattern was not changed since it was created.
+     * @param antipattern - Antipattern.
+     * @param previous - Previous snapshot of antipattern, can be null.
+     * @return Snapshot of antipattern.
+     */
+    public static AntipatternSnapshot of(Antipattern antipattern, AntipatternSnapshot previous) {
+
+        if (previous != null && previous.matches(antipattern)) {
+
+            return previous;
+        }
+
+        return new AntipatternSnapshot(antipattern);
+    }
+
+    /**
+     * Check if snapshot has same values as antipattern.
+     * @param antipattern - Antipattern.
+     * @return True if snapshot has same values.
+     */
+    private boolean matches(Antipattern antipattern) {
+
+        if (!key.equals(antipattern.getKey()) || !name.equals(antipattern.getName()) || !Objects.equals(path, antipattern.getPath())
+                || created != antipattern.isCreated() || linking != antipattern.isLinking()
+                || !Objects.equals(linkedAntipatternName, antipattern.getLinkedAntipatternName())
+                || !linkingAntipatterns.equals(antipattern.getLinkingAntipatterns())
+                || !content.equals(getContent(antipattern))) {
+
+            return false;
+        }
+
+        Set<AntipatternRelation> antipatternRelations = antipattern.getRelations();
+        int relationCount = antipatternRelations == null ? 0 : antipatternRelations.size();
+
+        if (relationCount != relations.size()) {
+
+            return false;
+        }
+
+        int i = 0;
+
+        if (antipatternRelations != null) {
+
+            for (AntipatternRelation relation : antipatternRelations) {
+
+                Relation snapshotRelation = relations.get(i++);
+
+                if (!Objects.equals(snapshotRelation.antipattern, relation.getAntipattern()) || !Objects.equals(snapshotRelation.relation, relation.getRelation())) {
+
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static String getContent(Antipattern antipattern) {
+
+        if (antipattern.getContent() == null || antipattern.getContent().toString() == null) {
+
+            return "";
+        }
+
+        return antipattern.getContent().toString();
+    }
+
+    private static List<Relation> createRelations(Set<AntipatternRelation> antipatternRelations) {
+
+        if (antipatternRelations == null || antipatternRelations.isEmpty()) {
+
+            return Collections.emptyList();
+        }
+
+        List<Relation> relations = new ArrayList<>(antipatternRelations.size());
+
+        for (AntipatternRelation relation : antipatternRelations) {
+
+            relations.add(new Relation(relation.getAntipatternKey(), relation.getAntipattern(), relation.getRelation()));
+        }
+
+        return Collections.unmodifiableList(relations);
+    }
+
+    public AntipatternKey getKey() {
+
+        return key;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getPath() {
+
+        return path;
+    }
+
+    public String getContent() {
+
+        return content;
+    }
+
+    public boolean isCreated() {
+
+        return created;
+    }
+
+    public boolean isLinking() {
+
+        return linking;
+    }
+
+    public String getLinkedAntipatternName() {
+
+        return linkedAntipatternName;
+    }
+
+    public List<String> getLinkingAntipatterns() {
+
+        return linkingAntipatterns;
+    }
+
+    public List<Relation> getRelations() {
+
+        return relations;
+    }
+
+    /**
+     * Immutable relation from 'Related Anti-patterns' table.
+     */
+    public static final class Relation {
+
+        private final AntipatternKey key;
+        private final String antipattern;
+        private final String relation;
+
+        /**
+         * Constructor.
+         * @param key - Key of related antipattern.
+         * @param antipattern - Related antipattern as written in table.
+         * @param relation - Relation to antipattern.
+         */
+        private Relation(AntipatternKey key, String antipattern, String relation) {
+
+            this.key = key;
+            this.antipattern = antipattern;
+            this.relation = relation;
+        }
+
+        public AntipatternKey getKey() {
+
+            return key;
+        }
+
+        public String getAntipattern() {
+
+            return antipattern;
+        }
+
+        public String getRelation() {
+
+            return relation;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package cz.zcu.kiv.spac.data.antipattern;
+
+import java.util.*;
+
+/**
+ * Class representing reverse index of antipattern relations.
+ * For every antipattern name it keeps set of antipatterns, which mention this name in their relation table.
+ */
+public class RelationIndex {
+
+    // Key of related antipattern -> keys of antipatterns containing relation to it.
+    private Map<AntipatternKey, Set<AntipatternKey>> referencingAntipatterns;
+
+    /**
+     * Constructor.
+     */
+    public RelationIndex() {
+
+        referencingAntipatterns = new HashMap<>();
+    }
+
+    /**
+     * Build reverse index from map of antipatterns.
+     * @param antipatterns - Map of antipatterns.
+     * @return Reverse relation index.
+     */
+    public static RelationIndex build(Map<AntipatternKey, Antipattern> antipatterns) {
+
+        RelationIndex relationIndex = new RelationIndex();
+
+        for (Antipattern antipattern : antipatterns.values()) {
+
+            relationIndex.addAntipattern(antipattern);
+        }
+
+        return relationIndex;
+    }
+
+    /**
+     * Add all relations of antipattern to index.
+     * @param antipattern - Antipattern.
+     */
+    public void addAntipattern(Antipattern antipattern) {
+
+        // Linking antipatterns share relations with linked antipattern, so they are indexed only once.
+        if (antipattern.isLinking()) {
+
+            return;
+        }
+
+        Set<AntipatternRelation> relations = antipattern.getRelations();
+
+        if (relations == null) {
+
+            return;
+        }
+
+        for (AntipatternRelation relation : relations) {
+
+            AntipatternKey relatedKey = relation.getAntipatternKey();
+            referencingAntipatterns.computeIfAbsent(relatedKey, k -> new LinkedHashSet<>()).add(antipattern.getKey());
+        }
+    }
+
+    /**
+     * Remove all relations of antipattern from index.
+     * @param antipattern - Antipattern.
+     */
+    public void removeAntipattern(Antipattern antipattern) {
+
+        Set<AntipatternRelation> relations = antipattern.getRelations();
+
+        if (relations == null) {
+
+            return;
+        }
+
+        for (AntipatternRelation relation : relations) {
+
+            AntipatternKey relatedKey = relation.getAntipatternKey();
+            Set<AntipatternKey> referencing = referencingAntipatterns.get(relatedKey);
+
+            if (referencing != null) {
+
+                referencing.remove(antipattern.getKey());
+
+                if (referencing.isEmpty()) {
+
+                    referencingAntipatterns.remove(relatedKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get names of antipatterns, which contains relation to antipattern.
+     * @param antipatternName - Antipattern name.
+     * @return Set of keys of referencing antipatterns.
+     */
+    public Set<AntipatternKey> getReferencingAntipatterns(String antipatternName) {
+
+        Set<AntipatternKey> referencing = referencingAntipatterns.get(AntipatternKey.fromRelation(antipatternName));
+
+        if (referencing == null) {
+
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(referencing);
+    }
+
+    /**
+     * Move antipatterns referencing renamed antipattern under its new name.
+     * Relations of renamed antipattern itself must be re-indexed by removeAntipattern / addAntipattern.
+     * @param oldName - Old antipattern name.
+     * @param newName - New antipattern name.
+     */
+    public void renameRelatedAntipattern(String oldName, String newName) {
+
+        Set<AntipatternKey> referencing = referencingAntipatterns.remove(AntipatternKey.fromRelation(oldName));
+
+        if (referencing != null) {
+
+            referencingAntipatterns.computeIfAbsent(AntipatternKey.fromRelation(newName), k -> new LinkedHashSet<>()).addAll(referencing);
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package cz.zcu.kiv.spac.data.catalogue;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+
+import java.util.*;
+import java.util.function.Function;
 
 /**
  * CLass representing catalogue file.
@@ -12,12 +12,97 @@ public class Catalogue {
 
     private Map<String, List<CatalogueRecord>> catalogueRecords;
 
+    // Antipattern key -> catalogue record.
+    private Map<AntipatternKey, CatalogueRecord> recordIndex;
+
+    // Keys of catalogue instances, which were added without sorting (e.g. parsed from file).
+    private Set<String> unsortedInstances;
+
+    // Positions of catalogue instances in catalogue file, null if unknown.
+    private CatalogueLayout layout;
+
+    // Sharded catalogue - instances are stored in separate files and loaded on first access.
+    private boolean sharded;
+    private Set<String> unloadedInstances;
+    private Function<String, List<CatalogueRecord>> instanceLoader;
+
     /**
      * Constructor.
      */
     public Catalogue() {
 
         catalogueRecords = new HashMap<>();
+        recordIndex = new HashMap<>();
+        unsortedInstances = new HashSet<>();
+        unloadedInstances = new LinkedHashSet<>();
+    }
+
+    /**
+     * Set catalogue as sharded. Instances are loaded by loader when they are accessed for the first time.
+     * @param keys - Keys of catalogue instances, which are not loaded yet.
+     * @param instanceLoader - Loader of catalogue instance records by instance key.
+     */
+    public void setShards(Collection<String> keys, Function<String, List<CatalogueRecord>> instanceLoader) {
+
+        this.sharded = true;
+        this.instanceLoader = instanceLoader;
+        this.unloadedInstances.addAll(keys);
+    }
+
+    /**
+     * Load catalogue instance from its shard, if it was not loaded yet.
+     * @param key - Key of catalogue instance.
+     */
+    private void ensureLoaded(String key) {
+
+        if (unloadedInstances.remove(key)) {
+
+            List<CatalogueRecord> records = instanceLoader.apply(key);
+            addCatalogueInstance(key, records != null ? records : new ArrayList<>());
+        }
+    }
+
+    /**
+     * Load all catalogue instances, which were not loaded yet.
+     */
+    private void ensureAllLoaded() {
+
+        for (String key : new ArrayList<>(unloadedInstances)) {
+
+            ensureLoaded(key);
+        }
+    }
+
+    /**
+     * Get keys of all catalogue instances without loading them.
+     * @return Keys of catalogue instances.
+     */
+    public Set<String> getInstanceKeys() {
+
+        Set<String> keys = new LinkedHashSet<>(catalogueRecords.keySet());
+        keys.addAll(unloadedInstances);
+
+        return keys;
+    }
+
+    /**
+     * Check if catalogue instance is loaded. Instances of catalogue, which is not sharded, are always loaded.
+     * @param key - Key of catalogue instance.
+     * @return True if instance is loaded, false if its shard was not read yet.
+     */
+    public boolean isInstanceLoaded(String key) {
+
+        return !unloadedInstances.contains(key);
+    }
+
+    public boolean isSharded() {
+
+        return sharded;
+    }
+
+    public void setSharded(boolean sharded) {
+
+        this.sharded = sharded;
     }
 
     /**
@@ -28,7 +113,51 @@ public class Catalogue {
      */
     public void addCatalogueInstance(String key, List<CatalogueRecord> records) {
 
-        this.catalogueRecords.put(key, records);
+        List<CatalogueRecord> previousRecords = this.catalogueRecords.put(key, records);
+
+        if (previousRecords != null) {
+
+            for (CatalogueRecord record : previousRecords) {
+
+                recordIndex.remove(AntipatternKey.of(record.getAntipatternName()), record);
+            }
+        }
+
+        for (CatalogueRecord record : records) {
+
+            recordIndex.putIfAbsent(AntipatternKey.of(record.getAntipatternName()), record);
+        }
+
+        unsortedInstances.add(key);
+    }
+
+    /**
+     * Add catalogue record to instance by first letter of antipattern name.
+     * Record is inserted on its sorted position, so instance stays sorted without sorting whole instance.
+     * @param record - Catalogue record.
+     */
+    public void addCatalogueRecord(CatalogueRecord record) {
+
+        String key = getInstanceKey(record.getAntipatternName());
+        ensureLoaded(key);
+
+        List<CatalogueRecord> records = catalogueRecords.computeIfAbsent(key, k -> new ArrayList<>());
+
+        // Instance parsed from file does not have to be sorted.
+        if (unsortedInstances.remove(key)) {
+
+            Collections.sort(records);
+        }
+
+        int position = Collections.binarySearch(records, record);
+
+        if (position < 0) {
+
+            position = -position - 1;
+        }
+
+        records.add(position, record);
+        recordIndex.putIfAbsent(AntipatternKey.of(record.getAntipatternName()), record);
     }
 
     /**
@@ -75,28 +204,12 @@ public class Catalogue {
      */
     public CatalogueRecord getCatalogueRecordByAntipatternName(String antipatternName) {
 
-        // Check if key is presented in map.
-        String key = antipatternName.toUpperCase().substring(0, 1);
-
-        if (catalogueRecords.containsKey(key)) {
-
-            // Check if antipattern name is presented in list of catalogue records.
-            List<CatalogueRecord> records = getCatalogueInstance(key);
-
-            for (CatalogueRecord record : records) {
+        if (!unloadedInstances.isEmpty() && !antipatternName.isEmpty()) {
 
-                if (record.getAntipatternName().equals(antipatternName)) {
-
-                    return record;
-                }
-            }
-
-            return null;
-
-        } else {
-
-            return null;
+            ensureLoaded(getInstanceKey(antipatternName));
         }
+
+        return recordIndex.get(AntipatternKey.of(antipatternName));
     }
 
     /**
@@ -106,38 +219,52 @@ public class Catalogue {
      */
     public boolean deleteCatalogueRecord(String antipatternName) {
 
-        // Check if key is presented in map.
-        String key = antipatternName.toUpperCase().substring(0, 1);
+        if (!unloadedInstances.isEmpty() && !antipatternName.isEmpty()) {
 
-        if (catalogueRecords.containsKey(key)) {
-
-            // Check if antipattern name is presented in list of catalogue records.
-            List<CatalogueRecord> records = getCatalogueInstance(key);
-
-            for (CatalogueRecord record : records) {
+            ensureLoaded(getInstanceKey(antipatternName));
+        }
 
-                if (record.getAntipatternName().equals(antipatternName)) {
+        CatalogueRecord record = recordIndex.remove(AntipatternKey.of(antipatternName));
 
-                    records.remove(record);
-                    return true;
-                }
-            }
+        if (record == null) {
 
             return false;
+        }
 
-        } else {
+        List<CatalogueRecord> records = getCatalogueInstance(getInstanceKey(record.getAntipatternName()));
 
-            return false;
+        if (records != null) {
+
+            records.remove(record);
         }
+
+        return true;
     }
 
+    /**
+     * Get all catalogue instances. Sharded catalogue loads all instances, which were not loaded yet.
+     * @return Map of catalogue instances.
+     */
     public Map<String, List<CatalogueRecord>> getCatalogueRecords() {
 
+        ensureAllLoaded();
         return this.catalogueRecords;
     }
 
+    public CatalogueLayout getLayout() {
+
+        return layout;
+    }
+
+    public void setLayout(CatalogueLayout layout) {
+
+        this.layout = layout;
+    }
+
     public List<CatalogueRecord> getCatalogueInstance(String key) {
 
+        ensureLoaded(key);
+
         if (this.catalogueRecords.containsKey(key)) {
             return this.catalogueRecords.get(key);
         }
@@ -151,9 +278,21 @@ public class Catalogue {
      */
     public void sortCatalogueInstance(String key) {
 
+        ensureLoaded(key);
+
         List<CatalogueRecord> records = catalogueRecords.get(key);
         Collections.sort(records);
 
-        catalogueRecords.put(key, records);
+        unsortedInstances.remove(key);
+    }
+
+    /**
+     * Get key of catalogue instance for antipattern name.
+     * @param antipatternName - Name of antipattern.
+     * @return Key of catalogue instance ('A', 'B', ...).
+     */
+    public static String getInstanceKey(String antipatternName) {
+
+        return antipatternName.toUpperCase().substring(0, 1);
     }
 }
@@ -0,0 +1,188 @@
+package cz.zcu.kiv.spac.data.catalogue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class representing positions of catalogue instances (sections '## A', '## B', ...) in catalogue file.
+ * Positions are byte offsets in UTF-8 encoded file, so single section can be rewritten without rewriting whole file.
+ */
+public class CatalogueLayout {
+
+    // Key of catalogue instance -> byte offset of its heading, in order of sections in file.
+    private final Map<String, Long> sectionStarts;
+    private long length;
+
+    /**
+     * Constructor.
+     * @param sectionStarts - Byte offsets of section headings in order of sections in file.
+     * @param length - Length of file in bytes.
+     */
+    public CatalogueLayout(Map<String, Long> sectionStarts, long length) {
+
+        this.sectionStarts = sectionStarts;
+        this.length = length;
+    }
+
+    /**
+     * Copy constructor.
+     * @param layout - Layout to copy.
+     */
+    public CatalogueLayout(CatalogueLayout layout) {
+
+        this(new LinkedHashMap<>(layout.sectionStarts), layout.length);
+    }
+
+    /**
+     * Create layout from file content and char offsets of section headings.
+     * @param content - File content.
+     * @param sectionCharOffsets - Char offsets of section headings in order of sections in file.
+     * @return Catalogue layout.
+     */
+    public static CatalogueLayout create(String content, Map<String, Integer> sectionCharOffsets) {
+
+        Map<String, Long> sectionStarts = new LinkedHashMap<>();
+
+        // Offsets are in ascending order, so they are converted to byte offsets in one pass.
+        long bytes = 0;
+        int position = 0;
+
+        for (Map.Entry<String, Integer> entry : sectionCharOffsets.entrySet()) {
+
+            bytes += utf8Length(content, position, entry.getValue());
+            position = entry.getValue();
+            sectionStarts.put(entry.getKey(), bytes);
+        }
+
+        bytes += utf8Length(content, position, content.length());
+
+        return new CatalogueLayout(sectionStarts, bytes);
+    }
+
+    /**
+     * Count UTF-8 length of part of string.
+     * @param content - String.
+     * @param from - Start index (inclusive).
+     * @param to - End index (exclusive).
+     * @return Length in bytes.
+     */
+    public static long utf8Length(CharSequence content, int from, int to) {
+
+        long bytes = 0;
+
+        for (int i = from; i < to; i++) {
+
+            char c = content.charAt(i);
+
+            if (c < 0x80) {
+
+                bytes++;
+
+            } else if (c < 0x800) {
+
+                bytes += 2;
+
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(content.charAt(i + 1))) {
+
+                bytes += 4;
+                i++;
+
+            } else {
+
+                bytes += 3;
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Check if section is presented in file.
+     * @param key - Key of catalogue instance.
+     * @return True if section is presented in file.
+     */
+    public boolean containsSection(String key) {
+
+        return sectionStarts.containsKey(key);
+    }
+
+    /**
+     * Get byte offset of section heading.
+     * @param key - Key of catalogue instance.
+     * @return Byte offset, -1 if section is not presented in file.
+     */
+    public long getSectionStart(String key) {
+
+        Long start = sectionStarts.get(key);
+
+        if (start == null) {
+
+            return -1;
+        }
+
+        return start;
+    }
+
+    /**
+     * Get byte offset of end of section (start of next section or end of file).
+     * @param key - Key of catalogue instance.
+     * @return Byte offset, -1 if section is not presented in file.
+     */
+    public long getSectionEnd(String key) {
+
+        String nextKey = getNextSectionKey(key);
+
+        if (nextKey == null) {
+
+            return sectionStarts.containsKey(key) ? length : -1;
+        }
+
+        return sectionStarts.get(nextKey);
+    }
+
+    /**
+     * Get key of section following section in file.
+     * @param key - Key of catalogue instance.
+     * @return Key of next section, null if section is last or it is not presented in file.
+     */
+    public String getNextSectionKey(String key) {
+
+        boolean found = false;
+
+        for (String sectionKey : sectionStarts.keySet()) {
+
+            if (found) {
+
+                return sectionKey;
+            }
+
+            found = sectionKey.equals(key);
+        }
+
+        return null;
+    }
+
+    /**
+     * Move sections after changed section by difference of its length.
+     * @param key - Key of changed section.
+     * @param delta - Difference between new and old length of section in bytes.
+     */
+    public void resizeSection(String key, long delta) {
+
+        List<String> keys = new ArrayList<>(sectionStarts.keySet());
+
+        for (int i = keys.indexOf(key) + 1; i > 0 && i < keys.size(); i++) {
+
+            sectionStarts.put(keys.get(i), sectionStarts.get(keys.get(i)) + delta);
+        }
+
+        length += delta;
+    }
+
+    public long getLength() {
+
+        return length;
+    }
+}
@@ -0,0 +1,286 @@
+package cz.zcu.kiv.spac.data.catalogue;
+
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternSnapshot;
+
+import java.util.*;
+
+/**
+ * Immutable version of catalogue and antipatterns.
+ * Catalogue instances and antipatterns grouped by catalogue instance are shared with previous version if they were not changed,
+ * so new version does not copy whole catalogue. Records in snapshot are copies and must not be modified.
+ */
+public final class CatalogueSnapshot {
+
+    public static final CatalogueSnapshot EMPTY = new CatalogueSnapshot(0, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+
+    // Key of catalogue instance -> records.
+    private final Map<String, List<CatalogueRecord>> sections;
+
+    // Key of catalogue instance -> antipatterns, which names start with instance key.
+    private final Map<String, Map<AntipatternKey, AntipatternSnapshot>> antipatterns;
+
+    /**
+     * Constructor.
+     * @param version - Version of snapshot.
+     * @param sections - Catalogue instances.
+     * @param antipatterns - Antipatterns grouped by catalogue instance.
+     */
+    private CatalogueSnapshot(long version, Map<String, List<CatalogueRecord>> sections, Map<String, Map<AntipatternKey, AntipatternSnapshot>> antipatterns) {
+
+        this.version = version;
+        this.sections = sections;
+        this.antipatterns = antipatterns;
+    }
+
+    /**
+     * Create next version of snapshot from current catalogue and antipatterns.
+     * Unchanged parts are shared with this snapshot. Shards of catalogue, which were not loaded yet, are not loaded.
+     * @param catalogue - Catalogue.
+     * @param antipatternMap - Map of antipatterns.
+     * @return New version of snapshot.
+     */
+    public CatalogueSnapshot next(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatternMap) {
+
+        Map<String, List<CatalogueRecord>> newSections = new LinkedHashMap<>();
+
+        for (String key : catalogue.getInstanceKeys()) {
+
+            List<CatalogueRecord> previous = sections.get(key);
+
+            // Shard, which was not loaded yet, cannot be changed, so it is not loaded only because of snapshot.
+            if (!catalogue.isInstanceLoaded(key)) {
+
+                if (previous != null) {
+
+                    newSections.put(key, previous);
+                }
+
+                continue;
+            }
+
+            List<CatalogueRecord> records = catalogue.getCatalogueInstance(key);
+
+            if (previous != null && isSectionEqual(previous, records)) {
+
+                newSections.put(key, previous);
+
+            } else {
+
+                newSections.put(key, copySection(records));
+            }
+        }
+
+        // Group antipatterns by catalogue instance, so unchanged groups can be shared.
+        Map<String, List<Antipattern>> groups = new LinkedHashMap<>();
+
+        for (Antipattern antipattern : antipatternMap.values()) {
+
+            groups.computeIfAbsent(getGroupKey(antipattern.getKey()), k -> new ArrayList<>()).add(antipattern);
+        }
+
+        Map<String, Map<AntipatternKey, AntipatternSnapshot>> newAntipatterns = new LinkedHashMap<>();
+
+        for (Map.Entry<String, List<Antipattern>> group : groups.entrySet()) {
+
+            Map<AntipatternKey, AntipatternSnapshot> previousGroup = antipatterns.getOrDefault(group.getKey(), Collections.emptyMap());
+            Map<AntipatternKey, AntipatternSnapshot> newGroup = new LinkedHashMap<>();
+            boolean changed = previousGroup.size() != group.getValue().size();
+
+            for (Antipattern antipattern : group.getValue()) {
+
+                AntipatternSnapshot previous = previousGroup.get(antipattern.getKey());
+                AntipatternSnapshot snapshot = AntipatternSnapshot.of(antipattern, previous);
+
+                changed |= snapshot != previous;
+                newGroup.put(antipattern.getKey(), snapshot);
+            }
+
+            newAntipatterns.put(group.getKey(), changed ? Collections.unmodifiableMap(newGroup) : previousGroup);
+        }
+
+        return new CatalogueSnapshot(version + 1, Collections.unmodifiableMap(newSections), Collections.unmodifiableMap(newAntipatterns));
+    }
+
+    /**
+     * Create next version of snapshot, in which only changed antipatterns and their catalogue instances are updated.
+     * Antipatterns and catalogue instances, which are not affected by changed keys, are shared with this snapshot without comparing.
+     * @param catalogue - Catalogue.
+     * @param antipatternMap - Map of antipatterns.
+     * @param changedKeys - Keys of changed, added or removed antipatterns (renamed antipattern has both old and new key).
+     * @return New version of snapshot.
+     */
+    public CatalogueSnapshot next(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatternMap, Collection<AntipatternKey> changedKeys) {
+
+        // Changed keys grouped by catalogue instance.
+        Map<String, Set<AntipatternKey>> changedGroups = new LinkedHashMap<>();
+
+        for (AntipatternKey key : changedKeys) {
+
+            changedGroups.computeIfAbsent(getGroupKey(key), k -> new LinkedHashSet<>()).add(key);
+        }
+
+        Map<String, List<CatalogueRecord>> newSections = new LinkedHashMap<>();
+
+        for (String key : catalogue.getInstanceKeys()) {
+
+            List<CatalogueRecord> previous = sections.get(key);
+
+            // Shard, which was not loaded yet, cannot be changed, so it is not loaded only because of snapshot.
+            if (!catalogue.isInstanceLoaded(key)) {
+
+                if (previous != null) {
+
+                    newSections.put(key, previous);
+                }
+
+                continue;
+            }
+
+            List<CatalogueRecord> records = catalogue.getCatalogueInstance(key);
+
+            if (previous != null && (!changedGroups.containsKey(key) || isSectionEqual(previous, records))) {
+
+                newSections.put(key, previous);
+
+            } else {
+
+                newSections.put(key, copySection(records));
+            }
+        }
+
+        Map<String, Map<AntipatternKey, AntipatternSnapshot>> newAntipatterns = new LinkedHashMap<>(antipatterns);
+
+        for (Map.Entry<String, Set<AntipatternKey>> changedGroup : changedGroups.entrySet()) {
+
+            Map<AntipatternKey, AntipatternSnapshot> previousGroup = antipatterns.getOrDefault(changedGroup.getKey(), Collections.emptyMap());
+            Map<AntipatternKey, AntipatternSnapshot> newGroup = new LinkedHashMap<>(previousGroup);
+            boolean changed = false;
+
+            for (AntipatternKey key : changedGroup.getValue()) {
+
+                Antipattern antipattern = antipatternMap.get(key);
+                AntipatternSnapshot previous = previousGroup.get(key);
+
+                if (antipattern == null) {
+
+                    changed |= newGroup.remove(key) != null;
+
+                } else {
+
+                    AntipatternSnapshot snapshot = AntipatternSnapshot.of(antipattern, previous);
+
+                    changed |= snapshot != previous;
+                    newGroup.put(key, snapshot);
+                }
+            }
+
+            if (newGroup.isEmpty()) {
+
+                newAntipatterns.remove(changedGroup.getKey());
+
+            } else if (changed) {
+
+                newAntipatterns.put(changedGroup.getKey(), Collections.unmodifiableMap(newGroup));
+            }
+        }
+
+        return new CatalogueSnapshot(version + 1, Collections.unmodifiableMap(newSections), Collections.unmodifiableMap(newAntipatterns));
+    }
+
+    private static boolean isSectionEqual(List<CatalogueRecord> snapshotRecords, List<CatalogueRecord> records) {
+
+        if (snapshotRecords.size() != records.size()) {
+
+            return false;
+        }
+
+        for (int i = 0; i < records.size(); i++) {
+
+            CatalogueRecord snapshotRecord = snapshotRecords.get(i);
+            CatalogueRecord record = records.get(i);
+
+            if (!snapshotRecord.getAntipatternName().equals(record.getAntipatternName()) || !snapshotRecord.getPath().equals(record.getPath())) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static List<CatalogueRecord> copySection(List<CatalogueRecord> records) {
+
+        List<CatalogueRecord> copy = new ArrayList<>(records.size());
+
+        for (CatalogueRecord record : records) {
+
+            copy.add(new CatalogueRecord(record.getAntipatternName(), record.getPath()));
+        }
+
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static String getGroupKey(AntipatternKey key) {
+
+        if (key.getName().isEmpty()) {
+
+            return "";
+        }
+
+        return Catalogue.getInstanceKey(key.getName());
+    }
+
+    public long getVersion() {
+
+        return version;
+    }
+
+    /**
+     * Get keys of catalogue instances.
+     * @return Keys of catalogue instances ('A', 'B', ...).
+     */
+    public Set<String> getSectionKeys() {
+
+        return sections.keySet();
+    }
+
+    /**
+     * Get records of catalogue instance.
+     * @param key - Key of catalogue instance.
+     * @return Records, empty list if instance does not exist.
+     */
+    public List<CatalogueRecord> getSection(String key) {
+
+        return sections.getOrDefault(key, Collections.emptyList());
+    }
+
+    /**
+     * Get antipattern by key.
+     * @param key - Antipattern key.
+     * @return Antipattern snapshot, null if antipattern does not exist.
+     */
+    public AntipatternSnapshot getAntipattern(AntipatternKey key) {
+
+        return antipatterns.getOrDefault(getGroupKey(key), Collections.emptyMap()).get(key);
+    }
+
+    /**
+     * Get all antipatterns in order of catalogue.
+     * @return List of antipattern snapshots.
+     */
+    public List<AntipatternSnapshot> getAntipatterns() {
+
+        List<AntipatternSnapshot> list = new ArrayList<>();
+
+        for (Map<AntipatternKey, AntipatternSnapshot> group : antipatterns.values()) {
+
+            list.addAll(group.values());
+        }
+
+        return list;
+    }
+}
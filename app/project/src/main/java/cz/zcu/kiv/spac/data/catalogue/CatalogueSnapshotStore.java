@@ -0,0 +1,57 @@
+package cz.zcu.kiv.spac.data.catalogue;
+
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holder of latest catalogue snapshot.
+ * Controllers publish new snapshot after every change, background jobs read latest snapshot without locking.
+ */
+public class CatalogueSnapshotStore {
+
+    private final AtomicReference<CatalogueSnapshot> snapshot = new AtomicReference<>(CatalogueSnapshot.EMPTY);
+
+    /**
+     * Create and publish new snapshot from current catalogue and antipatterns.
+     * Must be called from thread, which changes catalogue and antipatterns (JavaFX thread).
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @return Published snapshot.
+     */
+    public CatalogueSnapshot publish(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) {
+
+        CatalogueSnapshot next = snapshot.get().next(catalogue, antipatterns);
+        snapshot.set(next);
+
+        return next;
+    }
+
+    /**
+     * Create and publish new snapshot, in which only changed antipatterns are updated.
+     * Must be called from thread, which changes catalogue and antipatterns (JavaFX thread).
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @param changedKeys - Keys of changed, added or removed antipatterns.
+     * @return Published snapshot.
+     */
+    public CatalogueSnapshot publish(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, Collection<AntipatternKey> changedKeys) {
+
+        CatalogueSnapshot next = snapshot.get().next(catalogue, antipatterns, changedKeys);
+        snapshot.set(next);
+
+        return next;
+    }
+
+    /**
+     * Get latest published snapshot.
+     * @return Catalogue snapshot.
+     */
+    public CatalogueSnapshot getSnapshot() {
+
+        return snapshot.get();
+    }
+}
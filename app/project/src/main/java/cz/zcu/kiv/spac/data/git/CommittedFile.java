@@ -0,0 +1,76 @@
+package cz.zcu.kiv.spac.data.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectStream;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class representing file from latest commit. Only object id of file is stored, content is loaded when it is requested.
+ */
+public class CommittedFile {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Repository repository;
+    private final String path;
+    private final ObjectId objectId;
+
+    /**
+     * Constructor.
+     * @param repository - Repository.
+     * @param path - Path of file in repository.
+     * @param objectId - Object id of file blob.
+     */
+    public CommittedFile(Repository repository, String path, ObjectId objectId) {
+
+        this.repository = repository;
+        this.path = path;
+        this.objectId = objectId;
+    }
+
+    /**
+     * Load content of file as UTF-8 text. Large blobs are streamed, so they are not loaded into memory as whole byte array.
+     * @return Content of file.
+     * @throws IOException - Blob cannot be read.
+     */
+    public String loadContent() throws IOException {
+
+        ObjectLoader loader = repository.open(objectId, org.eclipse.jgit.lib.Constants.OBJ_BLOB);
+
+        if (!loader.isLarge()) {
+
+            return new String(loader.getCachedBytes(), StandardCharsets.UTF_8);
+        }
+
+        StringBuilder content = new StringBuilder((int) Math.min(loader.getSize(), Integer.MAX_VALUE - 8));
+        char[] buffer = new char[BUFFER_SIZE];
+
+        try (ObjectStream stream = loader.openStream(); Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+
+            int read;
+
+            while ((read = reader.read(buffer)) != -1) {
+
+                content.append(buffer, 0, read);
+            }
+        }
+
+        return content.toString();
+    }
+
+    public String getPath() {
+
+        return path;
+    }
+
+    public ObjectId getObjectId() {
+
+        return objectId;
+    }
+}
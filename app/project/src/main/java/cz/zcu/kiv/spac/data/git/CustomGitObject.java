@@ -7,18 +7,17 @@ import cz.zcu.kiv.spac.utils.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.URIish;
-import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +35,8 @@ public class CustomGitObject {
     private String repositoryName;
     private String personalAccessToken;
 
+    private WorkingTreeStatusService workingTreeStatusService;
+
     // Logger.
     private static Logger log = LogManager.getLogger(GitWindowController.class);
 
@@ -86,63 +87,63 @@ public class CustomGitObject {
 
     /**
      * Load files from previous commit.
-     * @return Map of files with its content from latest commit.
+     * Tree walk is limited to given paths, so only folders on these paths are read. Content of files is not loaded.
+     * @param paths - Paths of files in repository.
+     * @return Map of paths with files from latest commit, files, which are not in latest commit, are not included.
      */
-    public Map<String, String> loadFilesFromPreviousCommit() {
-
-        Map<String, String> filesFromPreviousCommit = new HashMap<>();
-
-        Repository repository = git.getRepository();
-        RevWalk rw = new RevWalk(repository);
+    public Map<String, CommittedFile> loadFilesFromPreviousCommit(Collection<String> paths) {
 
-        try (TreeWalk tw = new TreeWalk(repository)) {
+        Map<String, CommittedFile> filesFromPreviousCommit = new HashMap<>();
 
-            RevCommit latestCommit = git.log().setMaxCount(1).call().iterator().next();
-            String latestCommitHash = latestCommit.getName();
+        if (paths.isEmpty()) {
 
-            RevCommit commitToCheck = rw.parseCommit(repository.resolve(latestCommitHash));
-            tw.addTree(commitToCheck.getTree());
-            tw.addTree(new DirCacheIterator(repository.readDirCache()));
-            tw.addTree(new FileTreeIterator(repository));
-            tw.setRecursive(true);
+            return filesFromPreviousCommit;
+        }
 
-            while (tw.next()) {
+        Repository repository = git.getRepository();
 
-                String filename = tw.getPathString();
+        try (TreeWalk tw = new TreeWalk(repository)) {
 
-                // Get object ID of file from latest commit.
-                ObjectId objectId;
+            ObjectId latestCommitTree = repository.resolve("HEAD^{tree}");
 
-                if (tw.getFileMode(0).getBits() != 0) {
+            if (latestCommitTree == null) {
 
-                    // Get object ID of existing file.
-                    objectId = tw.getObjectId(0);
+                log.info("No commits found in current branch.");
+                return filesFromPreviousCommit;
+            }
 
-                } else {
+            tw.addTree(latestCommitTree);
+            tw.setFilter(PathFilterGroup.createFromStrings(paths));
+            tw.setRecursive(true);
 
-                    objectId = tw.getObjectId(1);
-                }
+            while (tw.next()) {
 
-                try {
+                String path = tw.getPathString();
+                filesFromPreviousCommit.put(path, new CommittedFile(repository, path, tw.getObjectId(0)));
+            }
 
-                    // Get content of file from latest commit.
-                    byte[] bytes = repository.open(objectId).getBytes();
-                    String content = new String(bytes);
+        } catch (Exception e) {
 
-                    filesFromPreviousCommit.put(Utils.getFilenameFromStringPath(filename), content);
+            log.warn("Error while loading files from previous commit: " + e.getMessage());
+        }
 
-                } catch (Exception e) {
+        return filesFromPreviousCommit;
+    }
 
-                    log.info("File '" + filename + "' is not in previous commit.");
-                }
-            }
+    /**
+     * Get status of catalogue files in working tree. Status is cached and working tree is watched since first call,
+     * so next calls scan only changed files.
+     * @return Status of catalogue files.
+     * @throws IOException - Index or working tree cannot be read.
+     */
+    public synchronized WorkingTreeStatus getWorkingTreeStatus() throws IOException {
 
-        } catch (Exception e) {
+        if (workingTreeStatusService == null) {
 
-            log.info("No commits found in current branch.");
+            workingTreeStatusService = new WorkingTreeStatusService(git.getRepository());
         }
 
-        return filesFromPreviousCommit;
+        return workingTreeStatusService.getStatus();
     }
 
     /**
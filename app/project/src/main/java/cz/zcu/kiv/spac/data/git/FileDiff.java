@@ -0,0 +1,255 @@
+package cz.zcu.kiv.spac.data.git;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.HistogramDiff;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing difference of two versions of file, indexed by hunks.
+ * Only changed lines with few lines of context are part of diff, every run of unchanged lines between hunks
+ * is collapsed into hunk header. Diff keeps only both contents and index of segments (hunk header, context,
+ * deleted lines, added lines), preview lines are created only when they are requested, so size of diff
+ * does not depend on number of shown lines.
+ */
+public class FileDiff {
+
+    // Number of unchanged lines shown around changed lines.
+    public static final int CONTEXT_LINES = 3;
+
+    private final RawText oldText;
+    private final RawText newText;
+
+    // Segments of rows sorted by first row.
+    private final List<Segment> segments;
+    private final int rowCount;
+
+    /**
+     * Constructor.
+     * @param oldText - Old content.
+     * @param newText - New content.
+     * @param edits - Differences between contents.
+     */
+    private FileDiff(RawText oldText, RawText newText, EditList edits) {
+
+        this.oldText = oldText;
+        this.newText = newText;
+        this.segments = new ArrayList<>();
+
+        int row = 0;
+        int firstEdit = 0;
+
+        while (firstEdit < edits.size()) {
+
+            // Merge edits, which context overlaps, into one hunk.
+            int lastEdit = firstEdit;
+
+            while (lastEdit + 1 < edits.size() && edits.get(lastEdit + 1).getBeginA() - edits.get(lastEdit).getEndA() <= 2 * CONTEXT_LINES) {
+
+                lastEdit++;
+            }
+
+            Edit first = edits.get(firstEdit);
+            Edit last = edits.get(lastEdit);
+
+            int oldStart = Math.max(0, first.getBeginA() - CONTEXT_LINES);
+            int newStart = Math.max(0, first.getBeginB() - CONTEXT_LINES);
+            int oldEnd = Math.min(oldText.size(), last.getEndA() + CONTEXT_LINES);
+            int newEnd = Math.min(newText.size(), last.getEndB() + CONTEXT_LINES);
+
+            row = addSegment(row, PreviewFileContentLineType.DIFF_INFO, oldStart, newStart, oldEnd - oldStart, newEnd - newStart);
+            row = addSegment(row, PreviewFileContentLineType.NOT_MODIFIED, oldStart, newStart, first.getBeginA() - oldStart, 0);
+
+            for (int i = firstEdit; i <= lastEdit; i++) {
+
+                Edit edit = edits.get(i);
+
+                row = addSegment(row, PreviewFileContentLineType.DELETED, edit.getBeginA(), edit.getBeginB(), edit.getLengthA(), 0);
+                row = addSegment(row, PreviewFileContentLineType.ADDED, edit.getEndA(), edit.getBeginB(), 0, edit.getLengthB());
+
+                int contextEnd = i < lastEdit ? edits.get(i + 1).getBeginA() : oldEnd;
+                row = addSegment(row, PreviewFileContentLineType.NOT_MODIFIED, edit.getEndA(), edit.getEndB(), contextEnd - edit.getEndA(), 0);
+            }
+
+            firstEdit = lastEdit + 1;
+        }
+
+        this.rowCount = row;
+    }
+
+    /**
+     * Compute difference of two contents, whitespaces are ignored.
+     * Added file is compared with empty old content, deleted file with empty new content.
+     * @param oldContent - Old content.
+     * @param newContent - New content.
+     * @return Difference of contents.
+     */
+    public static FileDiff compute(String oldContent, String newContent) {
+
+        RawText oldText = new RawText(oldContent.getBytes(StandardCharsets.UTF_8));
+        RawText newText = new RawText(newContent.getBytes(StandardCharsets.UTF_8));
+
+        return new FileDiff(oldText, newText, new HistogramDiff().diff(RawTextComparator.WS_IGNORE_ALL, oldText, newText));
+    }
+
+    /**
+     * Get number of rows of diff (hunk headers and lines of hunks).
+     * @return Number of rows.
+     */
+    public int getRowCount() {
+
+        return rowCount;
+    }
+
+    /**
+     * Create preview line of row.
+     * Content of lines is without diff symbol, number of line is 1-based number in old content for deleted line,
+     * in new content otherwise. Hunk header has format of unified diff (@@ -61,11 +66,33 @@).
+     * @param row - Index of row.
+     * @return Preview line.
+     */
+    public PreviewFileContentLine getRow(int row) {
+
+        if (row < 0 || row >= rowCount) {
+
+            throw new IndexOutOfBoundsException("Row " + row + " of diff with " + rowCount + " rows.");
+        }
+
+        Segment segment = segments.get(findSegment(row));
+        int offset = row - segment.row;
+
+        switch (segment.type) {
+
+            case DIFF_INFO:
+
+                return new PreviewFileContentLine(createHunkHeader(segment), segment.type, 0);
+
+            case DELETED:
+
+                return new PreviewFileContentLine(getLine(oldText, segment.oldStart + offset), segment.type, segment.oldStart + offset + 1);
+
+            default:
+
+                return new PreviewFileContentLine(getLine(newText, segment.newStart + offset), segment.type, segment.newStart + offset + 1);
+        }
+    }
+
+    /**
+     * Add segment of rows, empty segments are skipped.
+     * Segment of lines has only old lines (deleted and unchanged lines) or only new lines (added lines).
+     * @param row - First row of segment.
+     * @param type - Type of rows.
+     * @param oldStart - Index of first line in old content.
+     * @param newStart - Index of first line in new content.
+     * @param oldLength - Number of old lines.
+     * @param newLength - Number of new lines.
+     * @return First row after segment.
+     */
+    private int addSegment(int row, PreviewFileContentLineType type, int oldStart, int newStart, int oldLength, int newLength) {
+
+        int length = type == PreviewFileContentLineType.DIFF_INFO ? 1 : oldLength + newLength;
+
+        if (length > 0) {
+
+            segments.add(new Segment(row, type, oldStart, newStart, oldLength, newLength));
+        }
+
+        return row + length;
+    }
+
+    /**
+     * Find index of segment, which contains row.
+     * @param row - Index of row.
+     * @return Index of segment.
+     */
+    private int findSegment(int row) {
+
+        int low = 0;
+        int high = segments.size() - 1;
+
+        while (low < high) {
+
+            int middle = (low + high + 1) >>> 1;
+
+            if (segments.get(middle).row <= row) {
+
+                low = middle;
+
+            } else {
+
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Create header of hunk in format of unified diff.
+     * @param segment - Segment of hunk header.
+     * @return Hunk header.
+     */
+    private static String createHunkHeader(Segment segment) {
+
+        return "@@ -" + createRange(segment.oldStart, segment.oldLength) + " +" + createRange(segment.newStart, segment.newLength) + " @@";
+    }
+
+    private static String createRange(int start, int length) {
+
+        switch (length) {
+
+            case 0:
+
+                return start + ",0";
+
+            case 1:
+
+                return "" + (start + 1);
+
+            default:
+
+                return (start + 1) + "," + length;
+        }
+    }
+
+    /**
+     * Get line of content without line ending.
+     * @param text - Content.
+     * @param index - Index of line.
+     * @return Line.
+     */
+    private static String getLine(RawText text, int index) {
+
+        String line = text.getString(index);
+
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    /**
+     * Consecutive rows of same type.
+     */
+    private static class Segment {
+
+        private final int row;
+        private final PreviewFileContentLineType type;
+        private final int oldStart;
+        private final int newStart;
+        private final int oldLength;
+        private final int newLength;
+
+        private Segment(int row, PreviewFileContentLineType type, int oldStart, int newStart, int oldLength, int newLength) {
+
+            this.row = row;
+            this.type = type;
+            this.oldStart = oldStart;
+            this.newStart = newStart;
+            this.oldLength = oldLength;
+            this.newLength = newLength;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package cz.zcu.kiv.spac.data.git;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class representing status of catalogue files in working tree against latest commit.
+ */
+public class WorkingTreeStatus {
+
+    private final Set<String> added;
+    private final Set<String> modified;
+    private final Set<String> removed;
+    private final Set<String> untracked;
+
+    /**
+     * Constructor, sets are copied.
+     * @param added - Paths of files added to index.
+     * @param modified - Paths of files modified in working tree.
+     * @param removed - Paths of files removed from index.
+     * @param untracked - Paths of files, which are not in index.
+     */
+    public WorkingTreeStatus(Set<String> added, Set<String> modified, Set<String> removed, Set<String> untracked) {
+
+        this.added = Collections.unmodifiableSet(new HashSet<>(added));
+        this.modified = Collections.unmodifiableSet(new HashSet<>(modified));
+        this.removed = Collections.unmodifiableSet(new HashSet<>(removed));
+        this.untracked = Collections.unmodifiableSet(new HashSet<>(untracked));
+    }
+
+    public Set<String> getAdded() {
+
+        return added;
+    }
+
+    public Set<String> getModified() {
+
+        return modified;
+    }
+
+    public Set<String> getRemoved() {
+
+        return removed;
+    }
+
+    public Set<String> getUntracked() {
+
+        return untracked;
+    }
+}
@@ -0,0 +1,379 @@
+package cz.zcu.kiv.spac.data.git;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.utils.Metrics;
+import cz.zcu.kiv.spac.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Status of catalogue files in working tree, which is cached between refreshes.
+ * Only catalogue folder, markdown files in root of repository and configuration and references of application are scanned.
+ * Files are compared with index by stat information stored in DirCache, content is hashed only if stat information differs.
+ * While working tree is watched, refresh scans only paths reported as changed since previous refresh,
+ * whole scope is scanned again after commit, change of index or if changes could be lost.
+ */
+public class WorkingTreeStatusService {
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(WorkingTreeStatusService.class);
+
+    private final Repository repository;
+    private final Path workTree;
+    private final TreeFilter scopeFilter;
+
+    // Cached status.
+    private final Set<String> added = new HashSet<>();
+    private final Set<String> modified = new HashSet<>();
+    private final Set<String> removed = new HashSet<>();
+    private final Set<String> untracked = new HashSet<>();
+    private boolean scanned = false;
+
+    // State of repository, when status was scanned.
+    private ObjectId headId;
+    private long indexLastModified;
+    private long indexLength;
+
+    // Paths reported as changed since previous refresh.
+    private final Set<String> changedPaths = new HashSet<>();
+    private boolean changesLost = false;
+
+    private WatchService watchService;
+    private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor, watching of working tree is started.
+     * @param repository - Repository.
+     */
+    public WorkingTreeStatusService(Repository repository) {
+
+        this.repository = repository;
+        this.workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+        this.scopeFilter = new CatalogueScopeFilter(toRepositoryPath(Paths.get(Utils.getRootDir()).toAbsolutePath().normalize()));
+
+        startWatching();
+    }
+
+    /**
+     * Get status of catalogue files in working tree.
+     * @return Status of catalogue files.
+     * @throws IOException - Index or working tree cannot be read.
+     */
+    public synchronized WorkingTreeStatus getStatus() throws IOException {
+
+        ObjectId currentHeadId = repository.resolve(org.eclipse.jgit.lib.Constants.HEAD);
+        File indexFile = repository.getIndexFile();
+        long currentIndexLastModified = indexFile.lastModified();
+        long currentIndexLength = indexFile.length();
+
+        Set<String> paths;
+        boolean scanAll;
+
+        synchronized (changedPaths) {
+
+            paths = new HashSet<>(changedPaths);
+            scanAll = !scanned || changesLost || watchService == null || !Objects.equals(currentHeadId, headId)
+                    || currentIndexLastModified != indexLastModified || currentIndexLength != indexLength;
+
+            changedPaths.clear();
+            changesLost = false;
+        }
+
+        if (scanAll) {
+
+            added.clear();
+            modified.clear();
+            removed.clear();
+            untracked.clear();
+
+            scan(scopeFilter);
+            Metrics.increment(Metrics.GIT_STATUS_FULL_SCANS);
+
+        } else if (!paths.isEmpty()) {
+
+            for (Set<String> status : Arrays.asList(added, modified, removed, untracked)) {
+
+                status.removeIf(path -> isAffected(path, paths));
+            }
+
+            scan(AndTreeFilter.create(scopeFilter, PathFilterGroup.createFromStrings(paths)));
+            Metrics.increment(Metrics.GIT_STATUS_PARTIAL_SCANS);
+        }
+
+        scanned = true;
+        headId = currentHeadId;
+        indexLastModified = currentIndexLastModified;
+        indexLength = currentIndexLength;
+
+        return new WorkingTreeStatus(added, modified, removed, untracked);
+    }
+
+    /**
+     * Compare files of working tree, index and latest commit and add differences to cached status.
+     * @param filter - Filter of scanned paths.
+     * @throws IOException - Index or working tree cannot be read.
+     */
+    private void scan(TreeFilter filter) throws IOException {
+
+        IndexDiff indexDiff = new IndexDiff(repository, org.eclipse.jgit.lib.Constants.HEAD, new FileTreeIterator(repository));
+        indexDiff.setFilter(filter);
+        indexDiff.diff();
+
+        added.addAll(indexDiff.getAdded());
+        modified.addAll(indexDiff.getModified());
+        removed.addAll(indexDiff.getRemoved());
+        untracked.addAll(indexDiff.getUntracked());
+    }
+
+    /**
+     * Check if path is one of changed paths or it is in changed folder.
+     * @param path - Path of file.
+     * @param changedPaths - Changed paths.
+     * @return True if status of path must be scanned again.
+     */
+    private static boolean isAffected(String path, Set<String> changedPaths) {
+
+        for (String changedPath : changedPaths) {
+
+            if (path.equals(changedPath) || path.startsWith(changedPath + "/")) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Start watching of root of working tree, application folder and catalogue folder with its subfolders.
+     * If working tree cannot be watched, whole scope is scanned on every refresh.
+     */
+    private void startWatching() {
+
+        try {
+
+            watchService = FileSystems.getDefault().newWatchService();
+
+            register(workTree);
+            register(Paths.get(Utils.getRootDir()).toAbsolutePath().normalize());
+            registerAll(workTree.resolve(Constants.CATALOGUE_FOLDER));
+
+        } catch (IOException | UnsupportedOperationException e) {
+
+            log.info("Working tree cannot be watched, status will be scanned on every refresh: " + e.getMessage());
+            stopWatching();
+            return;
+        }
+
+        Thread thread = new Thread(this::processEvents, "git-status-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void stopWatching() {
+
+        if (watchService != null) {
+
+            try {
+
+                watchService.close();
+
+            } catch (IOException e) {
+
+                // Do nothing.
+            }
+        }
+
+        watchService = null;
+        watchedFolders.clear();
+    }
+
+    /**
+     * Collect paths of changed files, until watch service is closed.
+     */
+    private void processEvents() {
+
+        try {
+
+            while (true) {
+
+                WatchKey key = watchService.take();
+                Path folder = watchedFolders.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || folder == null) {
+
+                        synchronized (changedPaths) {
+
+                            changesLost = true;
+                        }
+                        continue;
+                    }
+
+                    Path changed = folder.resolve((Path) event.context());
+
+                    // New folders in catalogue are watched too.
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)
+                            && changed.startsWith(workTree.resolve(Constants.CATALOGUE_FOLDER))) {
+
+                        registerAll(changed);
+                    }
+
+                    synchronized (changedPaths) {
+
+                        changedPaths.add(toRepositoryPath(changed));
+                    }
+                }
+
+                if (!key.reset()) {
+
+                    watchedFolders.remove(key);
+                }
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+
+            // Watching was stopped.
+
+        } catch (Exception e) {
+
+            log.warn("Watching of working tree failed, status will be scanned on every refresh: " + e.getMessage());
+
+            synchronized (changedPaths) {
+
+                stopWatching();
+            }
+        }
+    }
+
+    private void registerAll(Path folder) {
+
+        if (!Files.isDirectory(folder)) {
+
+            return;
+        }
+
+        try (Stream<Path> folders = Files.walk(folder)) {
+
+            Iterator<Path> iterator = folders.filter(Files::isDirectory).iterator();
+
+            while (iterator.hasNext()) {
+
+                register(iterator.next());
+            }
+
+        } catch (IOException e) {
+
+            log.warn("Folder '" + folder + "' cannot be watched: " + e.getMessage());
+
+            synchronized (changedPaths) {
+
+                changesLost = true;
+            }
+        }
+    }
+
+    private void register(Path folder) throws IOException {
+
+        WatchKey key = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        watchedFolders.put(key, folder);
+    }
+
+    /**
+     * Get path relative to root of working tree with '/' separators (format of paths in git).
+     * @param path - Absolute path.
+     * @return Path in repository.
+     */
+    private String toRepositoryPath(Path path) {
+
+        return workTree.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Filter of catalogue files - catalogue folder, markdown files in root of repository and configuration
+     * and references in application folder.
+     */
+    private static class CatalogueScopeFilter extends TreeFilter {
+
+        private final String appFolderPrefix;
+        private final List<String> appFiles;
+
+        /**
+         * Constructor.
+         * @param appFolder - Path of application folder in repository (empty if application is in root of repository).
+         */
+        private CatalogueScopeFilter(String appFolder) {
+
+            this.appFolderPrefix = appFolder.isEmpty() ? "" : appFolder + "/";
+            this.appFiles = Arrays.asList(appFolderPrefix + Constants.CONFIGURATION_NAME, appFolderPrefix + Constants.BIBTEX_REFERENCES_NAME);
+        }
+
+        @Override
+        public boolean include(TreeWalk walker) {
+
+            String path = walker.getPathString();
+
+            if (path.equals(Constants.CATALOGUE_FOLDER) || path.startsWith(Constants.CATALOGUE_FOLDER + "/")) {
+
+                return true;
+            }
+
+            if (walker.isSubtree()) {
+
+                // Only folders on path to application folder are entered.
+                return appFolderPrefix.startsWith(path + "/");
+            }
+
+            if (path.indexOf('/') < 0 && path.endsWith(Constants.FILES_EXTENSION)) {
+
+                return true;
+            }
+
+            return appFiles.contains(path);
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+
+            return this;
+        }
+    }
+}
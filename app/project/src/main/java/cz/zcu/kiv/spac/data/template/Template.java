@@ -1,11 +1,9 @@
 package cz.zcu.kiv.spac.data.template;
 
-import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
-import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
-import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
-import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
-import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
+import cz.zcu.kiv.spac.markdown.AntipatternRenderPlan;
+import cz.zcu.kiv.spac.validation.TemplateValidator;
+import cz.zcu.kiv.spac.validation.TemplateViolation;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +15,12 @@ public class Template {
 
     private List<TemplateField> fieldList;
 
+    // Compiled template, created on first validation.
+    private volatile TemplateValidator validator;
+
+    // Compiled template, created on first generating of antipattern content.
+    private volatile AntipatternRenderPlan renderPlan;
+
     /**
      * Constructor.
      * @param fieldList - List of template fields.
@@ -64,212 +68,61 @@ public class Template {
     }
 
     /**
-     * Get field by field name.
-     * @param fieldName - Field name.
-     * @return Field.
+     * Get compiled template for validation of antipatterns. Template is compiled on first use.
+     * @return Template validator.
      */
-    public TemplateField getField(String fieldName) {
-
-        for (TemplateField field : fieldList) {
-
-            if (field.getName().equals(fieldName) || field.getText().equals(fieldName)) {
-
-                return field;
-
-            }
+    public TemplateValidator getValidator() {
 
-            if (!field.isRequired()) {
+        TemplateValidator templateValidator = validator;
 
-                String name = field.getName() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING;
-                String text = field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING;
+        if (templateValidator == null) {
 
-                if (name.equals(fieldName) || text.equals(fieldName))
-
-                    return field;
-                }
+            templateValidator = TemplateValidator.compile(this);
+            validator = templateValidator;
         }
-        return null;
+
+        return templateValidator;
     }
 
     /**
-     * Compare antipatterns headings to template fields and return list of differences.
-     * @param antipattern - Compared antipattern.
-     * @return List of differences.
+     * Get compiled template for generating of antipattern markdown content. Template is compiled on first use.
+     * @return Render plan.
      */
-    public List<String> getHeadingDifferences(Antipattern antipattern) {
-
-        List<String> headingDifferences = new ArrayList<>();
-
-        // Get antipattern headings texts.
-        List<String> antipatternHeadingsTexts = antipattern.getAntipatternHeadingsTexts();
-
-        // Check if there are any headings in antipattern.
-        boolean headingsPresented = false;
-
-        if (antipatternHeadingsTexts != null && antipatternHeadingsTexts.size() > 0) {
-
-            headingsPresented = true;
-        }
-
-        // Iterate through every template field.
-        for (int i = 0; i < fieldList.size(); i++) {
-
-            TemplateField templateField = fieldList.get(i);
-            String text = "Missing heading '" + templateField.getText() + "' !";
-
-            // Check only if template field is required.
-            if (templateField.isRequired()) {
-
-                // If antipattern contains any headings.
-                if (headingsPresented) {
-
-                    // If list of antipattern heading texts dont containt template field, then add difference.
-                    if (!antipatternHeadingsTexts.contains(templateField.getText())) {
-
-                        headingDifferences.add(text);
-
-                    } else {
-
-                        AntipatternHeading heading = antipattern.getAntipatternHeading(templateField.getName());
-
-                        TemplateFieldType templateFieldType = templateField.getType();
-
-                        if (!templateFieldType.toString().equals(heading.getType().toString())) {
-
-                            if (templateFieldType == TemplateFieldType.TABLE) {
-
-                                headingDifferences.add("Heading '" + templateField.getText() + "' does not contains any record in table !");
-                                antipatternHeadingsTexts.remove(templateField.getText());
-                                continue;
-                            }
-                        }
-
-                        switch (heading.getType()) {
-
-                            case TABLE:
-
-                                AntipatternTableHeading tableHeading = (AntipatternTableHeading) heading;
-
-                                if (tableHeading.getRelations() != null && tableHeading.getRelations().size() > 0) {
-
-                                    // Check if table contains all required columns.
-                                    TableField tableField = (TableField) templateField;
-
-                                    List<String> headingTableColumns = new ArrayList<>(tableHeading.getColumns());
+    public AntipatternRenderPlan getRenderPlan() {
 
-                                    for (TableColumnField tableColumnField : tableField.getColumns()) {
+        AntipatternRenderPlan plan = renderPlan;
 
-                                        if (!headingTableColumns.contains(tableColumnField.getText())) {
+        if (plan == null) {
 
-                                            headingDifferences.add("Heading '" + templateField.getText() + "': Table does not contains column '" + tableColumnField.getText() + "'");
-
-                                        } else {
-
-
-                                            headingTableColumns.remove(tableColumnField.getText());
-                                        }
-                                    }
-
-                                    // If there are any extended table column, add it too.
-                                    for (String tableColumn : headingTableColumns) {
-
-                                        headingDifferences.add("Heading '" + templateField.getText() + "': Column '" + tableColumn + "' is not presented in template!");
-                                    }
-                                }
-
-                                break;
-
-                            case TEXT:
-
-                                AntipatternTextHeading textHeading = (AntipatternTextHeading) heading;
-
-                                if (textHeading.getValue() == null || textHeading.getValue().length() == 0) {
-
-                                    headingDifferences.add("Heading '" + templateField.getText() + "' does not contains any text !");
-                                }
-                                break;
-                        }
-
-                        // If contains, then remove it from list.
-                        antipatternHeadingsTexts.remove(templateField.getText());
-                    }
-
-                    continue;
-                }
-
-                // If headings are not presented, just add heading text to list.
-                headingDifferences.add(text);
-
-            } else {
-
-                if (antipatternHeadingsTexts.contains(templateField.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING)) {
-
-                    antipatternHeadingsTexts.remove(templateField.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING);
-                }
-
-                // Make sure that even small "optional" is included in field name.
-                if (antipatternHeadingsTexts.contains(templateField.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING.toLowerCase())) {
-
-                    antipatternHeadingsTexts.remove(templateField.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING.toLowerCase());
-                }
-            }
+            plan = AntipatternRenderPlan.compile(fieldList);
+            renderPlan = plan;
         }
 
-        // If there are any extended headings in antipattern, then add them too.
-        for (String remainingHeading : antipatternHeadingsTexts) {
-
-            if (getField(remainingHeading) == null) {
-
-                headingDifferences.add("Heading '" + remainingHeading + "' is not presented in template !");
-            }
-        }
+        return plan;
+    }
 
-        headingDifferences.addAll(checkPositions(antipattern, antipatternHeadingsTexts));
+    /**
+     * Get field by field name.
+     * @param fieldName - Field name.
+     * @return Field.
+     */
+    public TemplateField getField(String fieldName) {
 
-        return headingDifferences;
+        return getValidator().getField(fieldName);
     }
 
     /**
-     * Check positions of every field in antipattern.
-     * @param antipattern - Antipattern for check.
-     * @param nontemplateFields - Fields, which are in antipattern but not in template.
-     * @return List of error messages.
+     * Compare antipatterns headings to template fields and return list of differences.
+     * @param antipattern - Compared antipattern.
+     * @return List of differences.
      */
-    private List<String> checkPositions(Antipattern antipattern, List<String> nontemplateFields) {
+    public List<String> getHeadingDifferences(Antipattern antipattern) {
 
         List<String> headingDifferences = new ArrayList<>();
-        List<String> antipatternHeadingsTexts = antipattern.getAntipatternHeadingsTexts();
-
-        for (int i = 0; i < fieldList.size(); i++) {
-
-            if (i < antipatternHeadingsTexts.size()) {
-
-                TemplateField field = fieldList.get(i);
-                String heading = antipatternHeadingsTexts.get(i);
-
-                if (field.isRequired()) {
-
-                    // Check position of required field.
-                    if (!heading.equals(field.getText()) && !nontemplateFields.contains(heading)) {
-
-                        headingDifferences.add("Bad position for heading '" + heading + "'!");
-                    }
-
-                } else {
-
-                    // Check position of optional field.
-                    String optionalTextLow = field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING.toLowerCase();
-                    String optionalText = field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING;
-
-                    if (antipatternHeadingsTexts.contains(optionalText) || antipatternHeadingsTexts.contains(optionalTextLow)) {
 
-                        if (!heading.equals(optionalText) && !heading.equals(optionalTextLow)) {
+        for (TemplateViolation violation : getValidator().validate(antipattern)) {
 
-                            headingDifferences.add("Heading '" + heading + "' has bad position!");
-                        }
-                    }
-                }
-            }
+            headingDifferences.add(violation.getMessage());
         }
 
         return headingDifferences;
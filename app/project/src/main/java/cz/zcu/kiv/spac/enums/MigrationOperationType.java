@@ -0,0 +1,12 @@
+package cz.zcu.kiv.spac.enums;
+
+/**
+ * Enum class representing type of change made in antipattern file by template migration.
+ */
+public enum MigrationOperationType {
+    RENAME_HEADING,
+    MOVE_SECTION,
+    ADD_SECTION,
+    KEEP_UNKNOWN_SECTION,
+    CHANGE_TABLE_COLUMNS
+}
@@ -0,0 +1,15 @@
+package cz.zcu.kiv.spac.enums;
+
+/**
+ * Enum class representing type of difference between antipattern and template.
+ */
+public enum TemplateViolationType {
+    MISSING_HEADING,
+    EMPTY_TABLE,
+    MISSING_COLUMN,
+    UNKNOWN_COLUMN,
+    EMPTY_TEXT,
+    UNKNOWN_HEADING,
+    BAD_POSITION,
+    BAD_OPTIONAL_POSITION
+}
@@ -0,0 +1,64 @@
+package cz.zcu.kiv.spac.export;
+
+/**
+ * Class representing result of static site export.
+ */
+public class SiteExportResult {
+
+    private final int pageCount;
+    private final int renderedCount;
+    private final int failedCount;
+    private final int deletedCount;
+    private final long durationNanos;
+
+    /**
+     * Constructor.
+     * @param pageCount - Number of pages of site.
+     * @param renderedCount - Number of pages, which were rendered (their inputs were changed).
+     * @param failedCount - Number of pages, which cannot be written.
+     * @param deletedCount - Number of pages, which were deleted, because their source does not exist anymore.
+     * @param durationNanos - Duration of export in nanoseconds.
+     */
+    public SiteExportResult(int pageCount, int renderedCount, int failedCount, int deletedCount, long durationNanos) {
+
+        this.pageCount = pageCount;
+        this.renderedCount = renderedCount;
+        this.failedCount = failedCount;
+        this.deletedCount = deletedCount;
+        this.durationNanos = durationNanos;
+    }
+
+    public int getPageCount() {
+
+        return pageCount;
+    }
+
+    public int getRenderedCount() {
+
+        return renderedCount;
+    }
+
+    /**
+     * Get number of pages, which were not rendered, because their inputs were not changed since previous export.
+     * @return Number of skipped pages.
+     */
+    public int getSkippedCount() {
+
+        return pageCount - renderedCount - failedCount;
+    }
+
+    public int getFailedCount() {
+
+        return failedCount;
+    }
+
+    public int getDeletedCount() {
+
+        return deletedCount;
+    }
+
+    public double getDurationMillis() {
+
+        return durationNanos / 1_000_000.0;
+    }
+}
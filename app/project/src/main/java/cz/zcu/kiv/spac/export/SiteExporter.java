@@ -0,0 +1,500 @@
+package cz.zcu.kiv.spac.export;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.file.ContentHashRegistry;
+import cz.zcu.kiv.spac.file.FileLoader;
+import cz.zcu.kiv.spac.file.FileWriter;
+import cz.zcu.kiv.spac.html.HTMLGenerator;
+import cz.zcu.kiv.spac.html.ImageLinkResolver;
+import cz.zcu.kiv.spac.markdown.MarkdownGenerator;
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+import cz.zcu.kiv.spac.utils.JsonBuilder;
+import cz.zcu.kiv.spac.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Export of catalogue to static HTML site: catalogue index, every antipattern, template and references
+ * are rendered to HTML pages with shared stylesheet, images are copied and JSON search index is written.
+ * Pages are rendered in parallel. Every page stores hash of its inputs, so next export renders only pages, whose inputs were changed.
+ * Catalogue and antipatterns must not be changed while export is running.
+ */
+public class SiteExporter {
+
+    public static final String STYLESHEET_PATH = "css/catalogue.css";
+    public static final String SEARCH_INDEX_NAME = "search-index.json";
+
+    // Version of page layout, it is part of input hash, so changed layout renders all pages again.
+    private static final String PAGE_LAYOUT_VERSION = "1";
+
+    // Hash of page inputs in page head.
+    private static final Pattern INPUT_HASH_PATTERN = Pattern.compile("<meta name=\"" + HTMLGenerator.SITE_INPUT_HASH_META + "\" content=\"([0-9a-f]+)\">");
+
+    // Number of bytes at start of page, in which input hash is searched.
+    private static final int INPUT_HASH_SEARCH_LENGTH = 512;
+
+    // Words indexed for search.
+    private static final Pattern WORD_PATTERN = Pattern.compile("[\\p{L}\\p{N}]{3,}");
+
+    // Link destinations and html tags are not indexed.
+    private static final Pattern NOT_INDEXED_PATTERN = Pattern.compile("\\]\\([^)]*\\)|<[^>]*>");
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(SiteExporter.class);
+
+    private final MarkdownParser markdownParser;
+    private final Catalogue catalogue;
+    private final Map<AntipatternKey, Antipattern> antipatterns;
+    private final File antipatternFolder;
+    private final File outputFolder;
+
+    /**
+     * Constructor.
+     * @param markdownParser - Markdown parser.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @param antipatternFolder - Folder with catalogue file (paths in catalogue are relative to it).
+     * @param outputFolder - Folder of exported site.
+     */
+    public SiteExporter(MarkdownParser markdownParser, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, File antipatternFolder, File outputFolder) {
+
+        this.markdownParser = markdownParser;
+        this.catalogue = catalogue;
+        this.antipatterns = antipatterns;
+        this.antipatternFolder = antipatternFolder;
+        this.outputFolder = outputFolder;
+    }
+
+    /**
+     * Export catalogue to site.
+     * @return Result of export.
+     */
+    public SiteExportResult run() {
+
+        long start = System.nanoTime();
+
+        List<SitePage> pages = collectPages();
+
+        AtomicInteger rendered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        pages.parallelStream().forEach(page -> {
+
+            if (isPageUpToDate(page)) {
+
+                return;
+            }
+
+            if (writePage(page)) {
+
+                rendered.incrementAndGet();
+
+            } else {
+
+                failed.incrementAndGet();
+            }
+        });
+
+        if (!writeStylesheet() || !copyImages() || !writeSearchIndex(pages)) {
+
+            failed.incrementAndGet();
+        }
+
+        int deleted = deleteStalePages(pages);
+
+        return new SiteExportResult(pages.size(), rendered.get(), failed.get(), deleted, System.nanoTime() - start);
+    }
+
+    /**
+     * Collect pages of site with their markdown content.
+     * @return List of pages.
+     */
+    private List<SitePage> collectPages() {
+
+        // Page path -> page. Linking antipatterns share file with linked antipattern, so every path is exported once.
+        Map<String, SitePage> pages = new LinkedHashMap<>();
+
+        String cataloguePath = Utils.getFilenameFromStringPath(Constants.CATALOGUE_FILE);
+        addPage(pages, cataloguePath, Constants.APP_NAME, MarkdownGenerator.createCatalogueMarkdownContent(catalogue, antipatterns));
+
+        String referencesPath = Utils.getFilenameFromStringPath(Constants.REFERENCES_NAME);
+        addPage(pages, referencesPath, "References", FileLoader.loadFileContent(new File(antipatternFolder, referencesPath).getAbsolutePath()));
+
+        String templatePath = Constants.CATALOGUE_FOLDER + "/" + Constants.TEMPLATE_FILE;
+        File templateFile = new File(antipatternFolder, templatePath);
+
+        if (templateFile.exists()) {
+
+            addPage(pages, templatePath, "Template", FileLoader.loadFileContent(templateFile.getAbsolutePath()));
+        }
+
+        for (Antipattern antipattern : antipatterns.values()) {
+
+            if (antipattern.isCreated() && !antipattern.isLinking() && antipattern.getContent() != null) {
+
+                addPage(pages, antipattern.getPath(), antipattern.getName(), antipattern.getContent().toString());
+            }
+        }
+
+        return new ArrayList<>(pages.values());
+    }
+
+    /**
+     * Add page for markdown file.
+     * @param pages - Page path -> page.
+     * @param markdownPath - Path of markdown file relative to antipattern folder.
+     * @param title - Page title.
+     * @param markdownContent - Markdown content, page is not added if content is null.
+     */
+    private void addPage(Map<String, SitePage> pages, String markdownPath, String title, String markdownContent) {
+
+        if (markdownContent == null) {
+
+            log.warn("Content of '" + markdownPath + "' is not available, page is not exported.");
+            return;
+        }
+
+        String path = SiteLinkResolver.getPagePath(markdownPath.replace('\\', '/'));
+
+        pages.putIfAbsent(path, new SitePage(path, title, getStylesheetPath(path), markdownContent));
+    }
+
+    /**
+     * Get path of shared stylesheet relative to page.
+     * @param pagePath - Page path relative to site folder.
+     * @return Stylesheet path.
+     */
+    private static String getStylesheetPath(String pagePath) {
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < pagePath.length(); i++) {
+
+            if (pagePath.charAt(i) == '/') {
+
+                sb.append("../");
+            }
+        }
+
+        return sb.append(STYLESHEET_PATH).toString();
+    }
+
+    /**
+     * Check if page was exported from same inputs before.
+     * @param page - Page.
+     * @return True if page does not have to be rendered.
+     */
+    private boolean isPageUpToDate(SitePage page) {
+
+        File file = new File(outputFolder, page.getPath());
+
+        if (!file.exists()) {
+
+            return false;
+        }
+
+        String inputHash = readInputHash(file.toPath());
+
+        return inputHash != null && inputHash.equals(page.getInputHash());
+    }
+
+    /**
+     * Read hash of inputs stored in exported page.
+     * @param file - Exported page.
+     * @return Input hash, null if page does not contain it.
+     */
+    private static String readInputHash(Path file) {
+
+        byte[] buffer = new byte[INPUT_HASH_SEARCH_LENGTH];
+        int length = 0;
+
+        try (InputStream in = Files.newInputStream(file)) {
+
+            int read;
+
+            while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+
+                length += read;
+            }
+
+        } catch (IOException e) {
+
+            return null;
+        }
+
+        Matcher matcher = INPUT_HASH_PATTERN.matcher(new String(buffer, 0, length, StandardCharsets.UTF_8));
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Render page and write it to site folder.
+     * @param page - Page.
+     * @return True if page was written.
+     */
+    private boolean writePage(SitePage page) {
+
+        File file = new File(outputFolder, page.getPath());
+        File folder = file.getParentFile();
+
+        if (!folder.exists() && !folder.mkdirs()) {
+
+            log.error("Folder '" + folder.getAbsolutePath() + "' cannot be created.");
+            return false;
+        }
+
+        String bodyContent = markdownParser.generateHTMLContent(page.getMarkdownContent(), new SiteLinkResolver.Factory());
+
+        return FileWriter.write(file, HTMLGenerator.createSitePageHTMLContent(page.getTitle(), page.getStylesheetPath(), page.getInputHash(), bodyContent));
+    }
+
+    /**
+     * Write shared stylesheet (preview stylesheet of application).
+     * @return True if stylesheet was written.
+     */
+    private boolean writeStylesheet() {
+
+        File file = new File(outputFolder, STYLESHEET_PATH);
+
+        try (InputStream in = SiteExporter.class.getResourceAsStream(Constants.RESOURCE_PREVIEW_CSS)) {
+
+            if (in == null) {
+
+                log.error("Stylesheet '" + Constants.RESOURCE_PREVIEW_CSS + "' was not found.");
+                return false;
+            }
+
+            if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+
+                log.error("Folder '" + file.getParentFile().getAbsolutePath() + "' cannot be created.");
+                return false;
+            }
+
+            return FileWriter.write(file, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+        } catch (IOException e) {
+
+            log.error("Stylesheet cannot be written: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copy images from catalogue folder, images with same content are not copied.
+     * @return True if all images were copied.
+     */
+    private boolean copyImages() {
+
+        File[] images = new File(antipatternFolder, Constants.CATALOGUE_FOLDER).listFiles((dir, name) -> ImageLinkResolver.isImagePath(name));
+
+        if (images == null || images.length == 0) {
+
+            return true;
+        }
+
+        File folder = new File(outputFolder, Constants.CATALOGUE_FOLDER);
+
+        if (!folder.exists() && !folder.mkdirs()) {
+
+            log.error("Folder '" + folder.getAbsolutePath() + "' cannot be created.");
+            return false;
+        }
+
+        boolean copied = true;
+
+        for (File image : images) {
+
+            Path target = new File(folder, image.getName()).toPath();
+
+            if (Arrays.equals(ContentHashRegistry.getHash(image.toPath()), ContentHashRegistry.getHash(target))) {
+
+                continue;
+            }
+
+            try {
+
+                Files.copy(image.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+
+            } catch (IOException e) {
+
+                log.error("Image '" + image.getName() + "' cannot be copied: " + e.getMessage());
+                copied = false;
+            }
+        }
+
+        return copied;
+    }
+
+    /**
+     * Write search index for client-side search: list of pages and map of words to indexes of pages, which contain them.
+     * @param pages - Pages of site.
+     * @return True if index was written.
+     */
+    private boolean writeSearchIndex(List<SitePage> pages) {
+
+        // Word -> indexes of pages, sorted, so same catalogue gives same index.
+        Map<String, List<Integer>> words = new TreeMap<>();
+
+        for (int i = 0; i < pages.size(); i++) {
+
+            String text = pages.get(i).getTitle() + " " + NOT_INDEXED_PATTERN.matcher(pages.get(i).getMarkdownContent()).replaceAll(" ");
+            Matcher matcher = WORD_PATTERN.matcher(text);
+            Set<String> pageWords = new HashSet<>();
+
+            while (matcher.find()) {
+
+                String word = matcher.group().toLowerCase(Locale.ROOT);
+
+                if (pageWords.add(word)) {
+
+                    words.computeIfAbsent(word, key -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        JsonBuilder json = new JsonBuilder();
+
+        json.beginObject();
+        json.name("pages").beginArray();
+
+        for (SitePage page : pages) {
+
+            json.beginObject();
+            json.name("title").value(page.getTitle());
+            json.name("path").value(page.getPath());
+            json.endObject();
+        }
+
+        json.endArray();
+        json.name("words").beginObject();
+
+        for (Map.Entry<String, List<Integer>> entry : words.entrySet()) {
+
+            json.name(entry.getKey()).beginArray();
+
+            for (Integer index : entry.getValue()) {
+
+                json.value(index);
+            }
+
+            json.endArray();
+        }
+
+        json.endObject();
+        json.endObject();
+
+        return FileWriter.write(new File(outputFolder, SEARCH_INDEX_NAME), json.toString());
+    }
+
+    /**
+     * Delete exported pages, whose sources do not exist anymore (e.g. renamed antipatterns).
+     * Only pages with input hash are deleted, so other files in site folder are kept.
+     * @param pages - Pages of site.
+     * @return Number of deleted pages.
+     */
+    private int deleteStalePages(List<SitePage> pages) {
+
+        Set<File> pageFiles = new HashSet<>();
+        Set<File> folders = new LinkedHashSet<>();
+
+        for (SitePage page : pages) {
+
+            File file = new File(outputFolder, page.getPath()).getAbsoluteFile();
+
+            pageFiles.add(file);
+            folders.add(file.getParentFile());
+        }
+
+        int deleted = 0;
+
+        for (File folder : folders) {
+
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(SiteLinkResolver.PAGE_EXTENSION));
+
+            if (files == null) {
+
+                continue;
+            }
+
+            for (File file : files) {
+
+                if (!pageFiles.contains(file.getAbsoluteFile()) && readInputHash(file.toPath()) != null) {
+
+                    if (file.delete()) {
+
+                        deleted++;
+
+                    } else {
+
+                        log.warn("Stale page '" + file.getAbsolutePath() + "' cannot be deleted.");
+                    }
+                }
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Page of exported site.
+     */
+    private static class SitePage {
+
+        private final String path;
+        private final String title;
+        private final String stylesheetPath;
+        private final String markdownContent;
+        private final String inputHash;
+
+        private SitePage(String path, String title, String stylesheetPath, String markdownContent) {
+
+            this.path = path;
+            this.title = title;
+            this.stylesheetPath = stylesheetPath;
+            this.markdownContent = markdownContent;
+
+            String inputs = PAGE_LAYOUT_VERSION + '\u0000' + title + '\u0000' + stylesheetPath + '\u0000' + markdownContent;
+            this.inputHash = ContentHashRegistry.toHex(ContentHashRegistry.hash(inputs.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private String getPath() {
+
+            return path;
+        }
+
+        private String getTitle() {
+
+            return title;
+        }
+
+        private String getStylesheetPath() {
+
+            return stylesheetPath;
+        }
+
+        private String getMarkdownContent() {
+
+            return markdownContent;
+        }
+
+        private String getInputHash() {
+
+            return inputHash;
+        }
+    }
+}
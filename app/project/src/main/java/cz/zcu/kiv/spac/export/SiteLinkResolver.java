@@ -0,0 +1,77 @@
+package cz.zcu.kiv.spac.export;
+
+import com.vladsch.flexmark.html.IndependentLinkResolverFactory;
+import com.vladsch.flexmark.html.LinkResolver;
+import com.vladsch.flexmark.html.renderer.LinkResolverBasicContext;
+import com.vladsch.flexmark.html.renderer.LinkStatus;
+import com.vladsch.flexmark.html.renderer.LinkType;
+import com.vladsch.flexmark.html.renderer.ResolvedLink;
+import com.vladsch.flexmark.util.ast.Node;
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.html.ImageLinkResolver;
+import cz.zcu.kiv.spac.utils.Utils;
+
+/**
+ * Link resolver for exported site, which maps relative links to markdown files to exported HTML pages.
+ * Links to catalogue and README point to site index, anchors are kept.
+ */
+public class SiteLinkResolver implements LinkResolver {
+
+    public static final String INDEX_PAGE = "index.html";
+    public static final String PAGE_EXTENSION = ".html";
+
+    // Markdown files, which are exported as site index.
+    private static final String CATALOGUE_FILENAME = Utils.getFilenameFromStringPath(Constants.CATALOGUE_FILE);
+    private static final String README_FILENAME = Utils.getFilenameFromStringPath(Constants.README_NAME);
+
+    @Override
+    public ResolvedLink resolveLink(Node node, LinkResolverBasicContext context, ResolvedLink link) {
+
+        if (link.getLinkType() != LinkType.LINK || ImageLinkResolver.isAbsoluteURL(link.getUrl())) {
+
+            return link;
+        }
+
+        String url = link.getUrl();
+        int anchorStart = url.indexOf('#');
+        String path = anchorStart < 0 ? url : url.substring(0, anchorStart);
+        String anchor = anchorStart < 0 ? "" : url.substring(anchorStart);
+
+        if (!path.endsWith(Constants.FILES_EXTENSION)) {
+
+            return link;
+        }
+
+        return link.withStatus(LinkStatus.VALID).withUrl(getPagePath(path) + anchor);
+    }
+
+    /**
+     * Get path of exported page for path of markdown file.
+     * @param markdownPath - Path of markdown file.
+     * @return Path of HTML page.
+     */
+    public static String getPagePath(String markdownPath) {
+
+        int nameStart = markdownPath.lastIndexOf('/') + 1;
+        String name = markdownPath.substring(nameStart);
+
+        if (name.equals(CATALOGUE_FILENAME) || name.equals(README_FILENAME)) {
+
+            return markdownPath.substring(0, nameStart) + INDEX_PAGE;
+        }
+
+        return markdownPath.substring(0, markdownPath.length() - Constants.FILES_EXTENSION.length()) + PAGE_EXTENSION;
+    }
+
+    /**
+     * Factory of resolver for HTML renderer.
+     */
+    public static class Factory extends IndependentLinkResolverFactory {
+
+        @Override
+        public LinkResolver apply(LinkResolverBasicContext context) {
+
+            return new SiteLinkResolver();
+        }
+    }
+}
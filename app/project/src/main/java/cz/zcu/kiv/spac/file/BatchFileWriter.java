@@ -0,0 +1,291 @@
+package cz.zcu.kiv.spac.file;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Class contains static methods for writing multiple files as one batch.
+ * Either all files are written or none of them is changed.
+ */
+public class BatchFileWriter {
+
+    static final String TEMP_SUFFIX = ".tmp";
+    static final String BACKUP_SUFFIX = ".bak";
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(BatchFileWriter.class);
+
+    /**
+     * Write contents to files. Contents are written to temporary files first, then original files are replaced.
+     * If any file cannot be written or replaced, already replaced files are restored from backups.
+     * @param contents - File -> content, content is written as it is.
+     * @return True if all files were written, false if no file was changed.
+     */
+    public static boolean writeAll(Map<File, String> contents) {
+
+        WriteBatch batch = new WriteBatch();
+
+        for (Map.Entry<File, String> entry : contents.entrySet()) {
+
+            if (!batch.write(entry.getKey(), entry.getValue())) {
+
+                batch.rollback();
+                return false;
+            }
+        }
+
+        return batch.commit();
+    }
+
+    /**
+     * Replace target files with temporary files.
+     * Temporary files are flushed to disk together before first target is replaced, so there is one barrier for whole group.
+     * If more than one file is replaced, write-ahead journal is written before first target is replaced,
+     * so batch interrupted by crash is finished on next startup (see WriteJournal).
+     * Directories of replaced files are flushed once after all files are replaced.
+     * @param transactionId - Transaction id of batch.
+     * @param tempFiles - Target file -> temporary file with new content.
+     * @param contentHashes - Target file -> hash of new content.
+     * @return True if all targets were replaced, false if no target was changed.
+     */
+    static boolean commit(String transactionId, Map<Path, Path> tempFiles, Map<Path, byte[]> contentHashes) {
+
+        try {
+
+            tempFiles.values().parallelStream().forEach(temp -> {
+
+                try {
+
+                    force(temp);
+
+                } catch (IOException e) {
+
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        } catch (UncheckedIOException e) {
+
+            log.error("Error while flushing temporary files of transaction " + transactionId + ": " + e.getCause().getMessage());
+            return false;
+        }
+
+        // Replacing of one file is atomic, so journal is needed only for more files.
+        Path journal = null;
+
+        if (tempFiles.size() > 1) {
+
+            try {
+
+                journal = WriteJournal.write(transactionId, tempFiles, contentHashes);
+
+            } catch (IOException e) {
+
+                log.error("Journal of transaction " + transactionId + " cannot be written: " + e.getMessage());
+                return false;
+            }
+        }
+
+        // Target -> backup of original file, null if target did not exist.
+        Map<Path, Path> replacedFiles = new LinkedHashMap<>();
+
+        try {
+
+            for (Map.Entry<Path, Path> entry : tempFiles.entrySet()) {
+
+                Path target = entry.getKey();
+                Path backup = null;
+
+                if (Files.exists(target)) {
+
+                    backup = getSiblingPath(target, BACKUP_SUFFIX);
+                    createBackup(target, backup);
+                }
+
+                replacedFiles.put(target, backup);
+                move(entry.getValue(), target);
+            }
+
+        } catch (IOException e) {
+
+            log.error("Error while replacing file in transaction " + transactionId + ", restoring " + replacedFiles.size() + " files: " + e.getMessage());
+
+            // If files cannot be restored now, journal is kept and they are restored on next startup.
+            if (rollback(replacedFiles) && journal != null) {
+
+                deleteQuietly(replacedFiles.values());
+                WriteJournal.delete(journal);
+            }
+
+            return false;
+        }
+
+        Set<Path> directories = new LinkedHashSet<>();
+
+        for (Path target : tempFiles.keySet()) {
+
+            directories.add(target.getParent());
+        }
+
+        for (Path directory : directories) {
+
+            forceDirectory(directory);
+        }
+
+        deleteQuietly(replacedFiles.values());
+
+        if (journal != null) {
+
+            WriteJournal.delete(journal);
+        }
+
+        log.info("Transaction " + transactionId + ": " + tempFiles.size() + " files were written.");
+
+        return true;
+    }
+
+    /**
+     * Restore replaced files from backups.
+     * @param replacedFiles - Target -> backup of original file, null if target did not exist.
+     * @return True if all files were restored.
+     */
+    private static boolean rollback(Map<Path, Path> replacedFiles) {
+
+        boolean restored = true;
+
+        for (Map.Entry<Path, Path> entry : replacedFiles.entrySet()) {
+
+            try {
+
+                if (entry.getValue() == null) {
+
+                    Files.deleteIfExists(entry.getKey());
+
+                } else {
+
+                    move(entry.getValue(), entry.getKey());
+                }
+
+            } catch (IOException e) {
+
+                log.error("File '" + entry.getKey() + "' cannot be restored: " + e.getMessage());
+                restored = false;
+            }
+        }
+
+        return restored;
+    }
+
+    /**
+     * Create backup of file. Backup is hard link to original file if file system supports it, otherwise copy.
+     * @param file - Original file.
+     * @param backup - Backup file.
+     * @throws IOException - Error while creating backup.
+     */
+    private static void createBackup(Path file, Path backup) throws IOException {
+
+        Files.deleteIfExists(backup);
+
+        try {
+
+            Files.createLink(backup, file);
+
+        } catch (UnsupportedOperationException | IOException e) {
+
+            Files.copy(file, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Move file over target, atomically if file system supports it.
+     * @param source - Source file.
+     * @param target - Target file.
+     * @throws IOException - Error while moving file.
+     */
+    static void move(Path source, Path target) throws IOException {
+
+        try {
+
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (AtomicMoveNotSupportedException e) {
+
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Flush content of file to disk.
+     * @param file - File.
+     * @throws IOException - Error while flushing file.
+     */
+    static void force(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Flush directory entries (renamed files) to disk. Some systems (Windows) do not allow opening directory, error is only logged.
+     * @param directory - Directory.
+     */
+    static void forceDirectory(Path directory) {
+
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+
+            channel.force(true);
+
+        } catch (IOException e) {
+
+            log.debug("Directory '" + directory + "' cannot be flushed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get path of hidden file next to file.
+     * @param path - File path.
+     * @param suffix - Suffix of hidden file.
+     * @return Path of hidden file.
+     */
+    static Path getSiblingPath(Path path, String suffix) {
+
+        return path.resolveSibling("." + path.getFileName() + suffix);
+    }
+
+    /**
+     * Delete files, errors are only logged.
+     * @param paths - Paths of files, null paths are skipped.
+     */
+    static void deleteQuietly(Collection<Path> paths) {
+
+        for (Path path : paths) {
+
+            if (path == null) {
+
+                continue;
+            }
+
+            try {
+
+                Files.deleteIfExists(path);
+
+            } catch (IOException e) {
+
+                log.warn("File '" + path + "' cannot be deleted: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package cz.zcu.kiv.spac.file;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueLayout;
+import cz.zcu.kiv.spac.markdown.MarkdownGenerator;
+import cz.zcu.kiv.spac.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class contains static methods for writing catalogue file.
+ * Changed catalogue instances are spliced on their positions into copy of catalogue file, which is replaced in write batch,
+ * whole catalogue is generated only when positions from catalogue layout do not match file.
+ * Sharded catalogue is written as one file per catalogue instance and manifest listing shards.
+ */
+public class CatalogueWriter {
+
+    // Same line ending as FileWriter adds after content.
+    private static final String FILE_END = "\n";
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(CatalogueWriter.class);
+
+    /**
+     * Write changed catalogue instances to catalogue.
+     * Sharded catalogue rewrites shards of changed instances, single-file catalogue patches catalogue file.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @param keys - Keys of changed catalogue instances.
+     * @return True if writing was successful, false if not.
+     */
+    public static boolean writeSections(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, Collection<String> keys) {
+
+        if (!catalogue.isSharded()) {
+
+            return writeSections(new File(Constants.CATALOGUE_FILE), catalogue, antipatterns, keys);
+        }
+
+        boolean manifestChanged = false;
+
+        for (String key : keys) {
+
+            File shardFile = getShardFile(key);
+            manifestChanged |= !shardFile.exists();
+
+            if (!FileWriter.write(shardFile, out -> MarkdownGenerator.writeCatalogueSectionMarkdownContent(out, catalogue, key, antipatterns))) {
+
+                return false;
+            }
+        }
+
+        // New catalogue instance was created, so manifest must contain its shard.
+        if (manifestChanged) {
+
+            return writeManifest(catalogue);
+        }
+
+        return true;
+    }
+
+    /**
+     * Split catalogue into shards. Every catalogue instance is written into its own file and manifest is created.
+     * Catalogue is sharded after successful split.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @return True if writing was successful, false if not.
+     */
+    public static boolean writeShards(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) {
+
+        for (String key : catalogue.getCatalogueRecords().keySet()) {
+
+            if (!FileWriter.write(getShardFile(key), out -> MarkdownGenerator.writeCatalogueSectionMarkdownContent(out, catalogue, key, antipatterns))) {
+
+                return false;
+            }
+        }
+
+        if (!writeManifest(catalogue)) {
+
+            return false;
+        }
+
+        catalogue.setSharded(true);
+        log.info("Catalogue was split into " + catalogue.getCatalogueRecords().size() + " shards.");
+
+        return true;
+    }
+
+    /**
+     * Export whole catalogue into single catalogue file, regardless of catalogue being sharded.
+     * @param file - Catalogue file.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @return True if writing was successful, false if not.
+     */
+    public static boolean exportSingleFile(File file, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) {
+
+        // Single-file catalogue keeps positions of its instances.
+        if (!catalogue.isSharded()) {
+
+            return writeCatalogue(file, catalogue, antipatterns);
+        }
+
+        return FileWriter.write(file, out -> MarkdownGenerator.writeCatalogueMarkdownContent(out, catalogue, antipatterns));
+    }
+
+    /**
+     * Write catalogue manifest with shards of all catalogue instances, sorted by instance key.
+     * @param catalogue - Catalogue.
+     * @return True if writing was successful, false if not.
+     */
+    private static boolean writeManifest(Catalogue catalogue) {
+
+        return FileWriter.write(new File(Constants.CATALOGUE_MANIFEST_FILE), MarkdownGenerator.createCatalogueManifestMarkdownContent(new TreeSet<>(catalogue.getInstanceKeys())));
+    }
+
+    private static File getShardFile(String key) {
+
+        return new File(Constants.CATALOGUE_FOLDER_PREFIX + Utils.createCatalogueShardFilename(key));
+    }
+
+    /**
+     * Write changed catalogue instances to catalogue file.
+     * Instances are written to copy of catalogue file in write batch bound to thread, so catalogue is replaced together
+     * with other files of batch. Without bound batch, catalogue file is replaced immediately.
+     * If any instance cannot be written on its position, whole catalogue is regenerated.
+     * @param file - Catalogue file.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @param keys - Keys of changed catalogue instances.
+     * @return True if writing was successful, false if not.
+     */
+    public static boolean writeSections(File file, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, Collection<String> keys) {
+
+        WriteBatch batch = WriteBatch.current();
+
+        // Single file is committed as batch with one file.
+        if (batch == null) {
+
+            batch = new WriteBatch();
+
+            if (!writeSections(file, catalogue, antipatterns, keys, batch)) {
+
+                batch.rollback();
+                return false;
+            }
+
+            return batch.commit();
+        }
+
+        return writeSections(file, catalogue, antipatterns, keys, batch);
+    }
+
+    private static boolean writeSections(File file, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, Collection<String> keys, WriteBatch batch) {
+
+        CatalogueLayout layout = catalogue.getLayout();
+
+        if (layout != null) {
+
+            // Positions are changed in copy, catalogue gets new positions only when file is really replaced.
+            CatalogueLayout newLayout = new CatalogueLayout(layout);
+
+            boolean patched = batch.patch(file, channel -> {
+
+                for (String key : keys) {
+
+                    if (!writeSection(channel, catalogue, newLayout, antipatterns, key)) {
+
+                        log.info("Catalogue instance '" + key + "' cannot be written on its position, regenerating whole catalogue.");
+                        return false;
+                    }
+                }
+
+                return true;
+            });
+
+            if (patched) {
+
+                batch.onCommit(() -> catalogue.setLayout(newLayout));
+                return true;
+            }
+        }
+
+        return writeCatalogue(file, catalogue, antipatterns, batch);
+    }
+
+    /**
+     * Generate whole catalogue, write it to file and store new positions of catalogue instances.
+     * Catalogue is written directly to file, positions are taken from number of bytes written before every instance.
+     * If file is written in write batch, positions are stored when batch is committed.
+     * @param file - Catalogue file.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @return True if writing was successful, false if not.
+     */
+    public static boolean writeCatalogue(File file, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) {
+
+        return writeCatalogue(file, catalogue, antipatterns, WriteBatch.current());
+    }
+
+    private static boolean writeCatalogue(File file, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, WriteBatch batch) {
+
+        AtomicReference<CatalogueLayout> newLayout = new AtomicReference<>();
+
+        boolean written = FileWriter.write(file, out -> {
+
+            Map<String, Long> sectionStarts = new LinkedHashMap<>();
+
+            MarkdownGenerator.writeCatalogueHeaderMarkdownContent(out);
+
+            for (String key : catalogue.getCatalogueRecords().keySet()) {
+
+                sectionStarts.put(key, out.position());
+                MarkdownGenerator.writeCatalogueSectionMarkdownContent(out, catalogue, key, antipatterns);
+            }
+
+            newLayout.set(new CatalogueLayout(sectionStarts, out.position() + FILE_END.length()));
+        }, batch);
+
+        if (!written) {
+
+            return false;
+        }
+
+        // Without batch, file was already replaced.
+        if (batch != null) {
+
+            batch.onCommit(() -> catalogue.setLayout(newLayout.get()));
+
+        } else {
+
+            catalogue.setLayout(newLayout.get());
+        }
+
+        return true;
+    }
+
+    /**
+     * Write one catalogue instance on its position in catalogue file. Rest of file after instance is moved if needed.
+     * Positions in layout are updated by change of instance length.
+     * @param channel - Channel of catalogue file.
+     * @param catalogue - Catalogue.
+     * @param layout - Positions of catalogue instances in file.
+     * @param antipatterns - Map of antipatterns.
+     * @param key - Key of catalogue instance.
+     * @return True if instance was written, false if positions are not valid (file must be regenerated).
+     * @throws IOException - Reading or writing error.
+     */
+    private static boolean writeSection(FileChannel channel, Catalogue catalogue, CatalogueLayout layout, Map<AntipatternKey, Antipattern> antipatterns, String key) throws IOException {
+
+        if (!layout.containsSection(key) || catalogue.getCatalogueInstance(key) == null) {
+
+            return false;
+        }
+
+        String sectionContent = MarkdownGenerator.createCatalogueSectionMarkdownContent(catalogue, key, antipatterns);
+        String nextKey = layout.getNextSectionKey(key);
+
+        // Last section contains end of file.
+        if (nextKey == null) {
+
+            sectionContent += FILE_END;
+        }
+
+        byte[] section = sectionContent.getBytes(StandardCharsets.UTF_8);
+
+        long start = layout.getSectionStart(key);
+        long end = layout.getSectionEnd(key);
+
+        // Check if file was not changed since positions were stored.
+        if (channel.size() != layout.getLength() || !isHeadingAt(channel, start, key)
+                || (nextKey != null && !isHeadingAt(channel, end, nextKey))) {
+
+            return false;
+        }
+
+        long delta = section.length - (end - start);
+
+        if (delta == 0) {
+
+            writeFully(channel, ByteBuffer.wrap(section), start);
+
+        } else {
+
+            // Read rest of file, it must be moved after new section.
+            ByteBuffer tail = ByteBuffer.allocate((int) (channel.size() - end));
+            readFully(channel, tail, end);
+            tail.flip();
+
+            writeFully(channel, ByteBuffer.wrap(section), start);
+            writeFully(channel, tail, start + section.length);
+            channel.truncate(layout.getLength() + delta);
+        }
+
+        layout.resizeSection(key, delta);
+        return true;
+    }
+
+    /**
+     * Check if section heading is on position in file.
+     * @param channel - File channel.
+     * @param position - Position of heading.
+     * @param key - Key of catalogue instance.
+     * @return True if heading is on position.
+     * @throws IOException - Reading error.
+     */
+    private static boolean isHeadingAt(FileChannel channel, long position, String key) throws IOException {
+
+        byte[] heading = ("## " + key).getBytes(StandardCharsets.UTF_8);
+
+        if (position + heading.length > channel.size()) {
+
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(heading.length);
+        readFully(channel, buffer, position);
+
+        return ByteBuffer.wrap(heading).equals(buffer.flip());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            int read = channel.read(buffer, position);
+
+            if (read < 0) {
+
+                throw new IOException("Unexpected end of file.");
+            }
+
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            position += channel.write(buffer, position);
+        }
+    }
+}
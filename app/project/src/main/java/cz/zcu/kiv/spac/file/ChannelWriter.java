@@ -0,0 +1,296 @@
+package cz.zcu.kiv.spac.file;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Writer, which encodes text to UTF-8 directly into byte channel.
+ * Text is encoded through fixed-size char and byte buffers, so memory used by writer does not depend on size of written content.
+ * Writer can be reused for multiple channels, buffers and encoder are allocated only once.
+ */
+public class ChannelWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+    private WritableByteChannel channel;
+
+    // Digest of written bytes, null if content is not hashed.
+    private MessageDigest digest;
+
+    // Number of bytes written to current channel.
+    private long bytesWritten;
+
+    /**
+     * Constructor, writer must be bound to channel by reset before writing.
+     */
+    public ChannelWriter() {
+
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(BUFFER_SIZE);
+        this.bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param channel - Channel for encoded content.
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+
+        this();
+        reset(channel);
+    }
+
+    /**
+     * Bind writer to channel. Content, which was not finished for previous channel, is discarded.
+     * @param channel - Channel for encoded content, null to unbind writer.
+     */
+    public void reset(WritableByteChannel channel) {
+
+        reset(channel, null);
+    }
+
+    /**
+     * Bind writer to channel and hash written bytes. Content, which was not finished for previous channel, is discarded.
+     * @param channel - Channel for encoded content, null to unbind writer.
+     * @param digest - Digest updated with every byte written to channel, null if content is not hashed.
+     */
+    public void reset(WritableByteChannel channel, MessageDigest digest) {
+
+        this.channel = channel;
+        this.digest = digest;
+        this.bytesWritten = 0;
+
+        encoder.reset();
+        chars.clear();
+        bytes.clear();
+    }
+
+    /**
+     * Check if writer is bound to channel.
+     * @return True if writer is bound to channel.
+     */
+    public boolean isBound() {
+
+        return channel != null;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+
+        while (len > 0) {
+
+            int count = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, count);
+
+            off += count;
+            len -= count;
+
+            if (!chars.hasRemaining()) {
+
+                encode(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+
+        if (!chars.hasRemaining()) {
+
+            encode(false);
+        }
+
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+
+        append(str, off, off + len);
+    }
+
+    @Override
+    public ChannelWriter append(CharSequence csq) throws IOException {
+
+        if (csq == null) {
+
+            csq = "null";
+        }
+
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public ChannelWriter append(CharSequence csq, int start, int end) throws IOException {
+
+        if (csq == null) {
+
+            csq = "null";
+        }
+
+        // Characters are copied to buffer without creating substring.
+        while (start < end) {
+
+            int count = Math.min(end - start, chars.remaining());
+
+            if (csq instanceof String) {
+
+                ((String) csq).getChars(start, start + count, chars.array(), chars.arrayOffset() + chars.position());
+                chars.position(chars.position() + count);
+
+            } else {
+
+                for (int i = start; i < start + count; i++) {
+
+                    chars.put(csq.charAt(i));
+                }
+            }
+
+            start += count;
+
+            if (!chars.hasRemaining()) {
+
+                encode(false);
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public ChannelWriter append(char c) throws IOException {
+
+        write(c);
+        return this;
+    }
+
+    /**
+     * Get number of bytes written to channel, including content, which is still in buffers.
+     * Surrogate character at the end of content is not counted until its pair is written.
+     * @return Number of bytes.
+     * @throws IOException - Writing error.
+     */
+    public long position() throws IOException {
+
+        flush();
+        return bytesWritten;
+    }
+
+    /**
+     * Encode all buffered content and write it to channel.
+     * @throws IOException - Writing error.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        encode(false);
+        drain();
+    }
+
+    /**
+     * Finish content for current channel, channel is not closed.
+     * Writer can be bound to another channel after finishing.
+     * @throws IOException - Writing error.
+     */
+    public void finish() throws IOException {
+
+        encode(true);
+
+        while (encoder.flush(bytes).isOverflow()) {
+
+            drain();
+        }
+
+        drain();
+    }
+
+    /**
+     * Finish content and close channel.
+     * @throws IOException - Writing error.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (channel == null) {
+
+            return;
+        }
+
+        try {
+
+            finish();
+
+        } finally {
+
+            channel.close();
+            reset(null);
+        }
+    }
+
+    /**
+     * Encode characters from char buffer, full byte buffer is written to channel.
+     * @param endOfInput - True if no more characters will be written.
+     * @throws IOException - Writing error.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+
+        if (channel == null) {
+
+            throw new IOException("Writer is not bound to channel.");
+        }
+
+        chars.flip();
+
+        while (true) {
+
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+
+            if (result.isOverflow()) {
+
+                drain();
+
+            } else {
+
+                break;
+            }
+        }
+
+        // Incomplete surrogate pair stays in buffer for next encoding.
+        chars.compact();
+    }
+
+    /**
+     * Write encoded bytes to channel.
+     * @throws IOException - Writing error.
+     */
+    private void drain() throws IOException {
+
+        bytes.flip();
+
+        if (digest != null) {
+
+            digest.update(bytes.array(), bytes.arrayOffset(), bytes.limit());
+        }
+
+        while (bytes.hasRemaining()) {
+
+            bytesWritten += channel.write(bytes);
+        }
+
+        bytes.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package cz.zcu.kiv.spac.file;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashes of file contents, which were last read from disk or written to disk by application.
+ * Hash is valid only while size and modification time of file are same as when hash was recorded,
+ * otherwise file was changed outside of application and its hash is computed again from disk.
+ */
+public class ContentHashRegistry {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(ContentHashRegistry.class);
+
+    // Normalized absolute path -> last known content hash.
+    private static final Map<Path, FileHash> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * Create digest for hashing of file content.
+     * @return Message digest.
+     */
+    public static MessageDigest createDigest() {
+
+        try {
+
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            // Every Java platform must support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compute hash of content.
+     * @param content - File content.
+     * @return Content hash.
+     */
+    public static byte[] hash(byte[] content) {
+
+        return createDigest().digest(content);
+    }
+
+    /**
+     * Record hash of content, which is currently in file.
+     * @param path - File path.
+     * @param hash - Content hash.
+     */
+    public static void record(Path path, byte[] hash) {
+
+        Path key = normalize(path);
+
+        try {
+
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            hashes.put(key, new FileHash(hash, attributes.size(), attributes.lastModifiedTime().toMillis()));
+
+        } catch (IOException e) {
+
+            hashes.remove(key);
+        }
+    }
+
+    /**
+     * Get hash of content, which is currently in file.
+     * @param path - File path.
+     * @return Content hash, null if file does not exist or cannot be read.
+     */
+    public static byte[] getHash(Path path) {
+
+        Path key = normalize(path);
+
+        try {
+
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            FileHash fileHash = hashes.get(key);
+
+            if (fileHash != null && fileHash.size == attributes.size() && fileHash.lastModified == attributes.lastModifiedTime().toMillis()) {
+
+                return fileHash.hash;
+            }
+
+            // File was not seen or was changed outside of application.
+            MessageDigest digest = createDigest();
+            byte[] buffer = new byte[8192];
+
+            try (InputStream in = Files.newInputStream(key)) {
+
+                int read;
+
+                while ((read = in.read(buffer)) > 0) {
+
+                    digest.update(buffer, 0, read);
+                }
+            }
+
+            byte[] hash = digest.digest();
+            hashes.put(key, new FileHash(hash, attributes.size(), attributes.lastModifiedTime().toMillis()));
+
+            return hash;
+
+        } catch (NoSuchFileException e) {
+
+            hashes.remove(key);
+            return null;
+
+        } catch (IOException e) {
+
+            log.warn("Hash of file '" + path + "' cannot be computed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Convert content hash to hexadecimal string.
+     * @param hash - Content hash.
+     * @return Hexadecimal string.
+     */
+    public static String toHex(byte[] hash) {
+
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+
+        for (byte b : hash) {
+
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return sb.toString();
+    }
+
+    private static Path normalize(Path path) {
+
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Hash of file content with file attributes at time of recording.
+     */
+    private static class FileHash {
+
+        private final byte[] hash;
+        private final long size;
+        private final long lastModified;
+
+        private FileHash(byte[] hash, long size, long lastModified) {
+
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
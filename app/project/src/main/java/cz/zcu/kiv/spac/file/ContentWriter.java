@@ -0,0 +1,17 @@
+package cz.zcu.kiv.spac.file;
+
+import java.io.IOException;
+
+/**
+ * Generator of file content, which writes content directly to file instead of creating string.
+ */
+@FunctionalInterface
+public interface ContentWriter {
+
+    /**
+     * Write content.
+     * @param out - Writer of file.
+     * @throws IOException - Writing error.
+     */
+    void write(ChannelWriter out) throws IOException;
+}
@@ -3,6 +3,7 @@ package cz.zcu.kiv.spac.file;
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternContent;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
 import cz.zcu.kiv.spac.data.catalogue.Catalogue;
 import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
 import cz.zcu.kiv.spac.data.template.TemplateFieldType;
@@ -166,22 +167,24 @@ public class FileLoader {
      * @param catalogue - Antipattern catalogue.
      * @return Map of antipatterns.
      */
-    public static Map<String, Antipattern> loadAntipatterns(MarkdownParser markdownParser, Catalogue catalogue) {
+    public static Map<AntipatternKey, Antipattern> loadAntipatterns(MarkdownParser markdownParser, Catalogue catalogue) {
 
         log.info("Initializing antipattern list.");
 
-        Map<String, Antipattern> antipatterns = new LinkedHashMap<>();
+        Map<AntipatternKey, Antipattern> antipatterns = new LinkedHashMap<>();
 
-        // Get all catalogue instances.
-        Map<String, List<CatalogueRecord>> catalogueRecords = catalogue.getCatalogueRecords();
+        Map<AntipatternKey, AntipatternKey> linkedAntipatterns = new HashMap<>();
 
-        Map<String, String> linkedAntipatterns = new HashMap<>();
-
-        // Iterate through every catalogue instance.
-        for (String catalogueInstance : catalogueRecords.keySet()) {
+        // Iterate through every catalogue instance, shard of sharded catalogue is read right before its antipatterns.
+        for (String catalogueInstance : catalogue.getInstanceKeys()) {
 
             // Get all antipatterns in instance.
-            List<CatalogueRecord> catalogueAntipatterns = catalogueRecords.get(catalogueInstance);
+            List<CatalogueRecord> catalogueAntipatterns = catalogue.getCatalogueInstance(catalogueInstance);
+
+            if (catalogueAntipatterns == null) {
+
+                continue;
+            }
 
             // Iterate through every antipattern.
             for (CatalogueRecord catalogueAntipattern : catalogueAntipatterns) {
@@ -192,7 +195,7 @@ public class FileLoader {
                     AntipatternContent content = new AntipatternContent(MarkdownGenerator.getNonExistingAntipatternContent(catalogueAntipattern.getAntipatternName()));
                     Antipattern nonCreatedAntipattern = new Antipattern(catalogueAntipattern.getAntipatternName(), content, "");
 
-                    antipatterns.put(nonCreatedAntipattern.getFormattedName(), nonCreatedAntipattern);
+                    antipatterns.put(nonCreatedAntipattern.getKey(), nonCreatedAntipattern);
 
                 } else {
 
@@ -204,16 +207,15 @@ public class FileLoader {
 
                         // Get antipattern name from filename.
                         String filenameFromStringPath = Utils.getFilenameFromStringPath(catalogueAntipattern.getPath());
-                        String filenameToAntipatternName = Utils.formatAntipatternName(filenameFromStringPath);
+                        AntipatternKey filenameKey = AntipatternKey.of(filenameFromStringPath);
 
                         AntipatternContent content = null;
 
                         // If antipattern name from filename and antipattern name from catalogue isn't equal, it means that current
                         // antipattern linking another antipattern.
-                        if (!Utils.isAntipatternNamesEquals(filenameToAntipatternName, catalogueAntipattern.getAntipatternName())) {
+                        if (!Utils.isAntipatternNamesEquals(filenameKey.getName(), catalogueAntipattern.getAntipatternName())) {
 
-                            String formattedName = Utils.formatAntipatternName(catalogueAntipattern.getAntipatternName());
-                            linkedAntipatterns.put(formattedName, filenameToAntipatternName);
+                            linkedAntipatterns.put(AntipatternKey.of(catalogueAntipattern.getAntipatternName()), filenameKey);
 
                         } else {
 
@@ -230,7 +232,7 @@ public class FileLoader {
                             antipattern.setAntipatternHeadings(markdownParser.parseHeadings(antipattern, content.toString()));
                         }
 
-                        antipatterns.put(antipattern.getFormattedName(), antipattern);
+                        antipatterns.put(antipattern.getKey(), antipattern);
 
                     } else {
 
@@ -241,22 +243,22 @@ public class FileLoader {
         }
 
         // Link antipattern contents to specific antipatterns.
-        for (String antipatternName : linkedAntipatterns.keySet()) {
+        for (AntipatternKey antipatternKey : linkedAntipatterns.keySet()) {
 
-            String linkedAntipatternName = linkedAntipatterns.get(antipatternName);
+            AntipatternKey linkedAntipatternKey = linkedAntipatterns.get(antipatternKey);
 
             // Get linked and linking antipattern.
-            Antipattern linkedAntipattern = antipatterns.get(linkedAntipatternName);
-            Antipattern linkingAntipattern = antipatterns.get(antipatternName);
+            Antipattern linkedAntipattern = antipatterns.get(linkedAntipatternKey);
+            Antipattern linkingAntipattern = antipatterns.get(antipatternKey);
 
             // Set content.
             linkingAntipattern.setContent(linkedAntipattern.getContent());
 
             linkingAntipattern.setLinking(true);
-            linkingAntipattern.setLinkedAntipatternName(linkedAntipatternName);
+            linkingAntipattern.setLinkedAntipatternName(linkedAntipatternKey.getName());
 
             // Add name of linking antipattern to list of linked antipatterns.
-            linkedAntipattern.addLinkedAntipattern(antipatternName);
+            linkedAntipattern.addLinkedAntipattern(antipatternKey.getName());
         }
 
         log.info("Antipattern list initialized, loaded " + antipatterns.size() + " antipatterns");
@@ -264,6 +266,78 @@ public class FileLoader {
         return antipatterns;
     }
 
+    /**
+     * Load catalogue. If catalogue manifest exists, catalogue is sharded and its instances are loaded
+     * from shard files when they are accessed for the first time. Otherwise single catalogue file is parsed.
+     * @param markdownParser - Markdown parser.
+     * @return Catalogue, null if catalogue cannot be loaded.
+     */
+    public static Catalogue loadCatalogue(MarkdownParser markdownParser) {
+
+        File manifestFile = new File(Utils.getRootDir() + "/" + Constants.CATALOGUE_MANIFEST_FILE);
+
+        if (manifestFile.exists()) {
+
+            String manifestContent = loadFileContent(manifestFile.getAbsolutePath());
+
+            if (manifestContent == null) {
+
+                log.error("Catalogue manifest '" + Constants.CATALOGUE_MANIFEST_FILE + "' cannot be loaded !");
+                return null;
+            }
+
+            Map<String, String> shards = MarkdownParser.parseCatalogueManifest(manifestContent);
+
+            Catalogue catalogue = new Catalogue();
+            catalogue.setShards(shards.keySet(), key -> loadCatalogueShard(markdownParser, manifestFile.getParentFile(), shards.get(key)));
+
+            log.info("Sharded catalogue initialized, " + shards.size() + " shards in manifest");
+
+            return catalogue;
+        }
+
+        // Get catalogue markdown content.
+        String catalogueContent = loadFileContent(Utils.getRootDir() + "/" + Constants.CATALOGUE_FILE);
+
+        // If catalogue file was not loaded correctly.
+        if (catalogueContent == null) {
+
+            log.error("Catalogue file '" + Constants.CATALOGUE_FILE + "' does not exists !");
+            return null;
+        }
+
+        // Parse catalogue content.
+        Catalogue catalogue = markdownParser.parseCatalogue(catalogueContent);
+
+        // If catalogue content is not correctly writed.
+        if (catalogue == null) {
+
+            log.error("Catalogue file has bad markdown format.");
+        }
+
+        return catalogue;
+    }
+
+    /**
+     * Load records of one catalogue shard.
+     * @param markdownParser - Markdown parser.
+     * @param directory - Directory with catalogue manifest.
+     * @param shardPath - Path to shard relative to manifest.
+     * @return Records of shard, empty list if shard cannot be loaded.
+     */
+    private static List<CatalogueRecord> loadCatalogueShard(MarkdownParser markdownParser, File directory, String shardPath) {
+
+        String shardContent = loadFileContent(new File(directory, shardPath).getAbsolutePath());
+
+        if (shardContent == null) {
+
+            log.warn("Catalogue shard '" + shardPath + "' cannot be loaded.");
+            return new ArrayList<>();
+        }
+
+        return markdownParser.parseCatalogueShard(shardContent);
+    }
+
     /**
      * Load file content from path.
      * @param path - Path to file.
@@ -274,6 +348,8 @@ public class FileLoader {
         try {
 
             byte[] encoded = Files.readAllBytes(Paths.get(path));
+            ContentHashRegistry.record(Paths.get(path), ContentHashRegistry.hash(encoded));
+
             return new String(encoded, StandardCharsets.UTF_8);
 
         } catch (IOException e) {
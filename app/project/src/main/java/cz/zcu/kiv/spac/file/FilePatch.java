@@ -0,0 +1,19 @@
+package cz.zcu.kiv.spac.file;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Change of parts of file content, which is applied to copy of file instead of generating whole content.
+ */
+@FunctionalInterface
+public interface FilePatch {
+
+    /**
+     * Apply patch to content.
+     * @param channel - Channel of copied content, opened for reading and writing.
+     * @return True if patch was applied, false if patch does not match content.
+     * @throws IOException - Reading or writing error.
+     */
+    boolean apply(FileChannel channel) throws IOException;
+}
@@ -6,7 +6,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -17,6 +16,9 @@ public class FileWriter {
     // Logger.
     private static Logger log = LogManager.getLogger(FileWriter.class);
 
+    // Line ending added after every written content.
+    private static final String FILE_END = "\n";
+
     /**
      * Write content to file.
      * @param file - File.
@@ -25,19 +27,65 @@ public class FileWriter {
      */
     public static boolean write(File file, String content) {
 
-        try {
+        return write(file, out -> out.append(content));
+    }
+
+    /**
+     * Write content to file in write batch.
+     * @param file - File.
+     * @param content - Content.
+     * @param batch - Write batch, file is replaced when batch is committed. If batch is null, file is replaced immediately.
+     * @return True if writing into file was successful, false if not.
+     */
+    public static boolean write(File file, String content, WriteBatch batch) {
+
+        return write(file, out -> out.append(content), batch);
+    }
+
+    /**
+     * Write content generated by content writer to file. Content is encoded directly into file,
+     * so it is not created as string.
+     * If write batch is bound to current thread, file is replaced when batch is committed.
+     * @param file - File.
+     * @param contentWriter - Content writer.
+     * @return True if writing into file was successful, false if not.
+     */
+    public static boolean write(File file, ContentWriter contentWriter) {
+
+        return write(file, contentWriter, WriteBatch.current());
+    }
+
+    /**
+     * Write content generated by content writer to file in write batch.
+     * File is replaced atomically: content is written to temporary file, which is renamed to file.
+     * @param file - File.
+     * @param contentWriter - Content writer.
+     * @param batch - Write batch, file is replaced when batch is committed. If batch is null, file is replaced immediately.
+     * @return True if writing into file was successful, false if not.
+     */
+    public static boolean write(File file, ContentWriter contentWriter, WriteBatch batch) {
+
+        ContentWriter fileContentWriter = out -> {
 
-            Writer out = new BufferedWriter(new OutputStreamWriter(
-                    new FileOutputStream(file), StandardCharsets.UTF_8));
-            out.write(content + "\n");
-            out.close();
-            return true;
+            contentWriter.write(out);
+            out.append(FILE_END);
+        };
 
-        } catch (IOException ex) {
+        if (batch != null) {
+
+            return batch.write(file, fileContentWriter);
+        }
 
-            log.error("Error while writing content to file '" + file.getName() + "'");
+        // Single file is committed as batch with one file.
+        batch = new WriteBatch();
+
+        if (!batch.write(file, fileContentWriter)) {
+
+            batch.rollback();
             return false;
         }
+
+        return batch.commit();
     }
 
     /**
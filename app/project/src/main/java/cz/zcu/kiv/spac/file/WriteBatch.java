@@ -0,0 +1,346 @@
+package cz.zcu.kiv.spac.file;
+
+import cz.zcu.kiv.spac.utils.Metrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group of file writes, which are committed together. Contents are written to temporary files next to target files
+ * and target files are replaced only when batch is committed, so crash during writing does not change any target file.
+ * Batch can be bound to current thread, then every FileWriter write of this thread is added to batch.
+ * Files, which would get same content as they already have, are not replaced.
+ * Every batch has its own transaction id, which identifies it in log and in write-ahead journal.
+ */
+public class WriteBatch {
+
+    // Batch bound to thread.
+    private static final ThreadLocal<WriteBatch> CURRENT = new ThreadLocal<>();
+
+    // Writer reused for all files written by thread.
+    private static final ThreadLocal<ChannelWriter> CHANNEL_WRITER = ThreadLocal.withInitial(ChannelWriter::new);
+
+    // Counter of batches created by this process, part of transaction id.
+    private static final AtomicLong BATCH_COUNTER = new AtomicLong();
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(WriteBatch.class);
+
+    private final String transactionId = System.currentTimeMillis() + "-" + ProcessHandle.current().pid() + "-" + BATCH_COUNTER.incrementAndGet();
+
+    // Target file -> temporary file with new content.
+    private final Map<Path, Path> tempFiles = new LinkedHashMap<>();
+
+    // Target file -> hash of new content.
+    private final Map<Path, byte[]> contentHashes = new HashMap<>();
+
+    // Actions run after all files are replaced, e.g. update of state describing written files.
+    private final List<Runnable> commitActions = new ArrayList<>();
+
+    private boolean failed = false;
+
+    public String getTransactionId() {
+
+        return transactionId;
+    }
+
+    /**
+     * Get batch bound to current thread.
+     * @return Batch, null if no batch is bound.
+     */
+    public static WriteBatch current() {
+
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind batch to current thread, FileWriter writes are added to it until batch is committed or rolled back.
+     * @return This batch.
+     */
+    public WriteBatch begin() {
+
+        CURRENT.set(this);
+        return this;
+    }
+
+    /**
+     * Add content to batch, content is written as it is.
+     * @param file - Target file.
+     * @param content - Content.
+     * @return True if content was written to temporary file, false if not.
+     */
+    public boolean write(File file, String content) {
+
+        return write(file, out -> out.append(content));
+    }
+
+    /**
+     * Add content generated by content writer to batch. If file is already in batch, its content is replaced.
+     * If content is same as content of target file, target is not replaced (modification time of file is not changed).
+     * @param file - Target file.
+     * @param contentWriter - Content writer.
+     * @return True if content was written to temporary file or if file already has same content, false if not.
+     */
+    public boolean write(File file, ContentWriter contentWriter) {
+
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = tempFiles.computeIfAbsent(target, path -> BatchFileWriter.getSiblingPath(path, BatchFileWriter.TEMP_SUFFIX));
+
+        ChannelWriter out = CHANNEL_WRITER.get();
+
+        // Content writer can write another file, so nested writing uses its own writer.
+        if (out.isBound()) {
+
+            out = new ChannelWriter();
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            MessageDigest digest = ContentHashRegistry.createDigest();
+
+            out.reset(channel, digest);
+            contentWriter.write(out);
+            out.finish();
+
+            addContentHash(target, temp, digest.digest());
+            return true;
+
+        } catch (IOException e) {
+
+            log.error("Error while writing content to file '" + file.getName() + "': " + e.getMessage());
+            failed = true;
+            return false;
+
+        } finally {
+
+            out.reset(null);
+        }
+    }
+
+    /**
+     * Add patched copy of target file to batch. Target file (or its content already written to batch) is copied
+     * to temporary file and patch changes only parts of copy, so whole content does not have to be generated.
+     * If patch cannot be applied, batch is not failed, but content of file in batch must be written again whole.
+     * @param file - Target file.
+     * @param patch - Patch of content.
+     * @return True if patch was applied, false if target file does not exist or patch cannot be applied.
+     */
+    public boolean patch(File file, FilePatch patch) {
+
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = tempFiles.get(target);
+        boolean staged = temp != null;
+
+        try {
+
+            if (!staged) {
+
+                if (!Files.isRegularFile(target)) {
+
+                    return false;
+                }
+
+                temp = BatchFileWriter.getSiblingPath(target, BatchFileWriter.TEMP_SUFFIX);
+                tempFiles.put(target, temp);
+                Files.copy(target, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+                if (patch.apply(channel)) {
+
+                    addContentHash(target, temp, hash(channel));
+                    return true;
+                }
+            }
+
+        } catch (IOException e) {
+
+            log.warn("Patch cannot be applied to file '" + file.getName() + "': " + e.getMessage());
+        }
+
+        if (!staged) {
+
+            tempFiles.remove(target);
+            BatchFileWriter.deleteQuietly(Collections.singleton(temp));
+        }
+
+        return false;
+    }
+
+    /**
+     * Store hash of content written to temporary file.
+     * If content is same as content of target file, temporary file is removed from batch.
+     * @param target - Target file.
+     * @param temp - Temporary file.
+     * @param hash - Hash of content.
+     * @throws IOException - Temporary file cannot be deleted.
+     */
+    private void addContentHash(Path target, Path temp, byte[] hash) throws IOException {
+
+        if (Arrays.equals(hash, ContentHashRegistry.getHash(target))) {
+
+            // Content is already in file, even if file was written to batch before.
+            tempFiles.remove(target);
+            contentHashes.remove(target);
+            Files.deleteIfExists(temp);
+
+            Metrics.increment(Metrics.FILE_WRITES_SKIPPED);
+            return;
+        }
+
+        contentHashes.put(target, hash);
+    }
+
+    private static byte[] hash(FileChannel channel) throws IOException {
+
+        MessageDigest digest = ContentHashRegistry.createDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+
+        while (channel.read(buffer, position) > 0) {
+
+            buffer.flip();
+            position += buffer.remaining();
+            digest.update(buffer);
+            buffer.clear();
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Add action, which is run after batch is successfully committed. Action is discarded if batch is not committed.
+     * @param action - Action.
+     */
+    public void onCommit(Runnable action) {
+
+        commitActions.add(action);
+    }
+
+    /**
+     * Check if batch contains no file.
+     * @return True if no file was written to batch.
+     */
+    public boolean isEmpty() {
+
+        return tempFiles.isEmpty();
+    }
+
+    /**
+     * Replace target files with contents of batch and unbind batch from thread.
+     * If any write to batch failed, no target file is changed.
+     * @return True if all files were replaced, false if no file was changed.
+     */
+    public boolean commit() {
+
+        unbind();
+
+        if (failed) {
+
+            log.error("Transaction " + transactionId + " with " + tempFiles.size() + " files is not committed, because some file was not written.");
+            deleteTempFiles();
+            commitActions.clear();
+            return false;
+        }
+
+        if (tempFiles.isEmpty()) {
+
+            runCommitActions();
+            return true;
+        }
+
+        boolean committed = BatchFileWriter.commit(transactionId, tempFiles, contentHashes);
+
+        if (committed) {
+
+            for (Map.Entry<Path, byte[]> entry : contentHashes.entrySet()) {
+
+                ContentHashRegistry.record(entry.getKey(), entry.getValue());
+            }
+
+            Metrics.add(Metrics.FILE_WRITES_PERFORMED, tempFiles.size());
+
+        } else {
+
+            deleteTempFiles();
+        }
+
+        tempFiles.clear();
+        contentHashes.clear();
+
+        if (committed) {
+
+            runCommitActions();
+
+        } else {
+
+            commitActions.clear();
+        }
+
+        return committed;
+    }
+
+    private void runCommitActions() {
+
+        List<Runnable> actions = new ArrayList<>(commitActions);
+        commitActions.clear();
+
+        for (Runnable action : actions) {
+
+            action.run();
+        }
+    }
+
+    /**
+     * Discard contents of batch and unbind batch from thread.
+     */
+    public void rollback() {
+
+        unbind();
+        deleteTempFiles();
+        tempFiles.clear();
+        contentHashes.clear();
+        commitActions.clear();
+    }
+
+    private void unbind() {
+
+        if (CURRENT.get() == this) {
+
+            CURRENT.remove();
+        }
+    }
+
+    private void deleteTempFiles() {
+
+        for (Path temp : tempFiles.values()) {
+
+            try {
+
+                Files.deleteIfExists(temp);
+
+            } catch (IOException e) {
+
+                log.warn("Temporary file '" + temp + "' cannot be deleted: " + e.getMessage());
+            }
+        }
+    }
+}
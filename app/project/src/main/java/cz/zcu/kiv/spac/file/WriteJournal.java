@@ -0,0 +1,332 @@
+package cz.zcu.kiv.spac.file;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Write-ahead journal of write batches, which replace more than one file.
+ * Before first target file is replaced, journal with target files, temporary files and hashes of new contents is flushed to disk.
+ * Journal is deleted after all files are replaced, so journal found on startup belongs to batch interrupted by crash.
+ * Interrupted batch is completed if all new contents are still available, otherwise original files are restored from backups.
+ */
+public class WriteJournal {
+
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String TRANSACTION_PREFIX = "transaction ";
+    private static final String SEPARATOR = "\t";
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(WriteJournal.class);
+
+    /**
+     * Write journal of batch. Journal is written to temporary file, which is renamed after it is flushed,
+     * so journal file is always complete.
+     * @param transactionId - Transaction id of batch.
+     * @param tempFiles - Target file -> temporary file with new content.
+     * @param contentHashes - Target file -> hash of new content.
+     * @return Path of journal.
+     * @throws IOException - Error while writing journal.
+     */
+    static Path write(String transactionId, Map<Path, Path> tempFiles, Map<Path, byte[]> contentHashes) throws IOException {
+
+        Path folder = getJournalFolder();
+        Files.createDirectories(folder);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(TRANSACTION_PREFIX).append(transactionId).append('\n');
+
+        for (Map.Entry<Path, Path> entry : tempFiles.entrySet()) {
+
+            Path target = entry.getKey();
+
+            sb.append(ContentHashRegistry.toHex(contentHashes.get(target))).append(SEPARATOR)
+                    .append(Files.exists(target) ? '1' : '0').append(SEPARATOR)
+                    .append(target).append(SEPARATOR)
+                    .append(entry.getValue()).append('\n');
+        }
+
+        Path journal = folder.resolve(transactionId + JOURNAL_EXTENSION);
+        Path temp = BatchFileWriter.getSiblingPath(journal, BatchFileWriter.TEMP_SUFFIX);
+
+        Files.write(temp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        BatchFileWriter.force(temp);
+        BatchFileWriter.move(temp, journal);
+        BatchFileWriter.forceDirectory(folder);
+
+        return journal;
+    }
+
+    /**
+     * Delete journal of finished batch.
+     * @param journal - Path of journal.
+     */
+    static void delete(Path journal) {
+
+        try {
+
+            Files.deleteIfExists(journal);
+
+        } catch (IOException e) {
+
+            log.warn("Journal '" + journal + "' cannot be deleted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finish batches interrupted by crash. Must be called on startup, before any file is loaded.
+     */
+    public static void recover() {
+
+        Path folder = getJournalFolder();
+
+        if (!Files.isDirectory(folder)) {
+
+            return;
+        }
+
+        List<Path> journals = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+
+            for (Path path : stream) {
+
+                String name = path.getFileName().toString();
+
+                if (name.endsWith(JOURNAL_EXTENSION)) {
+
+                    journals.add(path);
+
+                } else if (name.endsWith(BatchFileWriter.TEMP_SUFFIX)) {
+
+                    // Journal was not completed, so no target file was replaced.
+                    delete(path);
+                }
+            }
+
+        } catch (IOException e) {
+
+            log.error("Journal folder cannot be read: " + e.getMessage());
+            return;
+        }
+
+        Collections.sort(journals);
+
+        for (Path journal : journals) {
+
+            recover(journal);
+        }
+    }
+
+    /**
+     * Finish interrupted batch: replace remaining target files or restore all target files.
+     * @param journal - Path of journal.
+     */
+    private static void recover(Path journal) {
+
+        String transactionId;
+        List<Entry> entries = new ArrayList<>();
+
+        try {
+
+            List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+
+            if (lines.isEmpty() || !lines.get(0).startsWith(TRANSACTION_PREFIX)) {
+
+                log.error("Journal '" + journal + "' is not valid, it is kept for manual recovery.");
+                return;
+            }
+
+            transactionId = lines.get(0).substring(TRANSACTION_PREFIX.length());
+
+            for (int i = 1; i < lines.size(); i++) {
+
+                if (lines.get(i).isEmpty()) {
+
+                    continue;
+                }
+
+                String[] parts = lines.get(i).split(SEPARATOR, -1);
+
+                if (parts.length != 4) {
+
+                    log.error("Journal '" + journal + "' is not valid, it is kept for manual recovery.");
+                    return;
+                }
+
+                entries.add(new Entry(fromHex(parts[0]), parts[1].equals("1"), Paths.get(parts[2]), Paths.get(parts[3])));
+            }
+
+        } catch (IOException | IllegalArgumentException e) {
+
+            log.error("Journal '" + journal + "' cannot be read: " + e.getMessage());
+            return;
+        }
+
+        // Batch can be completed only if every target already has new content or its temporary file still has it.
+        boolean complete = true;
+
+        for (Entry entry : entries) {
+
+            if (!entry.hasNewContent(entry.target) && !entry.hasNewContent(entry.temp)) {
+
+                complete = false;
+                break;
+            }
+        }
+
+        boolean recovered = complete ? rollForward(entries) : rollBack(entries);
+
+        if (!recovered) {
+
+            log.error("Transaction " + transactionId + " cannot be recovered, journal '" + journal + "' is kept for manual recovery.");
+            return;
+        }
+
+        Set<Path> directories = new LinkedHashSet<>();
+        List<Path> leftovers = new ArrayList<>();
+
+        for (Entry entry : entries) {
+
+            directories.add(entry.target.getParent());
+            leftovers.add(entry.temp);
+            leftovers.add(BatchFileWriter.getSiblingPath(entry.target, BatchFileWriter.BACKUP_SUFFIX));
+        }
+
+        for (Path directory : directories) {
+
+            BatchFileWriter.forceDirectory(directory);
+        }
+
+        BatchFileWriter.deleteQuietly(leftovers);
+        delete(journal);
+
+        log.info("Transaction " + transactionId + " interrupted by crash was " + (complete ? "completed" : "rolled back") + ", " + entries.size() + " files were recovered.");
+    }
+
+    /**
+     * Replace targets, which were not replaced before crash, with temporary files.
+     * @param entries - Journal entries.
+     * @return True if all targets have new content.
+     */
+    private static boolean rollForward(List<Entry> entries) {
+
+        for (Entry entry : entries) {
+
+            if (entry.hasNewContent(entry.target)) {
+
+                continue;
+            }
+
+            try {
+
+                BatchFileWriter.move(entry.temp, entry.target);
+
+            } catch (IOException e) {
+
+                log.error("File '" + entry.target + "' cannot be replaced: " + e.getMessage());
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Restore original targets from backups, targets created by batch are deleted.
+     * @param entries - Journal entries.
+     * @return True if all targets have original content.
+     */
+    private static boolean rollBack(List<Entry> entries) {
+
+        boolean restored = true;
+
+        for (Entry entry : entries) {
+
+            Path backup = BatchFileWriter.getSiblingPath(entry.target, BatchFileWriter.BACKUP_SUFFIX);
+
+            try {
+
+                // Backup is created before target is replaced, so missing backup means target was not changed.
+                if (entry.existed && Files.exists(backup)) {
+
+                    BatchFileWriter.move(backup, entry.target);
+
+                } else if (!entry.existed && entry.hasNewContent(entry.target)) {
+
+                    Files.delete(entry.target);
+                }
+
+            } catch (IOException e) {
+
+                log.error("File '" + entry.target + "' cannot be restored: " + e.getMessage());
+                restored = false;
+            }
+        }
+
+        return restored;
+    }
+
+    private static Path getJournalFolder() {
+
+        return Paths.get(Utils.getRootDir(), Constants.JOURNAL_FOLDER).toAbsolutePath().normalize();
+    }
+
+    private static byte[] fromHex(String hex) {
+
+        if (hex.length() % 2 != 0) {
+
+            throw new IllegalArgumentException("Invalid hash '" + hex + "'.");
+        }
+
+        byte[] bytes = new byte[hex.length() / 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+
+            if (high < 0 || low < 0) {
+
+                throw new IllegalArgumentException("Invalid hash '" + hex + "'.");
+            }
+
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * One file of journaled batch.
+     */
+    private static class Entry {
+
+        private final byte[] hash;
+        private final boolean existed;
+        private final Path target;
+        private final Path temp;
+
+        private Entry(byte[] hash, boolean existed, Path target, Path temp) {
+
+            this.hash = hash;
+            this.existed = existed;
+            this.target = target;
+            this.temp = temp;
+        }
+
+        private boolean hasNewContent(Path path) {
+
+            return Arrays.equals(hash, ContentHashRegistry.getHash(path));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package cz.zcu.kiv.spac.graph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Random;
+
+/**
+ * Force-directed layout of relation graph.
+ * Repulsive forces are approximated by Barnes-Hut quad tree (O(n log n) per iteration),
+ * edges act as springs. Layout runs in background thread and publishes positions after every iteration,
+ * so view can render layout incrementally. Stopped layout continues from its last iteration when it is started again.
+ */
+public class BarnesHutLayout implements Runnable {
+
+    private static final double THETA = 0.9;
+    private static final double REPULSION = 900.0;
+    private static final double SPRING_LENGTH = 50.0;
+    private static final double SPRING_STRENGTH = 0.04;
+    private static final double GRAVITY = 0.02;
+    private static final double DAMPING = 0.8;
+    private static final double INITIAL_TEMPERATURE = 40.0;
+    private static final int MIN_ITERATIONS = 50;
+    private static final int MAX_ITERATIONS = 1500;
+    private static final double MIN_AVERAGE_MOVEMENT = 0.05;
+
+    private final RelationGraph graph;
+    private final int n;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] fx;
+    private final double[] fy;
+
+    // Published positions (x0, y0, x1, y1, ...), replaced by new array after every iteration.
+    private volatile double[] positions;
+    private volatile long version;
+    private volatile boolean running;
+    private volatile boolean finished;
+
+    // Number of computed iterations, guarded by this layout.
+    private int iteration = 0;
+
+    private volatile Thread thread;
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(BarnesHutLayout.class);
+
+    /**
+     * Constructor.
+     * @param graph - Relation graph.
+     */
+    public BarnesHutLayout(RelationGraph graph) {
+
+        this.graph = graph;
+        this.n = graph.getNodeCount();
+
+        x = new double[n];
+        y = new double[n];
+        vx = new double[n];
+        vy = new double[n];
+        fx = new double[n];
+        fy = new double[n];
+
+        // Initial positions - random positions in circle, seed is fixed to get same layout every time.
+        Random random = new Random(42);
+        double radius = Math.sqrt(n) * SPRING_LENGTH;
+
+        for (int i = 0; i < n; i++) {
+
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = Math.sqrt(random.nextDouble()) * radius;
+            x[i] = Math.cos(angle) * distance;
+            y[i] = Math.sin(angle) * distance;
+        }
+
+        publish();
+    }
+
+    /**
+     * Start layout in background thread, layout is not started if it is running or if it already converged.
+     */
+    public void start() {
+
+        if (running || finished) {
+
+            return;
+        }
+
+        running = true;
+
+        thread = new Thread(this, "relation-graph-layout");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stop layout computation.
+     */
+    public void stop() {
+
+        running = false;
+    }
+
+    @Override
+    public synchronized void run() {
+
+        QuadTree tree = new QuadTree(n);
+        double[] force = new double[2];
+
+        long start = System.currentTimeMillis();
+
+        // Thread of stopped layout ends, even if layout was started again before thread noticed it.
+        while (running && thread == Thread.currentThread() && iteration < MAX_ITERATIONS && n > 0) {
+
+            double temperature = INITIAL_TEMPERATURE * (1.0 - (double) iteration / MAX_ITERATIONS) + 1.0;
+
+            // Repulsive forces.
+            tree.build(x, y, n);
+
+            for (int i = 0; i < n; i++) {
+
+                force[0] = 0;
+                force[1] = 0;
+                tree.applyRepulsion(i, THETA, REPULSION, force);
+
+                // Gravity to the center, so unconnected components do not fly away.
+                fx[i] = force[0] - GRAVITY * x[i];
+                fy[i] = force[1] - GRAVITY * y[i];
+            }
+
+            // Attractive forces of edges.
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+
+                int source = graph.getEdgeSource(e);
+                int target = graph.getEdgeTarget(e);
+
+                double dx = x[target] - x[source];
+                double dy = y[target] - y[source];
+                double distance = Math.max(Math.sqrt(dx * dx + dy * dy), 0.01);
+                double strength = SPRING_STRENGTH * (distance - SPRING_LENGTH);
+
+                double forceX = dx / distance * strength;
+                double forceY = dy / distance * strength;
+
+                fx[source] += forceX;
+                fy[source] += forceY;
+                fx[target] -= forceX;
+                fy[target] -= forceY;
+            }
+
+            // Move nodes, movement is limited by temperature.
+            double movement = 0;
+
+            for (int i = 0; i < n; i++) {
+
+                vx[i] = (vx[i] + fx[i]) * DAMPING;
+                vy[i] = (vy[i] + fy[i]) * DAMPING;
+
+                double speed = Math.sqrt(vx[i] * vx[i] + vy[i] * vy[i]);
+
+                if (speed > temperature) {
+
+                    vx[i] = vx[i] / speed * temperature;
+                    vy[i] = vy[i] / speed * temperature;
+                    speed = temperature;
+                }
+
+                x[i] += vx[i];
+                y[i] += vy[i];
+                movement += speed;
+            }
+
+            publish();
+            iteration++;
+
+            if (iteration > MIN_ITERATIONS && movement / n < MIN_AVERAGE_MOVEMENT) {
+
+                finished = true;
+                break;
+            }
+        }
+
+        if (thread != Thread.currentThread()) {
+
+            return;
+        }
+
+        running = false;
+
+        if (!finished && iteration < MAX_ITERATIONS && n > 0) {
+
+            log.info("Relation graph layout was stopped after " + iteration + " iterations.");
+            return;
+        }
+
+        finished = true;
+
+        log.info("Relation graph layout finished after " + iteration + " iterations (" + n + " nodes, "
+                + graph.getEdgeCount() + " edges) in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * Publish current positions for renderer.
+     */
+    private void publish() {
+
+        double[] snapshot = new double[n * 2];
+
+        for (int i = 0; i < n; i++) {
+
+            snapshot[i * 2] = x[i];
+            snapshot[i * 2 + 1] = y[i];
+        }
+
+        positions = snapshot;
+        version++;
+    }
+
+    /**
+     * Get latest published positions.
+     * @return Positions (x0, y0, x1, y1, ...).
+     */
+    public double[] getPositions() {
+
+        return positions;
+    }
+
+    /**
+     * Get version of published positions, incremented after every iteration.
+     * @return Version.
+     */
+    public long getVersion() {
+
+        return version;
+    }
+
+    public boolean isRunning() {
+
+        return running;
+    }
+
+    public RelationGraph getGraph() {
+
+        return graph;
+    }
+}
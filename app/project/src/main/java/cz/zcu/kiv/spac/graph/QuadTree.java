@@ -0,0 +1,284 @@
+package cz.zcu.kiv.spac.graph;
+
+import java.util.Arrays;
+
+/**
+ * Quad tree for Barnes-Hut approximation of repulsive forces.
+ * Tree nodes are stored in reusable arrays, so building tree in every layout iteration does not allocate objects.
+ */
+class QuadTree {
+
+    private static final int EMPTY = -1;
+    private static final int INTERNAL = -2;
+
+    // Coincident bodies are aggregated in one leaf instead of subdividing forever.
+    private static final int MAX_DEPTH = 40;
+
+    private int capacity;
+    private int count;
+
+    private double[] minX;
+    private double[] minY;
+    private double[] size;
+    private double[] mass;
+    private double[] comX;
+    private double[] comY;
+    private int[] body;
+    private int[] firstChild;
+
+    private int[] stack;
+
+    private double[] x;
+    private double[] y;
+
+    /**
+     * Constructor.
+     * @param bodies - Expected number of bodies.
+     */
+    QuadTree(int bodies) {
+
+        capacity = Math.max(16, bodies * 4);
+        allocate(capacity);
+        stack = new int[64];
+    }
+
+    /**
+     * Build tree from body positions.
+     * @param x - X positions.
+     * @param y - Y positions.
+     * @param n - Number of bodies.
+     */
+    void build(double[] x, double[] y, int n) {
+
+        this.x = x;
+        this.y = y;
+
+        double left = Double.MAX_VALUE;
+        double top = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+        double bottom = -Double.MAX_VALUE;
+
+        for (int i = 0; i < n; i++) {
+
+            left = Math.min(left, x[i]);
+            top = Math.min(top, y[i]);
+            right = Math.max(right, x[i]);
+            bottom = Math.max(bottom, y[i]);
+        }
+
+        count = 0;
+        createNode(left, top, Math.max(right - left, bottom - top) + 1);
+
+        for (int i = 0; i < n; i++) {
+
+            insert(i);
+        }
+    }
+
+    /**
+     * Accumulate approximated repulsive force from all bodies to body.
+     * @param i - Index of body.
+     * @param theta - Barnes-Hut opening criterion.
+     * @param repulsion - Repulsion constant.
+     * @param force - Output array, [0] is X force and [1] is Y force.
+     */
+    void applyRepulsion(int i, double theta, double repulsion, double[] force) {
+
+        double thetaSquared = theta * theta;
+        double px = x[i];
+        double py = y[i];
+
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+
+            int node = stack[--top];
+
+            if (mass[node] == 0 || body[node] == i) {
+
+                continue;
+            }
+
+            double dx = px - comX[node];
+            double dy = py - comY[node];
+            double distanceSquared = dx * dx + dy * dy;
+
+            if (body[node] == INTERNAL && size[node] * size[node] >= thetaSquared * distanceSquared) {
+
+                // Node is too close, open it.
+                if (top + 4 > stack.length) {
+
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+
+                int child = firstChild[node];
+                stack[top++] = child;
+                stack[top++] = child + 1;
+                stack[top++] = child + 2;
+                stack[top++] = child + 3;
+                continue;
+            }
+
+            if (distanceSquared < 0.01) {
+
+                // Push coincident bodies apart in deterministic direction.
+                dx = (i % 2 == 0) ? 0.1 : -0.1;
+                dy = (i % 3 == 0) ? 0.1 : -0.1;
+                distanceSquared = 0.01;
+            }
+
+            double distance = Math.sqrt(distanceSquared);
+            double strength = repulsion * mass[node] / distanceSquared;
+
+            force[0] += dx / distance * strength;
+            force[1] += dy / distance * strength;
+        }
+    }
+
+    /**
+     * Insert body into tree.
+     * @param i - Index of body.
+     */
+    private void insert(int i) {
+
+        double px = x[i];
+        double py = y[i];
+
+        int node = 0;
+        int depth = 0;
+
+        while (true) {
+
+            if (body[node] == EMPTY && mass[node] == 0) {
+
+                body[node] = i;
+                mass[node] = 1;
+                comX[node] = px;
+                comY[node] = py;
+                return;
+            }
+
+            // Update center of mass.
+            double newMass = mass[node] + 1;
+            comX[node] = (comX[node] * mass[node] + px) / newMass;
+            comY[node] = (comY[node] * mass[node] + py) / newMass;
+            mass[node] = newMass;
+
+            if (body[node] >= 0) {
+
+                if (depth >= MAX_DEPTH) {
+
+                    return;
+                }
+
+                // Move existing body to child.
+                int existing = body[node];
+                body[node] = INTERNAL;
+                subdivide(node);
+
+                int child = childFor(node, x[existing], y[existing]);
+                body[child] = existing;
+                mass[child] = 1;
+                comX[child] = x[existing];
+                comY[child] = y[existing];
+            }
+
+            node = childFor(node, px, py);
+            depth++;
+        }
+    }
+
+    /**
+     * Create 4 children of node.
+     * @param node - Node index.
+     */
+    private void subdivide(int node) {
+
+        double half = size[node] / 2;
+        int first = -1;
+
+        for (int k = 0; k < 4; k++) {
+
+            int child = createNode(minX[node] + (k & 1) * half, minY[node] + (k >> 1) * half, half);
+
+            if (k == 0) {
+
+                first = child;
+            }
+        }
+
+        firstChild[node] = first;
+    }
+
+    /**
+     * Get child of node, which contains position.
+     * @param node - Node index.
+     * @param px - X position.
+     * @param py - Y position.
+     * @return Child index.
+     */
+    private int childFor(int node, double px, double py) {
+
+        double half = size[node] / 2;
+        int quadrantX = px >= minX[node] + half ? 1 : 0;
+        int quadrantY = py >= minY[node] + half ? 1 : 0;
+
+        return firstChild[node] + quadrantY * 2 + quadrantX;
+    }
+
+    /**
+     * Create new empty node.
+     * @return Node index.
+     */
+    private int createNode(double left, double top, double nodeSize) {
+
+        if (count == capacity) {
+
+            capacity *= 2;
+            allocate(capacity);
+        }
+
+        int node = count++;
+        minX[node] = left;
+        minY[node] = top;
+        size[node] = nodeSize;
+        mass[node] = 0;
+        comX[node] = 0;
+        comY[node] = 0;
+        body[node] = EMPTY;
+        firstChild[node] = -1;
+
+        return node;
+    }
+
+    /**
+     * Allocate (or grow) node arrays.
+     * @param newCapacity - New capacity.
+     */
+    private void allocate(int newCapacity) {
+
+        if (minX == null) {
+
+            minX = new double[newCapacity];
+            minY = new double[newCapacity];
+            size = new double[newCapacity];
+            mass = new double[newCapacity];
+            comX = new double[newCapacity];
+            comY = new double[newCapacity];
+            body = new int[newCapacity];
+            firstChild = new int[newCapacity];
+
+        } else {
+
+            minX = Arrays.copyOf(minX, newCapacity);
+            minY = Arrays.copyOf(minY, newCapacity);
+            size = Arrays.copyOf(size, newCapacity);
+            mass = Arrays.copyOf(mass, newCapacity);
+            comX = Arrays.copyOf(comX, newCapacity);
+            comY = Arrays.copyOf(comY, newCapacity);
+            body = Arrays.copyOf(body, newCapacity);
+            firstChild = Arrays.copyOf(firstChild, newCapacity);
+        }
+    }
+}
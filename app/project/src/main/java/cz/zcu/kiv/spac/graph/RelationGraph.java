@@ -0,0 +1,164 @@
+package cz.zcu.kiv.spac.graph;
+
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternSnapshot;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueSnapshot;
+
+import java.util.*;
+
+/**
+ * Class representing graph of antipattern relations.
+ * Nodes and edges are stored in arrays, so layout and rendering do not need to allocate per node.
+ */
+public class RelationGraph {
+
+    private final AntipatternKey[] nodeKeys;
+    private final String[] nodeLabels;
+    private final boolean[] nodeCreated;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final Map<AntipatternKey, Integer> nodeIndexes;
+
+    /**
+     * Constructor.
+     * @param nodeKeys - Keys of antipatterns in map of antipatterns.
+     * @param nodeLabels - Antipattern names.
+     * @param nodeCreated - True for antipatterns with file, false for only mentioned antipatterns.
+     * @param edgeSources - Indexes of edge source nodes.
+     * @param edgeTargets - Indexes of edge target nodes.
+     */
+    private RelationGraph(AntipatternKey[] nodeKeys, String[] nodeLabels, boolean[] nodeCreated, int[] edgeSources, int[] edgeTargets) {
+
+        this.nodeKeys = nodeKeys;
+        this.nodeLabels = nodeLabels;
+        this.nodeCreated = nodeCreated;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+
+        nodeIndexes = new HashMap<>();
+
+        for (int i = 0; i < nodeKeys.length; i++) {
+
+            nodeIndexes.put(nodeKeys[i], i);
+        }
+    }
+
+    /**
+     * Build relation graph from catalogue snapshot.
+     * Linking antipatterns (aliases) are skipped, both-sided relations are represented by one edge.
+     * @param snapshot - Catalogue snapshot.
+     * @return Relation graph.
+     */
+    public static RelationGraph build(CatalogueSnapshot snapshot) {
+
+        List<AntipatternSnapshot> antipatterns = new ArrayList<>();
+        Map<AntipatternKey, Integer> indexes = new HashMap<>();
+
+        for (AntipatternSnapshot antipattern : snapshot.getAntipatterns()) {
+
+            if (antipattern.isLinking()) {
+
+                continue;
+            }
+
+            indexes.put(antipattern.getKey(), antipatterns.size());
+            antipatterns.add(antipattern);
+        }
+
+        Set<Long> edges = new LinkedHashSet<>();
+
+        for (int source = 0; source < antipatterns.size(); source++) {
+
+            for (AntipatternSnapshot.Relation relation : antipatterns.get(source).getRelations()) {
+
+                Integer target = indexes.get(relation.getKey());
+
+                if (target == null || target == source) {
+
+                    continue;
+                }
+
+                // Edge key is same for both directions.
+                long low = Math.min(source, target);
+                long high = Math.max(source, target);
+                edges.add((low << 32) | high);
+            }
+        }
+
+        int[] edgeSources = new int[edges.size()];
+        int[] edgeTargets = new int[edges.size()];
+
+        int i = 0;
+        for (long edge : edges) {
+
+            edgeSources[i] = (int) (edge >>> 32);
+            edgeTargets[i] = (int) edge;
+            i++;
+        }
+
+        AntipatternKey[] nodeKeys = new AntipatternKey[antipatterns.size()];
+        String[] nodeLabels = new String[antipatterns.size()];
+        boolean[] nodeCreated = new boolean[antipatterns.size()];
+
+        for (int j = 0; j < nodeKeys.length; j++) {
+
+            nodeKeys[j] = antipatterns.get(j).getKey();
+            nodeLabels[j] = antipatterns.get(j).getName();
+            nodeCreated[j] = antipatterns.get(j).isCreated();
+        }
+
+        return new RelationGraph(nodeKeys, nodeLabels, nodeCreated, edgeSources, edgeTargets);
+    }
+
+    public int getNodeCount() {
+
+        return nodeKeys.length;
+    }
+
+    public int getEdgeCount() {
+
+        return edgeSources.length;
+    }
+
+    public AntipatternKey getNodeKey(int index) {
+
+        return nodeKeys[index];
+    }
+
+    public String getNodeLabel(int index) {
+
+        return nodeLabels[index];
+    }
+
+    public boolean isNodeCreated(int index) {
+
+        return nodeCreated[index];
+    }
+
+    public int getEdgeSource(int index) {
+
+        return edgeSources[index];
+    }
+
+    public int getEdgeTarget(int index) {
+
+        return edgeTargets[index];
+    }
+
+    /**
+     * Get index of node by antipattern key.
+     * @param key - Key of antipattern.
+     * @return Index of node, -1 if antipattern is not in graph.
+     */
+    public int getNodeIndex(AntipatternKey key) {
+
+        Integer index = nodeIndexes.get(key);
+
+        if (index == null) {
+
+            return -1;
+        }
+
+        return index;
+    }
+}
@@ -1,14 +1,19 @@
 package cz.zcu.kiv.spac.html;
 
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.LinkResolverFactory;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
-import cz.zcu.kiv.spac.data.git.PreviewFileContentLine;
-
-import java.util.List;
+import com.vladsch.flexmark.util.sequence.Escaping;
+import cz.zcu.kiv.spac.validation.ValidationCheckResult;
+import cz.zcu.kiv.spac.validation.ValidationIssue;
+import cz.zcu.kiv.spac.validation.ValidationReport;
 
 public class HTMLGenerator {
 
+    // Name of meta element with hash of inputs of exported page.
+    public static final String SITE_INPUT_HASH_META = "spac-input-hash";
+
     /**
      * Generate html content from markdown content.
      * @param options - Options for renderer.
@@ -22,96 +27,109 @@ public class HTMLGenerator {
     }
 
     /**
-     * Create HTML content from file content lines.
-     * @param contentLines - File content lines.
-     * @return HTML file content.
+     * Generate html content from markdown content, links are resolved by link resolver while html is rendered.
+     * @param options - Options for renderer.
+     * @param markdownDocument - Document with markdown content.
+     * @param linkResolverFactory - Factory of link resolver.
+     * @return Html content.
      */
-    public static String createHTMLFileContent(List<PreviewFileContentLine> contentLines) {
+    public static String generateHTMLContentFromMarkdown(MutableDataHolder options, Node markdownDocument, LinkResolverFactory linkResolverFactory) {
 
-        StringBuilder htmlContent = new StringBuilder();
-        htmlContent.append("<table>");
+        HtmlRenderer renderer = HtmlRenderer.builder(options).linkResolverFactory(linkResolverFactory).build();
+        return renderer.render(markdownDocument);
+    }
 
-        if (contentLines != null) {
+    /**
+     * Create HTML page with catalogue validation report.
+     * @param report - Validation report.
+     * @return HTML content.
+     */
+    public static String createValidationReportHTMLContent(ValidationReport report) {
 
-            for (PreviewFileContentLine contentLine : contentLines) {
+        StringBuilder htmlContent = new StringBuilder();
 
-                String line = contentLine.getLine();
+        htmlContent.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>Catalogue validation</title>");
+        htmlContent.append("<style>body{font-family:Arial,sans-serif}table{border-collapse:collapse;margin-bottom:20px}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:left}th{background:#eee}</style></head><body>");
 
-                String lineNumberDeleted = "";
-                String lineNumberAdded = "";
-                String lineColorClass = "";
-                String lineColorIndexClass = "";
-                String symbol = "&nbsp;";
+        htmlContent.append("<h1>Catalogue validation</h1>");
+        htmlContent.append("<p>Created: ").append(escape(report.getCreated()))
+                .append(", anti-patterns: ").append(report.getAntipatternCount())
+                .append(", problems: ").append(report.getIssueCount())
+                .append(", failed checks: ").append(report.getFailedCheckCount())
+                .append(", duration: ").append(String.format("%.1f", report.getDurationMillis())).append(" ms</p>");
 
-                htmlContent.append("<tr>");
+        // Summary of checks with timings.
+        htmlContent.append("<table><tr><th>Check</th><th>Problems</th><th>Duration [ms]</th></tr>");
 
-                switch (contentLine.getType()) {
+        for (ValidationCheckResult result : report.getResults()) {
 
-                    case ADDED:
+            htmlContent.append("<tr><td>").append(escape(result.getName())).append("</td><td>")
+                    .append(result.isFailed() ? "Failed" : String.valueOf(result.getIssues().size())).append("</td><td>").append(String.format("%.1f", result.getDurationMillis())).append("</td></tr>");
+        }
 
-                        lineNumberDeleted = "";
-                        lineNumberAdded = "" + contentLine.getLineNumber();
-                        lineColorClass = "line-added";
-                        lineColorIndexClass = "line-index-added";
-                        symbol = "" + line.charAt(0);
-                        break;
+        htmlContent.append("</table>");
 
-                    case DELETED:
+        for (ValidationCheckResult result : report.getResults()) {
 
-                        lineNumberDeleted = "" + contentLine.getLineNumber();
-                        lineNumberAdded = "";
-                        lineColorClass = "line-deleted";
-                        lineColorIndexClass = "line-index-deleted";
-                        symbol = "" + line.charAt(0);
-                        break;
+            htmlContent.append("<h2>").append(escape(result.getName())).append("</h2>");
 
-                    case DIFF_INFO:
+            if (result.isFailed()) {
 
-                        lineColorClass = "line-diff-info";
-                        lineColorIndexClass = "line-index-diff-info";
-                        break;
+                htmlContent.append("<p>Check was not completed: ").append(escape(result.getError())).append("</p>");
+                continue;
+            }
 
-                    case NOT_MODIFIED:
+            if (result.getIssues().isEmpty()) {
 
-                        lineNumberDeleted = "" + contentLine.getLineNumber();
-                        lineNumberAdded = "" + contentLine.getLineNumber();;
-                        break;
-                }
+                htmlContent.append("<p>No problems found.</p>");
+                continue;
+            }
 
-                symbol = "&nbsp;" + symbol;
+            htmlContent.append("<table><tr><th>Anti-pattern</th><th>Type</th><th>Location</th><th>Message</th></tr>");
 
-                // If line is more than blank space, cut the symbol.
-                if (line.length() > 1) {
+            for (ValidationIssue issue : result.getIssues()) {
 
-                    line = line.substring(1);
+                htmlContent.append("<tr><td>").append(escape(issue.getAntipattern()))
+                        .append("</td><td>").append(escape(issue.getType()))
+                        .append("</td><td>").append(escape(issue.getLocation()))
+                        .append("</td><td>").append(escape(issue.getMessage())).append("</td></tr>");
+            }
 
-                } else {
+            htmlContent.append("</table>");
+        }
 
-                    line = "";
-                }
+        htmlContent.append("</body></html>");
 
-                htmlContent.append("<td class=\"line-index ").append(lineColorIndexClass).append("\">").
-                        append(lineNumberDeleted).append("</td>");
-                htmlContent.append("<td class=\"line-index ").append(lineColorIndexClass).append("\">").
-                        append(lineNumberAdded).append("</td>");
+        return htmlContent.toString();
+    }
 
-                htmlContent.append("<td class=\"line ").append(lineColorClass).append("\">")
-                        .append("<span class=\"line-symbol\">").append(symbol).append("</span>")
-                        .append(line).append("</td>");
-                htmlContent.append("</tr>");
-            }
-            htmlContent.append("</table>");
+    /**
+     * Create page of exported static site.
+     * Hash of page inputs is stored in page head, so exporter can find out if page must be rendered again.
+     * @param title - Page title.
+     * @param stylesheetPath - Path of shared stylesheet relative to page.
+     * @param inputHash - Hash of page inputs.
+     * @param bodyContent - Html content of page body.
+     * @return Html page content.
+     */
+    public static String createSitePageHTMLContent(String title, String stylesheetPath, String inputHash, String bodyContent) {
 
-        } else {
+        StringBuilder htmlContent = new StringBuilder(bodyContent.length() + 512);
 
-            htmlContent.append(getNoContentForPreviewText());
-        }
+        htmlContent.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\">");
+        htmlContent.append("<meta name=\"").append(SITE_INPUT_HASH_META).append("\" content=\"").append(inputHash).append("\">");
+        htmlContent.append("<title>").append(escape(title)).append("</title>");
+        htmlContent.append("<link rel=\"stylesheet\" href=\"").append(escape(stylesheetPath)).append("\">");
+        htmlContent.append("</head><body>\n");
+        htmlContent.append(bodyContent);
+        htmlContent.append("</body></html>");
 
         return htmlContent.toString();
     }
 
-    public static String getNoContentForPreviewText() {
+    private static String escape(String text) {
 
-        return "<h1>No content for preview</h1>";
+        return text == null ? "" : Escaping.escapeHtml(text, false);
     }
 }
@@ -0,0 +1,194 @@
+package cz.zcu.kiv.spac.html;
+
+import cz.zcu.kiv.spac.file.ContentHashRegistry;
+import cz.zcu.kiv.spac.image.ImageCache;
+import cz.zcu.kiv.spac.utils.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of HTML previews rendered from markdown content, shared by all windows.
+ * Previews are stored under hash of markdown content, so same content is rendered only once, no matter which antipattern
+ * or window it belongs to. Cache is bounded by total size of stored HTML, least recently used previews are evicted first.
+ * Cache can be used from multiple threads, rendering is done outside of lock.
+ * Preview, whose image file was changed since preview was rendered, is rendered again.
+ */
+public class HTMLPreviewCache {
+
+    // Maximum size of stored HTML previews (characters are counted as 2 bytes).
+    private static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    // Hash of markdown content -> rendered preview, in access order.
+    private static final Map<String, Preview> previews = new LinkedHashMap<>(64, 0.75f, true);
+
+    private static long bytes = 0;
+
+    /**
+     * Get HTML preview of markdown content, preview is rendered if it is not in cache.
+     * @param markdownContent - Markdown content.
+     * @param renderer - Renderer of HTML from markdown content.
+     * @return HTML content.
+     */
+    public static String getHTMLContent(String markdownContent, Function<String, String> renderer) {
+
+        String key = createKey(markdownContent);
+        Preview preview = get(key);
+
+        if (preview != null && isCurrent(preview)) {
+
+            Metrics.increment(Metrics.HTML_PREVIEW_CACHE_HITS);
+            return preview.htmlContent;
+        }
+
+        Metrics.increment(Metrics.HTML_PREVIEW_CACHE_MISSES);
+
+        List<Path> images = new ArrayList<>();
+        String htmlContent = ImageLinkResolver.renderCollectingImages(() -> renderer.apply(markdownContent), images);
+        put(key, new Preview(htmlContent, images));
+
+        return htmlContent;
+    }
+
+    /**
+     * Check if HTML preview of markdown content is in cache. Order of previews is not changed.
+     * @param markdownContent - Markdown content.
+     * @return True if preview is in cache.
+     */
+    public static boolean contains(String markdownContent) {
+
+        String key = createKey(markdownContent);
+
+        synchronized (previews) {
+
+            return previews.containsKey(key);
+        }
+    }
+
+    /**
+     * Remove all previews, e.g. after paths of images were changed.
+     */
+    public static void clear() {
+
+        synchronized (previews) {
+
+            previews.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Remove previews, which contain text, e.g. URI of image, which should be shown differently.
+     * @param text - Text.
+     */
+    public static void removeContaining(String text) {
+
+        synchronized (previews) {
+
+            Iterator<Map.Entry<String, Preview>> iterator = previews.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+
+                Map.Entry<String, Preview> preview = iterator.next();
+
+                if (preview.getValue().htmlContent.contains(text)) {
+
+                    bytes -= getSize(preview.getKey(), preview.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if images shown in preview were not changed since preview was rendered.
+     * @param preview - Preview.
+     * @return True if all images are current.
+     */
+    private static boolean isCurrent(Preview preview) {
+
+        for (Path image : preview.images) {
+
+            if (!ImageCache.isCurrent(image)) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Preview get(String key) {
+
+        synchronized (previews) {
+
+            return previews.get(key);
+        }
+    }
+
+    private static void put(String key, Preview preview) {
+
+        long size = getSize(key, preview);
+
+        // Preview larger than whole cache would evict everything else.
+        if (size > MAX_BYTES) {
+
+            return;
+        }
+
+        synchronized (previews) {
+
+            Preview previous = previews.put(key, preview);
+
+            if (previous != null) {
+
+                bytes -= getSize(key, previous);
+            }
+
+            bytes += size;
+
+            Iterator<Map.Entry<String, Preview>> iterator = previews.entrySet().iterator();
+
+            while (bytes > MAX_BYTES && iterator.hasNext()) {
+
+                Map.Entry<String, Preview> eldest = iterator.next();
+
+                bytes -= getSize(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+
+                Metrics.increment(Metrics.HTML_PREVIEW_CACHE_EVICTIONS);
+            }
+        }
+    }
+
+    private static String createKey(String markdownContent) {
+
+        return ContentHashRegistry.toHex(ContentHashRegistry.hash(markdownContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static long getSize(String key, Preview preview) {
+
+        return 2L * (key.length() + preview.htmlContent.length());
+    }
+
+    /**
+     * Rendered preview with paths of image files shown in it.
+     */
+    private static class Preview {
+
+        private final String htmlContent;
+        private final List<Path> images;
+
+        private Preview(String htmlContent, List<Path> images) {
+
+            this.htmlContent = htmlContent;
+            this.images = images;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cz.zcu.kiv.spac.html;
+
+import com.vladsch.flexmark.html.IndependentLinkResolverFactory;
+import com.vladsch.flexmark.html.LinkResolver;
+import com.vladsch.flexmark.html.renderer.LinkResolverBasicContext;
+import com.vladsch.flexmark.html.renderer.LinkStatus;
+import com.vladsch.flexmark.html.renderer.LinkType;
+import com.vladsch.flexmark.html.renderer.ResolvedLink;
+import com.vladsch.flexmark.util.ast.Node;
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.image.ImageCache;
+import cz.zcu.kiv.spac.utils.Utils;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Link resolver for HTML preview, which maps paths of images relative to catalogue folder to file URIs,
+ * so images are displayed in web view. Links are resolved while HTML is rendered, path of every image is created only once.
+ * Large images are replaced by downscaled images from ImageCache, previews with source image are removed from
+ * HTMLPreviewCache when downscaled image is created and previews with changed image are removed when change is detected.
+ */
+public class ImageLinkResolver implements LinkResolver {
+
+    // Image files, which are shown in preview.
+    private static final Pattern IMAGE_PATTERN = Pattern.compile(".*\\.(png|jpg|jpeg|tiff|tif|bmp|gif|eps|raw|cr2|nef|orf|sr2)", Pattern.CASE_INSENSITIVE);
+
+    // Absolute URLs (http:, file:, data:, ...) are not changed.
+    private static final Pattern SCHEME_PATTERN = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+
+    // Image path -> path of image file.
+    private static final Map<String, Path> filePaths = new ConcurrentHashMap<>();
+
+    // Paths of image files resolved while rendering on current thread.
+    private static final ThreadLocal<List<Path>> resolvedImages = new ThreadLocal<>();
+
+    static {
+
+        ImageCache.addChangeListener(HTMLPreviewCache::removeContaining);
+    }
+
+    /**
+     * Render HTML and collect paths of image files, which are shown in rendered HTML.
+     * @param renderer - Renderer of HTML.
+     * @param images - List, to which paths of image files are added.
+     * @return Rendered HTML.
+     */
+    static String renderCollectingImages(Supplier<String> renderer, List<Path> images) {
+
+        List<Path> previous = resolvedImages.get();
+        resolvedImages.set(images);
+
+        try {
+
+            return renderer.get();
+
+        } finally {
+
+            resolvedImages.set(previous);
+        }
+    }
+
+    @Override
+    public ResolvedLink resolveLink(Node node, LinkResolverBasicContext context, ResolvedLink link) {
+
+        if (link.getLinkType() != LinkType.IMAGE) {
+
+            return link;
+        }
+
+        String url = link.getUrl();
+
+        if (!isImagePath(url) || isAbsoluteURL(url)) {
+
+            return link;
+        }
+
+        Path filePath = filePaths.computeIfAbsent(url, ImageLinkResolver::createFilePath);
+        List<Path> images = resolvedImages.get();
+
+        if (images != null) {
+
+            images.add(filePath);
+        }
+
+        return link.withStatus(LinkStatus.VALID).withUrl(ImageCache.getImageURI(filePath));
+    }
+
+    /**
+     * Check if path is path of image file.
+     * @param path - Path or URL.
+     * @return True if path has extension of image.
+     */
+    public static boolean isImagePath(String path) {
+
+        return IMAGE_PATTERN.matcher(path).matches();
+    }
+
+    /**
+     * Check if URL contains scheme (http:, file:, data:, ...), so it is not relative path.
+     * @param url - URL.
+     * @return True if URL is absolute.
+     */
+    public static boolean isAbsoluteURL(String url) {
+
+        return SCHEME_PATTERN.matcher(url).matches();
+    }
+
+    /**
+     * Create path of image file.
+     * @param imagePath - Path of image relative to catalogue folder.
+     * @return Path of image file.
+     */
+    private static Path createFilePath(String imagePath) {
+
+        return new File(Utils.getAntipatternFolderPath() + Constants.CATALOGUE_FOLDER + "/" + imagePath).toPath();
+    }
+
+    /**
+     * Factory of resolver for HTML renderer.
+     */
+    public static class Factory extends IndependentLinkResolverFactory {
+
+        @Override
+        public LinkResolver apply(LinkResolverBasicContext context) {
+
+            return new ImageLinkResolver();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package cz.zcu.kiv.spac.html;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Background rendering of HTML previews, which will be probably shown next (e.g. neighbours of selected list entry).
+ * Previews are rendered one by one on single low-priority thread and stored in HTMLPreviewCache,
+ * so showing them later is only cache lookup. New request cancels previews of previous request, which were not rendered yet.
+ */
+public class PreviewPrefetcher {
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(PreviewPrefetcher.class);
+
+    private final Function<String, String> renderer;
+
+    private ExecutorService executor;
+    private Future<?> task;
+
+    /**
+     * Constructor.
+     * @param renderer - Renderer of HTML from markdown content, which stores rendered preview in HTMLPreviewCache.
+     */
+    public PreviewPrefetcher(Function<String, String> renderer) {
+
+        this.renderer = renderer;
+    }
+
+    /**
+     * Render previews in background, previews of previous call, which were not rendered yet, are cancelled.
+     * @param markdownContents - Markdown contents in order of priority.
+     */
+    public synchronized void prefetch(List<String> markdownContents) {
+
+        if (task != null) {
+
+            task.cancel(true);
+        }
+
+        List<String> contents = new ArrayList<>();
+
+        for (String markdownContent : markdownContents) {
+
+            if (markdownContent != null && !HTMLPreviewCache.contains(markdownContent)) {
+
+                contents.add(markdownContent);
+            }
+        }
+
+        if (contents.isEmpty()) {
+
+            task = null;
+            return;
+        }
+
+        if (executor == null) {
+
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+
+                Thread thread = new Thread(runnable, "preview-prefetch");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+
+        task = executor.submit(() -> {
+
+            for (String markdownContent : contents) {
+
+                if (Thread.currentThread().isInterrupted()) {
+
+                    return;
+                }
+
+                try {
+
+                    renderer.apply(markdownContent);
+
+                } catch (Exception e) {
+
+                    log.debug("Preview was not prefetched: " + e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,475 @@
+package cz.zcu.kiv.spac.image;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.file.ContentHashRegistry;
+import cz.zcu.kiv.spac.utils.Metrics;
+import cz.zcu.kiv.spac.utils.Utils;
+import javafx.scene.image.Image;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Cache of images shown in previews and rich text editor.
+ * Images wider than display width are downscaled once on background thread and stored in disk cache under hash
+ * of image file, so same image is decoded in full resolution only once, even after restart of application.
+ * Until downscaled image is ready, source image is used. Images decoded for rich text editor are stored in memory cache,
+ * which is bounded by size of decoded pixels, least recently used images are evicted first.
+ * Source images are compared with their state during analysis, changed image is removed from caches and analysed again.
+ */
+public class ImageCache {
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(ImageCache.class);
+
+    // Maximum width of shown images.
+    public static final int DISPLAY_WIDTH = 800;
+
+    // Maximum size of decoded images in memory (4 bytes per pixel).
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String VARIANT_FORMAT = "png";
+
+    // Path of source image -> analysed source image.
+    private static final Map<Path, SourceImage> sources = new ConcurrentHashMap<>();
+
+    // Paths of source images, which are analysed right now.
+    private static final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    // URI of shown image -> decoded image, in access order.
+    private static final Map<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+
+    private static final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private static long bytes = 0;
+
+    private static ExecutorService executor;
+
+    /**
+     * Get URI of image, which should be shown instead of source image.
+     * If source image was not analysed yet (or it was changed), it is analysed in background and URI of source image is returned.
+     * @param source - Path of source image.
+     * @return File URI of downscaled image if source image is wider than display width, file URI of source image otherwise.
+     */
+    public static String getImageURI(Path source) {
+
+        source = source.toAbsolutePath().normalize();
+        SourceImage sourceImage = getSourceImage(source);
+
+        if (sourceImage == null) {
+
+            analyseInBackground(source);
+            return createURI(source);
+        }
+
+        return createURI(sourceImage.displayPath);
+    }
+
+    /**
+     * Get decoded image for rich text editor. Image is decoded on background thread and it is not wider than display width.
+     * @param source - Path of source image.
+     * @return Image.
+     */
+    public static Image getImage(Path source) {
+
+        source = source.toAbsolutePath().normalize();
+        String uri = getImageURI(source);
+
+        synchronized (images) {
+
+            Image image = images.get(uri);
+
+            if (image != null) {
+
+                Metrics.increment(Metrics.IMAGE_CACHE_HITS);
+                return image;
+            }
+        }
+
+        Metrics.increment(Metrics.IMAGE_CACHE_MISSES);
+
+        // Source image, which was not analysed yet, is downscaled while it is decoded.
+        int width = uri.equals(createURI(source)) ? readWidth(source) : -1;
+        Image image = width > DISPLAY_WIDTH ? new Image(uri, DISPLAY_WIDTH, 0, true, true, true) : new Image(uri, true);
+
+        if (image.getProgress() >= 1) {
+
+            put(uri, image);
+
+        } else {
+
+            image.progressProperty().addListener((observable, oldValue, newValue) -> {
+
+                if (newValue.doubleValue() >= 1 && !image.isError()) {
+
+                    put(uri, image);
+                }
+            });
+        }
+
+        return image;
+    }
+
+    /**
+     * Check if source image was not changed since it was analysed. Image, which was not analysed yet, is current.
+     * Changed image is removed from caches and listeners are notified.
+     * @param source - Path of source image.
+     * @return True if image was not changed.
+     */
+    public static boolean isCurrent(Path source) {
+
+        source = source.toAbsolutePath().normalize();
+
+        return !sources.containsKey(source) || getSourceImage(source) != null;
+    }
+
+    /**
+     * Add listener, which is notified with URI of image, which should not be shown anymore - URI of source image,
+     * when downscaled image was created, and URIs of source image and its downscaled image, when source image was changed.
+     * Listener is called from background thread or from thread, which requested changed image.
+     * @param listener - Listener.
+     */
+    public static void addChangeListener(Consumer<String> listener) {
+
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Get analysed source image, if source image was not changed since analysis.
+     * If source image was changed, images shown instead of it are removed from caches.
+     * @param source - Path of source image.
+     * @return Analysed source image or null.
+     */
+    private static SourceImage getSourceImage(Path source) {
+
+        SourceImage sourceImage = sources.get(source);
+
+        if (sourceImage == null) {
+
+            return null;
+        }
+
+        try {
+
+            if (Files.getLastModifiedTime(source).toMillis() == sourceImage.lastModified && Files.size(source) == sourceImage.size) {
+
+                return sourceImage;
+            }
+
+        } catch (IOException e) {
+
+            // Source image was deleted, it will be analysed again.
+        }
+
+        if (sources.remove(source, sourceImage)) {
+
+            String sourceURI = createURI(source);
+            String displayURI = createURI(sourceImage.displayPath);
+
+            synchronized (images) {
+
+                removeImage(sourceURI);
+                removeImage(displayURI);
+            }
+
+            notifyListeners(sourceURI);
+
+            if (!displayURI.equals(sourceURI)) {
+
+                notifyListeners(displayURI);
+            }
+        }
+
+        return null;
+    }
+
+    private static synchronized void analyseInBackground(Path source) {
+
+        if (!pending.add(source)) {
+
+            return;
+        }
+
+        if (executor == null) {
+
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+
+                Thread thread = new Thread(runnable, "image-cache");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+
+        executor.submit(() -> {
+
+            try {
+
+                analyse(source);
+
+            } catch (Exception e) {
+
+                log.warn("Image '" + source + "' cannot be analysed: " + e.getMessage());
+
+            } finally {
+
+                pending.remove(source);
+            }
+        });
+    }
+
+    /**
+     * Analyse source image and create downscaled image, if source image is wider than display width.
+     * Downscaled image is not created again, if it is already in disk cache.
+     * @param source - Path of source image.
+     * @throws IOException - Source image cannot be read or downscaled image cannot be written.
+     */
+    private static void analyse(Path source) throws IOException {
+
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+        byte[] content = Files.readAllBytes(source);
+
+        String hash = ContentHashRegistry.toHex(ContentHashRegistry.hash(content));
+        Path variant = getCacheFolder().resolve(hash + "-" + DISPLAY_WIDTH + "." + VARIANT_FORMAT);
+        Path displayPath = source;
+
+        if (Files.exists(variant)) {
+
+            displayPath = variant;
+
+        } else if (readWidth(content) > DISPLAY_WIDTH) {
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+
+            if (image != null) {
+
+                writeVariant(downscale(image, DISPLAY_WIDTH), variant);
+                displayPath = variant;
+            }
+        }
+
+        sources.put(source, new SourceImage(lastModified, content.length, displayPath));
+
+        if (displayPath != source) {
+
+            notifyListeners(createURI(source));
+        }
+    }
+
+    private static void notifyListeners(String uri) {
+
+        for (Consumer<String> listener : changeListeners) {
+
+            listener.accept(uri);
+        }
+    }
+
+    /**
+     * Downscale image to width, image is halved until it is less than twice wider than width, so quality is kept.
+     * @param image - Image.
+     * @param width - Width of downscaled image.
+     * @return Downscaled image.
+     */
+    private static BufferedImage downscale(BufferedImage image, int width) {
+
+        BufferedImage scaled = image;
+
+        while (scaled.getWidth() > width) {
+
+            int scaledWidth = Math.max(width, scaled.getWidth() / 2);
+            int scaledHeight = Math.max(1, (int) Math.round((double) image.getHeight() * scaledWidth / image.getWidth()));
+
+            BufferedImage next = new BufferedImage(scaledWidth, scaledHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = next.createGraphics();
+
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(scaled, 0, 0, scaledWidth, scaledHeight, null);
+            graphics.dispose();
+
+            scaled = next;
+        }
+
+        return scaled;
+    }
+
+    /**
+     * Write downscaled image to disk cache, image is written to temporary file first, so partially written image is never used.
+     * @param image - Downscaled image.
+     * @param variant - Path of downscaled image.
+     * @throws IOException - Image cannot be written.
+     */
+    private static void writeVariant(BufferedImage image, Path variant) throws IOException {
+
+        Files.createDirectories(variant.getParent());
+        Path temp = Files.createTempFile(variant.getParent(), variant.getFileName().toString(), ".tmp");
+
+        try {
+
+            if (!ImageIO.write(image, VARIANT_FORMAT, temp.toFile())) {
+
+                throw new IOException("No writer for format " + VARIANT_FORMAT + ".");
+            }
+
+            try {
+
+                Files.move(temp, variant, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+
+                Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } finally {
+
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void put(String uri, Image image) {
+
+        long size = getSize(image);
+
+        synchronized (images) {
+
+            Image previous = images.put(uri, image);
+
+            if (previous != null) {
+
+                bytes -= getSize(previous);
+            }
+
+            bytes += size;
+
+            Iterator<Map.Entry<String, Image>> iterator = images.entrySet().iterator();
+
+            // Image, which was just added, is kept even if it is larger than whole cache.
+            while (bytes > MAX_BYTES && images.size() > 1 && iterator.hasNext()) {
+
+                Map.Entry<String, Image> eldest = iterator.next();
+
+                bytes -= getSize(eldest.getValue());
+                iterator.remove();
+
+                Metrics.increment(Metrics.IMAGE_CACHE_EVICTIONS);
+            }
+        }
+    }
+
+    private static void removeImage(String uri) {
+
+        Image image = images.remove(uri);
+
+        if (image != null) {
+
+            bytes -= getSize(image);
+        }
+    }
+
+    /**
+     * Read width of image from its header, image is not decoded.
+     * @param source - Path of image.
+     * @return Width of image or -1 if image cannot be read.
+     */
+    private static int readWidth(Path source) {
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+
+            return readWidth(input);
+
+        } catch (IOException e) {
+
+            return -1;
+        }
+    }
+
+    private static int readWidth(byte[] content) throws IOException {
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+
+            return readWidth(input);
+        }
+    }
+
+    private static int readWidth(ImageInputStream input) throws IOException {
+
+        if (input == null) {
+
+            return -1;
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+
+        if (!readers.hasNext()) {
+
+            return -1;
+        }
+
+        ImageReader reader = readers.next();
+
+        try {
+
+            reader.setInput(input, true, true);
+            return reader.getWidth(0);
+
+        } finally {
+
+            reader.dispose();
+        }
+    }
+
+    private static long getSize(Image image) {
+
+        return 4L * (long) image.getWidth() * (long) image.getHeight();
+    }
+
+    private static String createURI(Path path) {
+
+        return path.toFile().toURI().toString();
+    }
+
+    private static Path getCacheFolder() {
+
+        return Paths.get(Utils.getRootDir(), Constants.IMAGE_CACHE_FOLDER).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Source image, which was analysed.
+     */
+    private static class SourceImage {
+
+        private final long lastModified;
+        private final long size;
+        private final Path displayPath;
+
+        private SourceImage(long lastModified, long size, Path displayPath) {
+
+            this.lastModified = lastModified;
+            this.size = size;
+            this.displayPath = displayPath;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package cz.zcu.kiv.spac.markdown;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
+import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
+import cz.zcu.kiv.spac.data.template.TableColumnField;
+import cz.zcu.kiv.spac.data.template.TableField;
+import cz.zcu.kiv.spac.data.template.TemplateField;
+import cz.zcu.kiv.spac.enums.AntipatternHeadingType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template compiled for generating of antipattern markdown content.
+ * Every text, which depends only on template (breadcrumb, headings, table headers, line breaks between fields),
+ * is prepared once, so generating of antipattern only fills heading values between prepared fragments.
+ * Plan is immutable and can be used from multiple threads.
+ */
+public class AntipatternRenderPlan {
+
+    // Breadcrumb before antipattern name.
+    private static final String PATH_FRAGMENT = "[Home](" + Constants.README_NAME + ") > [Catalogue](" + Constants.CATALOGUE_NAME + ") > ";
+
+    // Text between antipattern name in breadcrumb and antipattern name heading.
+    private static final String NAME_FRAGMENT = Constants.LINE_BREAKER_CRLF + Constants.LINE_BREAKER_CRLF + Constants.LINE_BREAKER_CRLF + "# ";
+
+    private static final String FIELD_SEPARATOR = Constants.LINE_BREAKER_CRLF + Constants.LINE_BREAKER_CRLF;
+
+    // Position -> field name, used for lookup of heading.
+    private final String[] fieldNames;
+
+    // Position -> heading of field with line breaks after it, null for first field (antipattern name).
+    private final String[] headingFragments;
+
+    // Position -> header of table with separator line, null if field is not table.
+    private final String[] tableHeaderFragments;
+
+    // Position -> text after field value.
+    private final String[] separators;
+
+    /**
+     * Constructor.
+     * @param fieldList - Template field list.
+     */
+    private AntipatternRenderPlan(List<TemplateField> fieldList) {
+
+        int size = fieldList.size();
+
+        this.fieldNames = new String[size];
+        this.headingFragments = new String[size];
+        this.tableHeaderFragments = new String[size];
+        this.separators = new String[size];
+
+        for (int i = 0; i < size; i++) {
+
+            TemplateField field = fieldList.get(i);
+
+            fieldNames[i] = field.getName();
+            separators[i] = i < size - 1 ? FIELD_SEPARATOR : "";
+
+            // First field is antipattern name, which is written without heading of field.
+            if (i == 0) {
+
+                continue;
+            }
+
+            StringBuilder heading = new StringBuilder("## ").append(field.getText());
+
+            if (!field.isRequired()) {
+
+                heading.append(Constants.TEMPLATE_FIELD_OPTIONAL_STRING);
+            }
+
+            headingFragments[i] = heading.append(Constants.LINE_BREAKER_CRLF).append(Constants.LINE_BREAKER_CRLF).toString();
+
+            if (field instanceof TableField) {
+
+                tableHeaderFragments[i] = createTableHeader((TableField) field);
+            }
+        }
+    }
+
+    /**
+     * Compile template fields into render plan.
+     * @param fieldList - Template field list.
+     * @return Render plan.
+     */
+    public static AntipatternRenderPlan compile(List<TemplateField> fieldList) {
+
+        return new AntipatternRenderPlan(fieldList);
+    }
+
+    /**
+     * Write antipattern markdown content.
+     * @param out - Output for markdown content.
+     * @param headings - Headings contains field definition and text.
+     * @param catalogue - Catalogue, relations to antipatterns in catalogue are written as links.
+     * @throws IOException - Writing error.
+     */
+    public void write(Appendable out, Map<String, AntipatternHeading> headings, Catalogue catalogue) throws IOException {
+
+        for (int i = 0; i < fieldNames.length; i++) {
+
+            AntipatternHeading antipatternHeading = headings.get(fieldNames[i]);
+
+            if (i == 0) {
+
+                String name = ((AntipatternTextHeading) antipatternHeading).getValue();
+
+                out.append(PATH_FRAGMENT).append(name).append(NAME_FRAGMENT).append(name);
+
+            } else {
+
+                out.append(headingFragments[i]);
+
+                if (antipatternHeading.getType() == AntipatternHeadingType.TEXT) {
+
+                    out.append(((AntipatternTextHeading) antipatternHeading).getValue());
+
+                } else if (antipatternHeading.getType() == AntipatternHeadingType.TABLE) {
+
+                    writeTableRows(out, i, (AntipatternTableHeading) antipatternHeading, catalogue);
+                }
+            }
+
+            out.append(separators[i]);
+        }
+    }
+
+    /**
+     * Write table header and relation rows.
+     * @param out - Output for markdown content.
+     * @param position - Position of field.
+     * @param tableHeading - Table heading.
+     * @param catalogue - Catalogue.
+     * @throws IOException - Writing error.
+     */
+    private void writeTableRows(Appendable out, int position, AntipatternTableHeading tableHeading, Catalogue catalogue) throws IOException {
+
+        if (tableHeaderFragments[position] == null) {
+
+            throw new IllegalStateException("Field '" + fieldNames[position] + "' is not table.");
+        }
+
+        out.append(tableHeaderFragments[position]);
+
+        for (AntipatternRelation relation : tableHeading.getRelations()) {
+
+            CatalogueRecord record = catalogue.getCatalogueRecordByAntipatternName(relation.getAntipattern());
+
+            if (record == null) {
+
+                out.append("|").append(relation.getAntipattern()).append("|").append(relation.getRelation());
+
+            } else {
+
+                out.append("|[").append(record.getAntipatternName()).append("](").
+                        append(record.getPath()).append(")|").append(relation.getRelation());
+                relation.setLinked(true);
+            }
+
+            out.append(Constants.LINE_BREAKER_CRLF);
+        }
+    }
+
+    /**
+     * Create markdown table header with column names and separator line.
+     * @param tableField - Table field.
+     * @return Table header.
+     */
+    private static String createTableHeader(TableField tableField) {
+
+        StringBuilder sb = new StringBuilder("|");
+
+        for (TableColumnField tableColumnField : tableField.getColumns()) {
+
+            sb.append(tableColumnField.getText()).append("|");
+        }
+
+        sb.append(Constants.LINE_BREAKER_CRLF).append("|");
+
+        for (int j = 0; j < tableField.getColumns().size(); j++) {
+
+            sb.append("---|");
+        }
+
+        return sb.append(Constants.LINE_BREAKER_CRLF).toString();
+    }
+}
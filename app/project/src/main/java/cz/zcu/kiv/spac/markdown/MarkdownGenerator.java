@@ -2,18 +2,14 @@ package cz.zcu.kiv.spac.markdown;
 
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
 import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
-import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
-import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
 import cz.zcu.kiv.spac.data.catalogue.Catalogue;
 import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
 import cz.zcu.kiv.spac.data.reference.Reference;
 import cz.zcu.kiv.spac.data.reference.References;
 import cz.zcu.kiv.spac.data.template.Template;
-import cz.zcu.kiv.spac.enums.AntipatternHeadingType;
-import cz.zcu.kiv.spac.data.template.TableColumnField;
-import cz.zcu.kiv.spac.data.template.TableField;
 import cz.zcu.kiv.spac.data.template.TemplateField;
 import cz.zcu.kiv.spac.file.FileWriter;
 import cz.zcu.kiv.spac.utils.Utils;
@@ -24,6 +20,8 @@ import org.jbibtex.Key;
 import org.jbibtex.Value;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -101,98 +99,52 @@ public class MarkdownGenerator {
     /**
      * Create antipattern markdown content from Form in antipattern window.
      * @param headings - Headings contains field definition and text.
-     * @param fieldList - Template field list.
+     * @param template - Template, its render plan is compiled only once.
      * @param catalogue - Catalogue.
      * @return Markdown content for antipattern.
      */
-    public static String createAntipatternMarkdownContent(Map<String, AntipatternHeading> headings, List<TemplateField> fieldList, Catalogue catalogue) {
-
-        StringBuilder sb = new StringBuilder();
-
-        // Add path to antipattern name.
-        sb.append("[Home](" + Constants.README_NAME + ") > [Catalogue](" + Constants.CATALOGUE_NAME + ") > ");
-
-        boolean nameWrited = false;
-
-        int i = 0;
-
-        // Iterate through every template field to extract value for every field.
-        for (TemplateField field : fieldList) {
-
-            AntipatternHeading antipatternHeading = headings.get(field.getName());
-
-            // First, we need to write name, which is every time on first position.
-            if (!nameWrited) {
-
-                AntipatternTextHeading textHeading = (AntipatternTextHeading) antipatternHeading;
-
-                // Add antipatern name to path.
-                sb.append(textHeading.getValue());
-                sb.append(Constants.LINE_BREAKER_CRLF);
-                sb.append(Constants.LINE_BREAKER_CRLF);
-                sb.append(Constants.LINE_BREAKER_CRLF);
-
-                nameWrited = true;
-
-                // Antipattern name.
-                sb.append("# ");
-                sb.append(textHeading.getValue());
-
-            } else {
+    public static String createAntipatternMarkdownContent(Map<String, AntipatternHeading> headings, Template template, Catalogue catalogue) {
 
-                sb.append("## ");
-                sb.append(field.getText());
-
-                if (!field.isRequired()) {
-                    sb.append(Constants.TEMPLATE_FIELD_OPTIONAL_STRING);
-                }
-
-                sb.append(Constants.LINE_BREAKER_CRLF);
-                sb.append(Constants.LINE_BREAKER_CRLF);
-
-                // Check textarea and textfield.
-                if (antipatternHeading.getType() == AntipatternHeadingType.TEXT) {
-
-                    AntipatternTextHeading textHeading = (AntipatternTextHeading) antipatternHeading;
-                    sb.append(textHeading.getValue());
-
-                } else if (antipatternHeading.getType() == AntipatternHeadingType.TABLE) {
-
-                    AntipatternTableHeading tableHeading = (AntipatternTableHeading) antipatternHeading;
-                    TableField tableField = (TableField) field;
-
-                    sb.append(createTableHeaderMarkdownContent(tableField));
-
-                    for(AntipatternRelation relation : tableHeading.getRelations()) {
-
-                        CatalogueRecord record = catalogue.getCatalogueRecordByAntipatternName(relation.getAntipattern());
-
-                        if (record == null) {
-
-                            sb.append("|").append(relation.getAntipattern()).append("|").append(relation.getRelation());
-
-                        } else {
+        return createContent(out -> template.getRenderPlan().write(out, headings, catalogue));
+    }
 
-                            sb.append("|[").append(record.getAntipatternName()).append("](").
-                                    append(record.getPath()).append(")|").append(relation.getRelation());
-                            relation.setLinked(true);
-                        }
+    /**
+     * Create antipattern markdown content from Form in antipattern window.
+     * Field list is compiled for every call, so content of antipatterns from template should be created with template.
+     * @param headings - Headings contains field definition and text.
+     * @param fieldList - Template field list.
+     * @param catalogue - Catalogue.
+     * @return Markdown content for antipattern.
+     */
+    public static String createAntipatternMarkdownContent(Map<String, AntipatternHeading> headings, List<TemplateField> fieldList, Catalogue catalogue) {
 
-                        sb.append(Constants.LINE_BREAKER_CRLF);
-                    }
-                }
-            }
+        return createContent(out -> writeAntipatternMarkdownContent(out, headings, fieldList, catalogue));
+    }
 
-            if (i < fieldList.size() - 1) {
+    /**
+     * Write antipattern markdown content from Form in antipattern window.
+     * @param out - Output for markdown content.
+     * @param headings - Headings contains field definition and text.
+     * @param template - Template, its render plan is compiled only once.
+     * @param catalogue - Catalogue.
+     * @throws IOException - Writing error.
+     */
+    public static void writeAntipatternMarkdownContent(Appendable out, Map<String, AntipatternHeading> headings, Template template, Catalogue catalogue) throws IOException {
 
-                sb.append(Constants.LINE_BREAKER_CRLF);
-                sb.append(Constants.LINE_BREAKER_CRLF);
-            }
+        template.getRenderPlan().write(out, headings, catalogue);
+    }
 
-            i++;
-        }
+    /**
+     * Write antipattern markdown content from Form in antipattern window.
+     * @param out - Output for markdown content.
+     * @param headings - Headings contains field definition and text.
+     * @param fieldList - Template field list.
+     * @param catalogue - Catalogue.
+     * @throws IOException - Writing error.
+     */
+    public static void writeAntipatternMarkdownContent(Appendable out, Map<String, AntipatternHeading> headings, List<TemplateField> fieldList, Catalogue catalogue) throws IOException {
 
-        return sb.toString();
+        AntipatternRenderPlan.compile(fieldList).write(out, headings, catalogue);
     }
 
     /**
@@ -208,117 +160,190 @@ public class MarkdownGenerator {
 
         if (relations != null) {
 
+            boolean linked = false;
+
             for (AntipatternRelation relation : relations) {
 
                 if (!relation.isLinked() && catalogue.isAntipatternPresentedInCatalogue(relation.getAntipattern())) {
 
-                    String content = createAntipatternMarkdownContent(antipattern.getAntipatternHeadings(), template.getFieldList(), catalogue);
-                    FileWriter.write(new File(Utils.createMarkdownFilename(antipattern)), content);
                     relation.setLinked(true);
-                    antipattern.setContent(content);
+                    linked = true;
                 }
             }
+
+            // Content does not depend on linked flags, so file is written once for all newly linked relations.
+            if (linked) {
+
+                String content = createAntipatternMarkdownContent(antipattern.getAntipatternHeadings(), template, catalogue);
+                FileWriter.write(new File(Utils.createMarkdownFilename(antipattern)), content);
+                antipattern.setContent(content);
+            }
         }
     }
 
 
     /**
-     * Create markdown table header.
-     * @param tableField - Table field.
-     * @return Table header in markdown.
+     * Create markdown catalogue content.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Antipatterns
+     * @return Markdown content for catalogue.
      */
-    private static String createTableHeaderMarkdownContent(TableField tableField) {
+    public static String createCatalogueMarkdownContent(Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) {
 
-        StringBuilder sb = new StringBuilder();
+        return createContent(out -> writeCatalogueMarkdownContent(out, catalogue, antipatterns));
+    }
+
+    /**
+     * Write markdown catalogue content.
+     * @param out - Output for markdown content.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Antipatterns
+     * @throws IOException - Writing error.
+     */
+    public static void writeCatalogueMarkdownContent(Appendable out, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns) throws IOException {
 
-        sb.append("|");
+        writeCatalogueHeaderMarkdownContent(out);
 
-        // Append column names.
-        for (TableColumnField tableColumnField : tableField.getColumns()) {
+        for (String key : catalogue.getCatalogueRecords().keySet()) {
 
-            sb.append(tableColumnField.getText()).append("|");
+            writeCatalogueSectionMarkdownContent(out, catalogue, key, antipatterns);
         }
+    }
 
-        sb.append(Constants.LINE_BREAKER_CRLF);
-        sb.append("|");
+    /**
+     * Create markdown content of catalogue header (content before first catalogue instance).
+     * @return Markdown content of catalogue header.
+     */
+    public static String createCatalogueHeaderMarkdownContent() {
 
-        // Append column separators.
-        for (int j = 0; j < tableField.getColumns().size(); j++) {
+        return createContent(MarkdownGenerator::writeCatalogueHeaderMarkdownContent);
+    }
 
-            sb.append("---|");
-        }
+    /**
+     * Write markdown content of catalogue header (content before first catalogue instance).
+     * @param out - Output for markdown content.
+     * @throws IOException - Writing error.
+     */
+    public static void writeCatalogueHeaderMarkdownContent(Appendable out) throws IOException {
 
-        sb.append(Constants.LINE_BREAKER_CRLF);
+        out.append("[Home](").append(Utils.getFilenameFromStringPath(Constants.README_NAME)).append(") > Catalogue");
+        out.append(Constants.LINE_BREAKER_CRLF);
+
+        out.append("# ").append(Constants.APP_NAME);
+        out.append(Constants.LINE_BREAKER_CRLF);
+        out.append(Constants.LINE_BREAKER_CRLF);
+
+        out.append("[Template](").append(Constants.CATALOGUE_FOLDER).append("/").append(Constants.TEMPLATE_FILE).append(") for new anti-pattern contents.");
+        out.append(Constants.LINE_BREAKER_CRLF);
+        out.append(Constants.LINE_BREAKER_CRLF);
+        out.append(Constants.LINE_BREAKER_CRLF);
+    }
+
+    /**
+     * Create markdown content of catalogue manifest, which lists shards of sharded catalogue.
+     * @param keys - Keys of catalogue instances.
+     * @return Markdown content of catalogue manifest.
+     */
+    public static String createCatalogueManifestMarkdownContent(Collection<String> keys) {
+
+        StringBuilder sb = new StringBuilder(createCatalogueHeaderMarkdownContent());
+
+        for (String key : keys) {
+
+            sb.append("- [").append(key).append("](").append(Utils.createCatalogueShardFilename(key)).append(")");
+            sb.append(Constants.LINE_BREAKER_CRLF);
+        }
 
         return sb.toString();
     }
 
     /**
-     * Create markdown catalogue content.
+     * Create markdown content of one catalogue instance ('## A' with all its records).
      * @param catalogue - Catalogue.
+     * @param key - Key of catalogue instance.
      * @param antipatterns - Antipatterns
-     * @return Markdown content for catalogue.
+     * @return Markdown content of catalogue instance.
      */
-    public static String createCatalogueMarkdownContent(Catalogue catalogue, Map<String, Antipattern> antipatterns) {
+    public static String createCatalogueSectionMarkdownContent(Catalogue catalogue, String key, Map<AntipatternKey, Antipattern> antipatterns) {
 
-        StringBuilder sb = new StringBuilder();
+        return createContent(out -> writeCatalogueSectionMarkdownContent(out, catalogue, key, antipatterns));
+    }
 
-        Map<String, List<CatalogueRecord>> catalogueRecordMap = catalogue.getCatalogueRecords();
+    /**
+     * Write markdown content of one catalogue instance ('## A' with all its records).
+     * @param out - Output for markdown content.
+     * @param catalogue - Catalogue.
+     * @param key - Key of catalogue instance.
+     * @param antipatterns - Antipatterns
+     * @throws IOException - Writing error.
+     */
+    public static void writeCatalogueSectionMarkdownContent(Appendable out, Catalogue catalogue, String key, Map<AntipatternKey, Antipattern> antipatterns) throws IOException {
 
-        sb.append("[Home](").append(Utils.getFilenameFromStringPath(Constants.README_NAME)).append(") > Catalogue");
-        sb.append(Constants.LINE_BREAKER_CRLF);
+        List<CatalogueRecord> recordList = catalogue.getCatalogueInstance(key);
 
-        sb.append("# " + Constants.APP_NAME);
-        sb.append(Constants.LINE_BREAKER_CRLF);
-        sb.append(Constants.LINE_BREAKER_CRLF);
+        out.append("## ").append(key);
+        out.append(Constants.LINE_BREAKER_CRLF);
 
-        sb.append("[Template](" + Constants.CATALOGUE_FOLDER + "/" + Constants.TEMPLATE_FILE + ") for new anti-pattern contents.");
-        sb.append(Constants.LINE_BREAKER_CRLF);
-        sb.append(Constants.LINE_BREAKER_CRLF);
-        sb.append(Constants.LINE_BREAKER_CRLF);
+        for (CatalogueRecord record : recordList) {
 
-        for (String key : catalogueRecordMap.keySet()) {
+            if (record.getPath().equals("")) {
 
-            List<CatalogueRecord> recordList = catalogueRecordMap.get(key);
+                out.append(record.getAntipatternName());
 
-            sb.append("## ").append(key);
-            sb.append(Constants.LINE_BREAKER_CRLF);
+            } else {
 
-            for (CatalogueRecord record : recordList) {
+                Antipattern antipattern = antipatterns.get(AntipatternKey.of(record.getAntipatternName()));
 
-                if (record.getPath().equals("")) {
+                if (antipattern != null && antipattern.isLinking() && !catalogue.isAntipatternPresentedInCatalogue(antipattern.getName())) {
 
-                    sb.append(record.getAntipatternName());
+                    String linkedAntipatternName = Utils.getFilenameFromStringPath(antipattern.getPath());
+                    linkedAntipatternName = FilenameUtils.removeExtension(linkedAntipatternName);
+
+                    Antipattern linkedAntipattern = antipatterns.get(AntipatternKey.of(linkedAntipatternName));
+                    out.append(record.getAntipatternName()).append(" - _see [").append(linkedAntipattern.getName()).append("](").append(antipattern.getPath()).append(")_");
 
                 } else {
 
-                    String formattedName = Utils.formatAntipatternName(record.getAntipatternName());
-                    Antipattern antipattern = antipatterns.get(formattedName);
+                    out.append("[").append(record.getAntipatternName()).append("](").append(record.getPath()).append(")");
+                }
+            }
 
-                    if (antipattern != null && antipattern.isLinking() && !catalogue.isAntipatternPresentedInCatalogue(antipattern.getName())) {
+            out.append(Constants.LINE_BREAKER_CRLF);
+            out.append(Constants.LINE_BREAKER_CRLF);
+        }
+    }
 
-                        String linkedAntipatternName = Utils.getFilenameFromStringPath(antipattern.getPath());
-                        linkedAntipatternName = FilenameUtils.removeExtension(linkedAntipatternName);
-                        linkedAntipatternName = Utils.formatAntipatternName(linkedAntipatternName);
+    /**
+     * Create string content with markdown writer.
+     * @param markdownWriter - Markdown writer.
+     * @return Markdown content.
+     */
+    private static String createContent(MarkdownWriter markdownWriter) {
 
-                        Antipattern linkedAntipattern = antipatterns.get(linkedAntipatternName);
-                        sb.append(record.getAntipatternName()).append(" - _see [").append(linkedAntipattern.getName()).append("](").append(antipattern.getPath()).append(")_");
+        StringBuilder sb = new StringBuilder();
 
-                    } else {
+        try {
 
-                        sb.append("[").append(record.getAntipatternName()).append("](").append(record.getPath()).append(")");
-                    }
-                }
+            markdownWriter.write(sb);
 
-                sb.append(Constants.LINE_BREAKER_CRLF);
-                sb.append(Constants.LINE_BREAKER_CRLF);
-            }
+        } catch (IOException e) {
 
+            // StringBuilder does not throw IOException.
+            throw new UncheckedIOException(e);
         }
 
         return sb.toString();
     }
 
+    /**
+     * Writer of markdown content into output.
+     */
+    @FunctionalInterface
+    private interface MarkdownWriter {
+
+        void write(Appendable out) throws IOException;
+    }
+
     /**
      * Convert segment text to markdown text and apply styles.
      * @param text - Segment text.
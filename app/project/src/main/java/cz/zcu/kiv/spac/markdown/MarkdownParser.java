@@ -8,6 +8,7 @@ import com.vladsch.flexmark.ext.tables.TableBlock;
 import com.vladsch.flexmark.ext.tables.TableBody;
 import com.vladsch.flexmark.ext.tables.TableHead;
 import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.LinkResolverFactory;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.BlankLine;
 import com.vladsch.flexmark.util.ast.Node;
@@ -19,16 +20,18 @@ import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
 import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
 import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueLayout;
 import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
 import cz.zcu.kiv.spac.data.template.TemplateField;
 import cz.zcu.kiv.spac.enums.AntipatternHeadingType;
 import cz.zcu.kiv.spac.data.template.Template;
 import cz.zcu.kiv.spac.html.HTMLGenerator;
+import cz.zcu.kiv.spac.html.HTMLPreviewCache;
+import cz.zcu.kiv.spac.html.ImageLinkResolver;
 import cz.zcu.kiv.spac.utils.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.File;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -38,6 +41,15 @@ import java.util.regex.Pattern;
  */
 public class MarkdownParser {
 
+    // Table record with link to antipattern ([Name](path)).
+    private static final Pattern TABLE_RECORD_LINK_PATTERN = Pattern.compile("^\\[.*\\]\\(.*\\)$");
+
+    // Shard record in catalogue manifest (- [A](Antipatterns_catalogue_A.md)).
+    private static final Pattern CATALOGUE_MANIFEST_SHARD_PATTERN = Pattern.compile("^- \\[(.+?)\\]\\((.+?)\\).*$");
+
+    // Reference at start of line in references file.
+    private static final Pattern REFERENCE_KEY_PATTERN = Pattern.compile("^\\[([^\\[\\]]+)\\] ");
+
     private Template template;
 
     // Logger.
@@ -290,7 +302,7 @@ public class MarkdownParser {
      */
     public static String parseAntipatternFromTableRecord(String tableRecord) {
 
-        if (tableRecord.matches("^\\[.*\\]\\(.*\\)$")) {
+        if (isTableRecordLink(tableRecord)) {
 
             return tableRecord.substring(tableRecord.indexOf("[") + 1, tableRecord.indexOf("]"));
 
@@ -300,6 +312,16 @@ public class MarkdownParser {
         }
     }
 
+    /**
+     * Check if table record is link to antipattern ([Name](path)).
+     * @param tableRecord - Table record.
+     * @return True if table record is link, false otherwise.
+     */
+    public static boolean isTableRecordLink(String tableRecord) {
+
+        return TABLE_RECORD_LINK_PATTERN.matcher(tableRecord).matches();
+    }
+
     /**
      * Parse catalogue markdown content and create Catalogue object.
      * @param markdownContent - Catalogue markdown content.
@@ -329,6 +351,9 @@ public class MarkdownParser {
             String catalogueInstanceName = "";
             List<CatalogueRecord> records = null;
 
+            // Positions of catalogue instance headings, used for rewriting only changed instances.
+            Map<String, Integer> sectionOffsets = new LinkedHashMap<>();
+
             // Iterate through every child.
             for (Node node : document.getChildren()) {
 
@@ -361,155 +386,212 @@ public class MarkdownParser {
                         catalogueInstanceName = catalogueInstance.getFirstChild().getChars().toString();
                     }
 
+                    sectionOffsets.putIfAbsent(catalogueInstanceName, catalogueInstance.getStartOffset());
+
                 } else if (node.getClass() == Paragraph.class && parsingCatalogueInstance) {
 
                     // If node is paragraph + we are now iterating through antipattern list.
+                    CatalogueRecord record = parseCatalogueRecord(node);
 
-                    Node nodeCatalogueRecord = node.getFirstChild();
-                    Node nodeCatalogueRecordLast = node.getLastChild();
-
-                    if (nodeCatalogueRecord == null) {
+                    // Add new catalogue record.
+                    if (record != null) {
 
-                        continue;
+                        records.add(record);
                     }
+                }
+            }
 
-                    String antipatternName = "";
-                    String path = "";
+            // Add last instance to map - because last Node in catalogue file is paragraph, it is not added in heading part.
+            // It is added only once, so records of instance are not indexed in catalogue after every paragraph.
+            if (parsingCatalogueInstance) {
 
-                    if (nodeCatalogueRecord.getClass() == Link.class) {
+                catalogue.addCatalogueInstance(catalogueInstanceName, records);
+            }
 
-                        // If this node is Link, then extract name of antipattern + relative path to it.
-                        Link linkNode = (Link) nodeCatalogueRecord;
-                        antipatternName = linkNode.getText().toString();
-                        path = linkNode.getUrl().toString();
+            catalogue.setLayout(CatalogueLayout.create(markdownContent, sectionOffsets));
 
-                    } else if (nodeCatalogueRecord.getClass() == Text.class) {
+        } catch (Exception e) {
 
-                        // If this node is Text, then extract only name of antipattern.
-                        // It means that antipattern is still not created, only mentioned.
-                        Text textNode = (Text) nodeCatalogueRecord;
-                        antipatternName = textNode.getChars().toString();
-                        path = "";
+            return null;
+        }
 
-                        // Part, where is parsed record like "Antipattern name - see [Other antipattern](path/to/other antipattern).
-                        if (nodeCatalogueRecordLast != null && nodeCatalogueRecordLast.getClass() == Emphasis.class) {
+        return catalogue;
+    }
 
-                            for (Node emphasisChildNode : nodeCatalogueRecordLast.getChildren()) {
+    /**
+     * Parse catalogue record from paragraph in catalogue instance.
+     * @param node - Paragraph node.
+     * @return Catalogue record, null if paragraph is not catalogue record.
+     */
+    private CatalogueRecord parseCatalogueRecord(Node node) {
 
-                                if (emphasisChildNode.getClass() == Link.class) {
+        Node nodeCatalogueRecord = node.getFirstChild();
+        Node nodeCatalogueRecordLast = node.getLastChild();
 
-                                    Link emphasisLink = (Link) emphasisChildNode;
-                                    path = emphasisLink.getUrl().toString();
-                                }
-                            }
+        if (nodeCatalogueRecord == null) {
 
-                            antipatternName = antipatternName.replace(" - ", "");
-                        }
+            return null;
+        }
 
-                    } else {
+        String antipatternName = "";
+        String path = "";
 
-                        log.warn("Unexpected node '" + node.getClass() + "' in Antipattern catalogue.");
-                        continue;
-                    }
+        if (nodeCatalogueRecord.getClass() == Link.class) {
 
-                    // Add new catalogue record.
-                    records.add(new CatalogueRecord(antipatternName, path));
-                }
+            // If this node is Link, then extract name of antipattern + relative path to it.
+            Link linkNode = (Link) nodeCatalogueRecord;
+            antipatternName = linkNode.getText().toString();
+            path = linkNode.getUrl().toString();
+
+        } else if (nodeCatalogueRecord.getClass() == Text.class) {
 
-                // Add last instance to map - because last Node in catalogue file is paragraph, we need to do it right here
-                // not in heading part.
-                if (parsingCatalogueInstance) {
+            // If this node is Text, then extract only name of antipattern.
+            // It means that antipattern is still not created, only mentioned.
+            Text textNode = (Text) nodeCatalogueRecord;
+            antipatternName = textNode.getChars().toString();
+            path = "";
 
-                    catalogue.addCatalogueInstance(catalogueInstanceName, records);
+            // Part, where is parsed record like "Antipattern name - see [Other antipattern](path/to/other antipattern).
+            if (nodeCatalogueRecordLast != null && nodeCatalogueRecordLast.getClass() == Emphasis.class) {
+
+                for (Node emphasisChildNode : nodeCatalogueRecordLast.getChildren()) {
+
+                    if (emphasisChildNode.getClass() == Link.class) {
+
+                        Link emphasisLink = (Link) emphasisChildNode;
+                        path = emphasisLink.getUrl().toString();
+                    }
                 }
+
+                antipatternName = antipatternName.replace(" - ", "");
             }
 
-        } catch (Exception e) {
+        } else {
 
+            log.warn("Unexpected node '" + node.getClass() + "' in Antipattern catalogue.");
             return null;
         }
 
-        return catalogue;
+        return new CatalogueRecord(antipatternName, path);
     }
 
     /**
-     * Generate html content from markdown content.
-     * @param markdownContent - Markdown content.
-     * @return Html content.
+     * Parse records of one catalogue instance from catalogue shard ('## A' with records).
+     * @param markdownContent - Catalogue shard markdown content.
+     * @return List of catalogue records, null if shard cannot be parsed.
      */
-    public String generateHTMLContent(String markdownContent) {
+    public List<CatalogueRecord> parseCatalogueShard(String markdownContent) {
 
-        MutableDataHolder options = getDataOptions();
-        Parser parser = Parser.builder(options).build();
+        List<CatalogueRecord> records = new ArrayList<>();
 
-        // You can re-use parser and renderer instances
-        Node document = parser.parse(markdownContent);
-        String htmlContent = HTMLGenerator.generateHTMLContentFromMarkdown(options, document);
-        htmlContent = convertImagePathsToURI(htmlContent);
+        try {
 
-        return htmlContent;
+            MutableDataHolder options = getDataOptions();
+            Parser parser = Parser.builder(options).build();
+            Node document = parser.parse(markdownContent);
+
+            for (Node node : document.getChildren()) {
+
+                if (node.getClass() == Paragraph.class) {
+
+                    CatalogueRecord record = parseCatalogueRecord(node);
+
+                    if (record != null) {
+
+                        records.add(record);
+                    }
+                }
+            }
+
+        } catch (Exception e) {
+
+            return null;
+        }
+
+        return records;
     }
 
     /**
-     * Convert image paths to URI to display image in html.
-     * @param htmlContent - Html content.
-     * @return Converted image paths in html content.
+     * Parse keys of references from references markdown content ([CUN'10] Cunningham, Ward (2010). ...).
+     * @param markdownContent - References markdown content.
+     * @return Set of reference keys.
      */
-    private String convertImagePathsToURI(String htmlContent) {
+    public static Set<String> parseReferenceKeys(String markdownContent) {
+
+        Set<String> keys = new HashSet<>();
 
-        List<String> imagesInHtml = new ArrayList<>();
-        Map<String, String> srcAttributes = new HashMap<>();
+        for (String line : Utils.parseStringByLines(markdownContent)) {
 
-        Pattern pattern = Pattern.compile("<img src=\\\"(.*)\\\" alt=\\\"(.*)\\\"( *)\\/>");
-        Matcher matcher = pattern.matcher(htmlContent);
+            Matcher matcher = REFERENCE_KEY_PATTERN.matcher(line);
 
-        // <img src="bro.png" alt="bro" />
-        while (matcher.find()) {
+            if (matcher.find()) {
 
-            imagesInHtml.add(matcher.group());
+                keys.add(matcher.group(1));
+            }
         }
 
-        pattern = Pattern.compile("src=\\\"(.*)\\.(png|jpg|jpeg|tiff|tif|bmp|gif|eps|raw|cr2|nef|orf|sr2)\\\"");
-        matcher = pattern.matcher(htmlContent);
+        return keys;
+    }
 
-        // src="bro.png"
-        while (matcher.find()) {
+    /**
+     * Parse catalogue manifest, which contains list of catalogue shards.
+     * @param markdownContent - Catalogue manifest markdown content.
+     * @return Map of catalogue instance keys and shard filenames in order of manifest.
+     */
+    public static Map<String, String> parseCatalogueManifest(String markdownContent) {
 
-            // src="bro.png"
-            String srcAttribute = matcher.group();
+        Map<String, String> shards = new LinkedHashMap<>();
 
-            // bro.png
-            String imagePath = srcAttribute.substring(0, srcAttribute.length() - 1).replace("src=\"", "");
+        for (String line : Utils.parseStringByLines(markdownContent)) {
 
-            // Get full path of image.
-            imagePath = Utils.getAntipatternFolderPath() + Constants.CATALOGUE_FOLDER + "/" + imagePath;
+            Matcher matcher = CATALOGUE_MANIFEST_SHARD_PATTERN.matcher(line.trim());
 
-            File imageFile = new File(imagePath);
+            if (matcher.matches()) {
 
-            if (imageFile != null) {
+                shards.put(matcher.group(1), matcher.group(2));
+            }
+        }
 
-                // Add html src attribute.
-                imagePath = "src=\"" + imageFile.toURI()  + "\"";
+        return shards;
+    }
 
-            } else {
+    /**
+     * Generate html content from markdown content.
+     * Html content is taken from preview cache shared by all windows, so same content is rendered only once.
+     * @param markdownContent - Markdown content.
+     * @return Html content.
+     */
+    public String generateHTMLContent(String markdownContent) {
 
-                // Add html src attribute.
-                imagePath = "src=\"" + imagePath + "\"";
-                log.warn("Image '" + imagePath + "' was not loaded, because it did not exists on this path.");
-            }
+        return HTMLPreviewCache.getHTMLContent(markdownContent, this::renderHTMLContent);
+    }
 
-            srcAttributes.put(srcAttribute, imagePath);
-        }
+    /**
+     * Render html content from markdown content.
+     * @param markdownContent - Markdown content.
+     * @return Html content.
+     */
+    private String renderHTMLContent(String markdownContent) {
+
+        // Image paths are converted to URIs while html is rendered, so images are displayed in html.
+        return generateHTMLContent(markdownContent, new ImageLinkResolver.Factory());
+    }
 
-        // Replace all old image html tags with new one (where image paths is represented as URI).
-        for (String srcAttributeBefore : srcAttributes.keySet()) {
+    /**
+     * Generate html content from markdown content without preview cache, links are resolved by given link resolver.
+     * @param markdownContent - Markdown content.
+     * @param linkResolverFactory - Factory of link resolver.
+     * @return Html content.
+     */
+    public String generateHTMLContent(String markdownContent, LinkResolverFactory linkResolverFactory) {
 
-            String srcAttributeWithUrlPath = srcAttributes.get(srcAttributeBefore);
+        MutableDataHolder options = getDataOptions();
+        Parser parser = Parser.builder(options).build();
 
-            htmlContent = htmlContent.replaceAll(srcAttributeBefore, srcAttributeWithUrlPath);
-        }
+        // You can re-use parser and renderer instances
+        Node document = parser.parse(markdownContent);
 
-        return htmlContent;
+        return HTMLGenerator.generateHTMLContentFromMarkdown(options, document, linkResolverFactory);
     }
 
     /**
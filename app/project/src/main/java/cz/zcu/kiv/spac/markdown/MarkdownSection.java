@@ -0,0 +1,174 @@
+package cz.zcu.kiv.spac.markdown;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class representing part of markdown content, which starts with heading and ends before next heading.
+ * Sections are found by lines, so content does not have to be parsed by markdown parser.
+ */
+public class MarkdownSection {
+
+    private final int start;
+    private final int end;
+    private final int headingEnd;
+    private final int line;
+    private final int level;
+    private final String headingText;
+
+    /**
+     * Constructor.
+     * @param start - Offset of heading line.
+     * @param end - Offset after last character of section.
+     * @param headingEnd - Offset after heading line (including line break).
+     * @param line - Line of heading (0 = first line).
+     * @param level - Heading level (number of '#').
+     * @param headingText - Heading text without '#' and surrounding whitespaces.
+     */
+    private MarkdownSection(int start, int end, int headingEnd, int line, int level, String headingText) {
+
+        this.start = start;
+        this.end = end;
+        this.headingEnd = headingEnd;
+        this.line = line;
+        this.level = level;
+        this.headingText = headingText;
+    }
+
+    /**
+     * Split content into sections. Content before first heading is not part of any section,
+     * headings in fenced code blocks are ignored.
+     * @param content - Markdown content.
+     * @return List of sections in order of content.
+     */
+    public static List<MarkdownSection> split(String content) {
+
+        List<MarkdownSection> sections = new ArrayList<>();
+
+        boolean fenced = false;
+        int lineStart = 0;
+        int line = 0;
+
+        // Values of last found heading, its end is known when next heading is found.
+        int start = -1;
+        int headingEnd = 0;
+        int headingLine = 0;
+        int level = 0;
+        String headingText = null;
+
+        while (lineStart < content.length()) {
+
+            int lineEnd = content.indexOf('\n', lineStart);
+            int nextLineStart = lineEnd < 0 ? content.length() : lineEnd + 1;
+
+            if (lineEnd < 0) {
+
+                lineEnd = content.length();
+            }
+
+            int textStart = lineStart;
+
+            // Heading can be indented by up to 3 spaces.
+            while (textStart < lineEnd && textStart - lineStart < 3 && content.charAt(textStart) == ' ') {
+
+                textStart++;
+            }
+
+            int headingLevel = getHeadingLevel(content, textStart, lineEnd);
+
+            if (content.startsWith("```", textStart)) {
+
+                fenced = !fenced;
+
+            } else if (!fenced && headingLevel > 0) {
+
+                if (start >= 0) {
+
+                    sections.add(new MarkdownSection(start, lineStart, headingEnd, headingLine, level, headingText));
+                }
+
+                start = lineStart;
+                headingEnd = nextLineStart;
+                headingLine = line;
+                level = headingLevel;
+                headingText = content.substring(textStart + headingLevel, lineEnd).trim();
+            }
+
+            lineStart = nextLineStart;
+            line++;
+        }
+
+        if (start >= 0) {
+
+            sections.add(new MarkdownSection(start, content.length(), headingEnd, headingLine, level, headingText));
+        }
+
+        return sections;
+    }
+
+    /**
+     * Get level of ATX heading (1 - 6 '#' followed by whitespace or end of line).
+     * @param content - Markdown content.
+     * @param textStart - Start of line text (after indentation).
+     * @param lineEnd - End of line.
+     * @return Heading level, 0 if line is not heading.
+     */
+    private static int getHeadingLevel(String content, int textStart, int lineEnd) {
+
+        int level = 0;
+
+        while (textStart + level < lineEnd && content.charAt(textStart + level) == '#') {
+
+            level++;
+        }
+
+        if (level == 0 || level > 6) {
+
+            return 0;
+        }
+
+        int next = textStart + level;
+
+        return next == lineEnd || Character.isWhitespace(content.charAt(next)) ? level : 0;
+    }
+
+    public int getStart() {
+
+        return start;
+    }
+
+    public int getEnd() {
+
+        return end;
+    }
+
+    public int getHeadingEnd() {
+
+        return headingEnd;
+    }
+
+    public int getLine() {
+
+        return line;
+    }
+
+    public int getLevel() {
+
+        return level;
+    }
+
+    public String getHeadingText() {
+
+        return headingText;
+    }
+
+    /**
+     * Get content of section from markdown content.
+     * @param content - Markdown content, which was split.
+     * @return Section content.
+     */
+    public String getContent(String content) {
+
+        return content.substring(start, end);
+    }
+}
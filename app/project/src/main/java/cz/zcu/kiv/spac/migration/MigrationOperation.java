@@ -0,0 +1,41 @@
+package cz.zcu.kiv.spac.migration;
+
+import cz.zcu.kiv.spac.enums.MigrationOperationType;
+
+/**
+ * Class representing one change in antipattern file planned by template migration.
+ */
+public class MigrationOperation {
+
+    private final MigrationOperationType type;
+    private final String heading;
+    private final String description;
+
+    /**
+     * Constructor.
+     * @param type - Type of change.
+     * @param heading - Heading of changed section.
+     * @param description - Description of change.
+     */
+    public MigrationOperation(MigrationOperationType type, String heading, String description) {
+
+        this.type = type;
+        this.heading = heading;
+        this.description = description;
+    }
+
+    public MigrationOperationType getType() {
+
+        return type;
+    }
+
+    public String getHeading() {
+
+        return heading;
+    }
+
+    public String getDescription() {
+
+        return description;
+    }
+}
@@ -0,0 +1,59 @@
+package cz.zcu.kiv.spac.migration;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Class representing rewrite plan of one antipattern file.
+ */
+public class MigrationPlan {
+
+    private final File file;
+    private final List<MigrationOperation> operations;
+    private final String originalContent;
+    private final String migratedContent;
+
+    /**
+     * Constructor.
+     * @param file - Antipattern file.
+     * @param operations - Planned changes.
+     * @param originalContent - Current content of file.
+     * @param migratedContent - Content of file after migration.
+     */
+    public MigrationPlan(File file, List<MigrationOperation> operations, String originalContent, String migratedContent) {
+
+        this.file = file;
+        this.operations = operations;
+        this.originalContent = originalContent;
+        this.migratedContent = migratedContent;
+    }
+
+    public File getFile() {
+
+        return file;
+    }
+
+    public List<MigrationOperation> getOperations() {
+
+        return operations;
+    }
+
+    public String getOriginalContent() {
+
+        return originalContent;
+    }
+
+    public String getMigratedContent() {
+
+        return migratedContent;
+    }
+
+    /**
+     * Check if migration changes file.
+     * @return True if file content is changed.
+     */
+    public boolean isChanged() {
+
+        return !originalContent.equals(migratedContent);
+    }
+}
@@ -0,0 +1,131 @@
+package cz.zcu.kiv.spac.migration;
+
+import cz.zcu.kiv.spac.utils.JsonBuilder;
+import cz.zcu.kiv.spac.utils.Utils;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Class representing report of template migration.
+ */
+public class MigrationReport {
+
+    private final TemplateDiff diff;
+    private final List<MigrationPlan> plans;
+    private final File baseFolder;
+    private final boolean applied;
+    private final long durationNanos;
+    private final String created;
+
+    /**
+     * Constructor.
+     * @param diff - Differences between templates.
+     * @param plans - Rewrite plans of files.
+     * @param baseFolder - Folder, to which paths of files in report are relative.
+     * @param applied - True if plans were applied, false if migration was only dry run.
+     * @param durationNanos - Duration of migration in nanoseconds.
+     */
+    public MigrationReport(TemplateDiff diff, List<MigrationPlan> plans, File baseFolder, boolean applied, long durationNanos) {
+
+        this.diff = diff;
+        this.plans = plans;
+        this.baseFolder = baseFolder;
+        this.applied = applied;
+        this.durationNanos = durationNanos;
+        this.created = Utils.getCurrentDateInString();
+    }
+
+    public List<MigrationPlan> getPlans() {
+
+        return plans;
+    }
+
+    public boolean isApplied() {
+
+        return applied;
+    }
+
+    public double getDurationMillis() {
+
+        return durationNanos / 1_000_000.0;
+    }
+
+    /**
+     * Get number of files, which are changed by migration.
+     * @return Number of changed files.
+     */
+    public int getChangedFileCount() {
+
+        int count = 0;
+
+        for (MigrationPlan plan : plans) {
+
+            if (plan.isChanged()) {
+
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Create JSON content of report. Only files with planned operations are listed.
+     * @return JSON content.
+     */
+    public String toJson() {
+
+        JsonBuilder json = new JsonBuilder();
+        Path basePath = baseFolder.getAbsoluteFile().toPath().normalize();
+
+        json.beginObject();
+        json.name("created").value(created);
+        json.name("applied").value(applied);
+        json.name("files").value(plans.size());
+        json.name("changedFiles").value(getChangedFileCount());
+        json.name("durationMillis").value(getDurationMillis());
+        json.name("templateChanges").beginArray();
+
+        for (String change : diff.getChanges()) {
+
+            json.value(change);
+        }
+
+        json.endArray();
+        json.name("plans").beginArray();
+
+        for (MigrationPlan plan : plans) {
+
+            if (plan.getOperations().isEmpty()) {
+
+                continue;
+            }
+
+            Path path = plan.getFile().getAbsoluteFile().toPath().normalize();
+
+            json.beginObject();
+            json.name("file").value(basePath.relativize(path).toString().replace('\\', '/'));
+            json.name("changed").value(plan.isChanged());
+            json.name("operations").beginArray();
+
+            for (MigrationOperation operation : plan.getOperations()) {
+
+                json.beginObject();
+                json.name("type").value(operation.getType().name());
+                json.name("heading").value(operation.getHeading());
+                json.name("description").value(operation.getDescription());
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject();
+        }
+
+        json.endArray();
+        json.endObject();
+
+        return json.toString();
+    }
+}
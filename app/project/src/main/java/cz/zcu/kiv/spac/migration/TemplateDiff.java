@@ -0,0 +1,228 @@
+package cz.zcu.kiv.spac.migration;
+
+import cz.zcu.kiv.spac.data.template.TableColumnField;
+import cz.zcu.kiv.spac.data.template.TableField;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.data.template.TemplateField;
+
+import java.util.*;
+
+/**
+ * Differences between two versions of template. Fields are matched by field name,
+ * so field with changed text is renamed field, not removed and added field.
+ */
+public class TemplateDiff {
+
+    private final List<TemplateField> addedFields = new ArrayList<>();
+    private final List<TemplateField> removedFields = new ArrayList<>();
+    private final List<TemplateField> renamedFields = new ArrayList<>();
+    private final List<TemplateField> requiredChangedFields = new ArrayList<>();
+    private final List<TemplateField> movedFields = new ArrayList<>();
+    private final List<TemplateField> columnsChangedFields = new ArrayList<>();
+
+    // Field name -> field in old template.
+    private final Map<String, TemplateField> oldFields = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     * @param oldTemplate - Template, which antipatterns currently follow.
+     * @param newTemplate - Template, which antipatterns should follow after migration.
+     */
+    private TemplateDiff(Template oldTemplate, Template newTemplate) {
+
+        Map<String, TemplateField> newFields = new LinkedHashMap<>();
+
+        for (TemplateField field : oldTemplate.getFieldList()) {
+
+            oldFields.putIfAbsent(field.getName(), field);
+        }
+
+        for (TemplateField field : newTemplate.getFieldList()) {
+
+            newFields.putIfAbsent(field.getName(), field);
+        }
+
+        List<String> oldOrder = new ArrayList<>();
+        List<String> newOrder = new ArrayList<>();
+
+        for (TemplateField oldField : oldFields.values()) {
+
+            if (newFields.containsKey(oldField.getName())) {
+
+                oldOrder.add(oldField.getName());
+
+            } else {
+
+                removedFields.add(oldField);
+            }
+        }
+
+        for (TemplateField newField : newFields.values()) {
+
+            TemplateField oldField = oldFields.get(newField.getName());
+
+            if (oldField == null) {
+
+                addedFields.add(newField);
+                continue;
+            }
+
+            newOrder.add(newField.getName());
+
+            if (!oldField.getText().equals(newField.getText())) {
+
+                renamedFields.add(newField);
+            }
+
+            if (oldField.isRequired() != newField.isRequired()) {
+
+                requiredChangedFields.add(newField);
+            }
+
+            if (!getColumnTexts(oldField).equals(getColumnTexts(newField))) {
+
+                columnsChangedFields.add(newField);
+            }
+        }
+
+        // Field is moved, if its position among fields in both templates is changed.
+        for (int i = 0; i < newOrder.size(); i++) {
+
+            if (!newOrder.get(i).equals(oldOrder.get(i))) {
+
+                movedFields.add(newFields.get(newOrder.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Compare two versions of template.
+     * @param oldTemplate - Template, which antipatterns currently follow.
+     * @param newTemplate - Template, which antipatterns should follow after migration.
+     * @return Differences between templates.
+     */
+    public static TemplateDiff compare(Template oldTemplate, Template newTemplate) {
+
+        return new TemplateDiff(oldTemplate, newTemplate);
+    }
+
+    /**
+     * Get column texts of table field.
+     * @param field - Template field.
+     * @return List of column texts, empty list if field is not table.
+     */
+    static List<String> getColumnTexts(TemplateField field) {
+
+        List<String> columnTexts = new ArrayList<>();
+
+        if (field instanceof TableField) {
+
+            for (TableColumnField column : ((TableField) field).getColumns()) {
+
+                columnTexts.add(column.getText());
+            }
+        }
+
+        return columnTexts;
+    }
+
+    /**
+     * Get descriptions of all differences.
+     * @return List of descriptions.
+     */
+    public List<String> getChanges() {
+
+        List<String> changes = new ArrayList<>();
+
+        for (TemplateField field : addedFields) {
+
+            changes.add("Field '" + field.getName() + "' was added.");
+        }
+
+        for (TemplateField field : removedFields) {
+
+            changes.add("Field '" + field.getName() + "' was removed.");
+        }
+
+        for (TemplateField field : renamedFields) {
+
+            changes.add("Field '" + field.getName() + "' was renamed from '" + oldFields.get(field.getName()).getText() + "' to '" + field.getText() + "'.");
+        }
+
+        for (TemplateField field : requiredChangedFields) {
+
+            changes.add("Field '" + field.getName() + "' is " + (field.isRequired() ? "required" : "optional") + " now.");
+        }
+
+        for (TemplateField field : movedFields) {
+
+            changes.add("Field '" + field.getName() + "' was moved.");
+        }
+
+        for (TemplateField field : columnsChangedFields) {
+
+            changes.add("Columns of field '" + field.getName() + "' were changed from " + getColumnTexts(oldFields.get(field.getName()))
+                    + " to " + getColumnTexts(field) + ".");
+        }
+
+        return changes;
+    }
+
+    /**
+     * Check if templates are same.
+     * @return True if there is no difference.
+     */
+    public boolean isEmpty() {
+
+        return addedFields.isEmpty() && removedFields.isEmpty() && renamedFields.isEmpty()
+                && requiredChangedFields.isEmpty() && movedFields.isEmpty() && columnsChangedFields.isEmpty();
+    }
+
+    /**
+     * Check if columns of table field were changed.
+     * @param fieldName - Field name.
+     * @return True if columns were changed.
+     */
+    public boolean isColumnsChanged(String fieldName) {
+
+        for (TemplateField field : columnsChangedFields) {
+
+            if (field.getName().equals(fieldName)) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public List<TemplateField> getAddedFields() {
+
+        return addedFields;
+    }
+
+    public List<TemplateField> getRemovedFields() {
+
+        return removedFields;
+    }
+
+    public List<TemplateField> getRenamedFields() {
+
+        return renamedFields;
+    }
+
+    public List<TemplateField> getRequiredChangedFields() {
+
+        return requiredChangedFields;
+    }
+
+    public List<TemplateField> getMovedFields() {
+
+        return movedFields;
+    }
+
+    public List<TemplateField> getColumnsChangedFields() {
+
+        return columnsChangedFields;
+    }
+}
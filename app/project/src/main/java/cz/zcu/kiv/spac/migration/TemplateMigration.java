@@ -0,0 +1,473 @@
+package cz.zcu.kiv.spac.migration;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.template.TableColumnField;
+import cz.zcu.kiv.spac.data.template.TableField;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.data.template.TemplateField;
+import cz.zcu.kiv.spac.enums.MigrationOperationType;
+import cz.zcu.kiv.spac.file.BatchFileWriter;
+import cz.zcu.kiv.spac.file.FileLoader;
+import cz.zcu.kiv.spac.markdown.MarkdownSection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Migration of antipattern files from old version of template to new version.
+ * Every file is split into sections by headings and sections are matched to old template fields, then only changes between
+ * templates are applied: headings are renamed, sections are ordered by new template and newly required sections are added.
+ * Sections, which are not in new template, are kept after section, which precedes them. Files are only read while planning, so plans can be created in parallel
+ * and reviewed before they are applied.
+ */
+public class TemplateMigration {
+
+    // Optional suffix of heading in any letter case.
+    private static final Pattern OPTIONAL_SUFFIX_PATTERN = Pattern.compile("\\s*\\(optional\\)$", Pattern.CASE_INSENSITIVE);
+
+    // Separator line of markdown table, e.g. |---|---|.
+    private static final Pattern TABLE_SEPARATOR_PATTERN = Pattern.compile("^\\s*\\|?\\s*:?-+.*$");
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(TemplateMigration.class);
+
+    private final Template oldTemplate;
+    private final Template newTemplate;
+    private final TemplateDiff diff;
+
+    // Field name -> field in new template.
+    private final Map<String, TemplateField> newFields = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     * @param oldTemplate - Template, which antipatterns currently follow.
+     * @param newTemplate - Template, which antipatterns should follow after migration.
+     */
+    public TemplateMigration(Template oldTemplate, Template newTemplate) {
+
+        this.oldTemplate = oldTemplate;
+        this.newTemplate = newTemplate;
+        this.diff = TemplateDiff.compare(oldTemplate, newTemplate);
+
+        for (TemplateField field : newTemplate.getFieldList()) {
+
+            newFields.putIfAbsent(field.getName(), field);
+        }
+    }
+
+    public TemplateDiff getDiff() {
+
+        return diff;
+    }
+
+    /**
+     * Create rewrite plans for files in parallel.
+     * @param files - Antipattern files.
+     * @return Plans in order of files, files, which cannot be loaded, are skipped.
+     */
+    public List<MigrationPlan> planAll(List<File> files) {
+
+        return files.parallelStream()
+                .map(this::plan)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create rewrite plan for file.
+     * @param file - Antipattern file.
+     * @return Plan, null if file cannot be loaded.
+     */
+    public MigrationPlan plan(File file) {
+
+        String content = FileLoader.loadFileContent(file.getPath());
+
+        if (content == null) {
+
+            return null;
+        }
+
+        return plan(file, content);
+    }
+
+    /**
+     * Create rewrite plan for antipattern content.
+     * @param file - Antipattern file.
+     * @param content - Antipattern markdown content.
+     * @return Plan.
+     */
+    public MigrationPlan plan(File file, String content) {
+
+        List<MigrationOperation> operations = new ArrayList<>();
+        List<MarkdownSection> sections = MarkdownSection.split(content);
+
+        if (sections.isEmpty()) {
+
+            return new MigrationPlan(file, operations, content, content);
+        }
+
+        String lineBreak = content.contains(Constants.LINE_BREAKER_CRLF) ? Constants.LINE_BREAKER_CRLF : "\n";
+
+        // First section contains antipattern name, it stays on its place with content before it.
+        StringBuilder nameBlock = new StringBuilder(content.substring(0, sections.get(0).getEnd()));
+        String nameFieldName = newTemplate.getFieldList().isEmpty() ? null : newTemplate.getFieldList().get(0).getName();
+
+        // Field name -> section content with following unknown sections, in order of file.
+        Map<String, StringBuilder> blocks = new LinkedHashMap<>();
+        StringBuilder previousBlock = nameBlock;
+
+        for (int i = 1; i < sections.size(); i++) {
+
+            MarkdownSection section = sections.get(i);
+            String sectionContent = section.getContent(content);
+
+            // Subheadings belong to section above them.
+            if (section.getLevel() > 2) {
+
+                previousBlock.append(sectionContent);
+                continue;
+            }
+
+            String heading = section.getHeadingText();
+            String headingText = OPTIONAL_SUFFIX_PATTERN.matcher(heading).replaceFirst("");
+            TemplateField oldField = oldTemplate.getValidator().getField(headingText);
+            TemplateField field;
+
+            if (oldField != null) {
+
+                field = newFields.get(oldField.getName());
+
+            } else {
+
+                // File can already follow new template.
+                field = newTemplate.getValidator().getField(headingText);
+            }
+
+            if (field == null || field.getName().equals(nameFieldName) || blocks.containsKey(field.getName())) {
+
+                String reason = field == null && oldField != null ? "field was removed from template" : "heading is not in template";
+                operations.add(new MigrationOperation(MigrationOperationType.KEEP_UNKNOWN_SECTION, heading, "Section is kept, " + reason + "."));
+
+                previousBlock.append(sectionContent);
+                continue;
+            }
+
+            String expectedHeading = getHeading(field);
+
+            if (isHeadingChanged(field) && !isAcceptedHeading(heading, field)) {
+
+                int lineContentEnd = section.getHeadingEnd() - section.getStart();
+
+                while (lineContentEnd > 0 && (sectionContent.charAt(lineContentEnd - 1) == '\n' || sectionContent.charAt(lineContentEnd - 1) == '\r')) {
+
+                    lineContentEnd--;
+                }
+
+                sectionContent = "## " + expectedHeading + sectionContent.substring(lineContentEnd);
+                operations.add(new MigrationOperation(MigrationOperationType.RENAME_HEADING, heading, "Heading is renamed to '" + expectedHeading + "'."));
+            }
+
+            if (diff.isColumnsChanged(field.getName()) && field instanceof TableField) {
+
+                sectionContent = migrateTable(sectionContent, (TableField) field, lineBreak);
+                operations.add(new MigrationOperation(MigrationOperationType.CHANGE_TABLE_COLUMNS, expectedHeading,
+                        "Table columns are changed to " + TemplateDiff.getColumnTexts(field) + "."));
+            }
+
+            previousBlock = new StringBuilder(sectionContent);
+            blocks.put(field.getName(), previousBlock);
+        }
+
+        List<String> order = new ArrayList<>(blocks.keySet());
+
+        // Sections are reordered only if template order was changed, other differences from template are not fixed by migration.
+        if (!diff.getMovedFields().isEmpty()) {
+
+            List<String> originalOrder = new ArrayList<>(order);
+            order.clear();
+
+            for (String fieldName : newFields.keySet()) {
+
+                if (blocks.containsKey(fieldName)) {
+
+                    order.add(fieldName);
+                }
+            }
+
+            for (int i = 0; i < order.size(); i++) {
+
+                if (!order.get(i).equals(originalOrder.get(i))) {
+
+                    operations.add(new MigrationOperation(MigrationOperationType.MOVE_SECTION, getHeading(newFields.get(order.get(i))),
+                            "Section is moved to position " + (i + 1) + "."));
+                }
+            }
+        }
+
+        // Add sections, which are required by new template and were not required by old one, after preceding template field.
+        int insertPosition = 0;
+        Set<String> added = new HashSet<>();
+
+        for (TemplateField field : newFields.values()) {
+
+            if (field.getName().equals(nameFieldName)) {
+
+                continue;
+            }
+
+            if (blocks.containsKey(field.getName())) {
+
+                insertPosition = order.indexOf(field.getName()) + 1;
+
+            } else if (field.isRequired() && (diff.getAddedFields().contains(field) || diff.getRequiredChangedFields().contains(field))) {
+
+                blocks.put(field.getName(), new StringBuilder(createSection(field, lineBreak)));
+                order.add(insertPosition++, field.getName());
+                added.add(field.getName());
+                operations.add(new MigrationOperation(MigrationOperationType.ADD_SECTION, getHeading(field), "Required section is added."));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(nameBlock);
+
+        for (String fieldName : order) {
+
+            // Spacing between sections of file is kept, added sections are separated by blank line.
+            appendLineBreak(sb, lineBreak, added.contains(fieldName) ? 2 : 1);
+            sb.append(blocks.get(fieldName));
+        }
+
+        // Unknown sections stay on their places, so file is not rewritten only because of them.
+        for (MigrationOperation operation : operations) {
+
+            if (operation.getType() != MigrationOperationType.KEEP_UNKNOWN_SECTION) {
+
+                return new MigrationPlan(file, operations, content, sb.toString());
+            }
+        }
+
+        return new MigrationPlan(file, operations, content, content);
+    }
+
+    /**
+     * Apply plans, all changed files are written in one batch.
+     * @param plans - Rewrite plans.
+     * @return True if all changed files were written, false if no file was changed.
+     */
+    public static boolean apply(List<MigrationPlan> plans) {
+
+        Map<File, String> contents = new LinkedHashMap<>();
+
+        for (MigrationPlan plan : plans) {
+
+            if (plan.isChanged()) {
+
+                contents.put(plan.getFile(), plan.getMigratedContent());
+            }
+        }
+
+        if (contents.isEmpty()) {
+
+            log.info("No file needs to be migrated.");
+            return true;
+        }
+
+        return BatchFileWriter.writeAll(contents);
+    }
+
+    /**
+     * Get heading of field as it is written by application.
+     * @param field - Template field.
+     * @return Heading text.
+     */
+    private static String getHeading(TemplateField field) {
+
+        return field.isRequired() ? field.getText() : field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING;
+    }
+
+    /**
+     * Check if heading of field is changed by new template.
+     * @param field - Field from new template.
+     * @return True if field was renamed or its optionality was changed.
+     */
+    private boolean isHeadingChanged(TemplateField field) {
+
+        return diff.getRenamedFields().contains(field) || diff.getRequiredChangedFields().contains(field);
+    }
+
+    /**
+     * Check if heading is accepted by template for field, so it does not have to be renamed.
+     * @param heading - Heading text.
+     * @param field - Template field.
+     * @return True if heading is accepted.
+     */
+    private static boolean isAcceptedHeading(String heading, TemplateField field) {
+
+        if (field.isRequired()) {
+
+            return heading.equals(field.getText());
+        }
+
+        return heading.equals(field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING)
+                || heading.equals(field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING.toLowerCase());
+    }
+
+    /**
+     * Create section for field, which is missing in antipattern.
+     * @param field - Template field.
+     * @param lineBreak - Line break used in file.
+     * @return Section content.
+     */
+    private static String createSection(TemplateField field, String lineBreak) {
+
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("## ").append(getHeading(field)).append(lineBreak).append(lineBreak);
+
+        if (field instanceof TableField) {
+
+            sb.append(createTableHeader((TableField) field, lineBreak));
+
+        } else if (!field.getDefaultValue().isEmpty()) {
+
+            sb.append(field.getDefaultValue()).append(lineBreak);
+        }
+
+        return sb.append(lineBreak).toString();
+    }
+
+    /**
+     * Replace header of first table in section and fit rows to new columns. Columns are matched by position,
+     * added columns are empty, removed columns are dropped from the end of rows.
+     * @param sectionContent - Section content.
+     * @param field - Table field from new template.
+     * @param lineBreak - Line break used in file.
+     * @return Section content with migrated table.
+     */
+    private static String migrateTable(String sectionContent, TableField field, String lineBreak) {
+
+        String[] lines = sectionContent.split("\n", -1);
+        StringBuilder sb = new StringBuilder();
+        int columnCount = field.getColumns().size();
+
+        // 0 = before table, 1 = in rows, 2 = after table.
+        int state = 0;
+
+        for (int i = 0; i < lines.length; i++) {
+
+            String line = lines[i];
+            boolean cr = line.endsWith("\r");
+            String text = cr ? line.substring(0, line.length() - 1) : line;
+            boolean tableLine = text.trim().startsWith("|");
+
+            if (state == 0 && tableLine) {
+
+                String header = createTableHeader(field, lineBreak);
+                sb.append(header, 0, header.length() - lineBreak.length());
+
+                // Separator is replaced together with header.
+                if (i + 1 < lines.length && TABLE_SEPARATOR_PATTERN.matcher(lines[i + 1].trim()).matches()) {
+
+                    i++;
+                }
+
+                state = 1;
+
+            } else if (state == 1 && tableLine) {
+
+                sb.append(fitRow(text, columnCount));
+
+            } else {
+
+                if (state == 1) {
+
+                    state = 2;
+                }
+
+                sb.append(text);
+            }
+
+            if (i < lines.length - 1) {
+
+                sb.append(cr ? "\r\n" : "\n");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Fit table row to number of columns.
+     * @param row - Table row.
+     * @param columnCount - Number of columns.
+     * @return Table row with given number of cells.
+     */
+    private static String fitRow(String row, int columnCount) {
+
+        String text = row.trim();
+        boolean closingPipe = text.length() > 1 && text.endsWith("|");
+
+        text = text.substring(1, closingPipe ? text.length() - 1 : text.length());
+        List<String> cells = new ArrayList<>(Arrays.asList(text.split("\\|", -1)));
+
+        while (cells.size() < columnCount) {
+
+            cells.add("");
+        }
+
+        StringBuilder sb = new StringBuilder("|");
+        sb.append(String.join("|", cells.subList(0, columnCount)));
+
+        if (closingPipe) {
+
+            sb.append("|");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Create markdown table header.
+     * @param field - Table field.
+     * @param lineBreak - Line break used in file.
+     * @return Table header in markdown.
+     */
+    private static String createTableHeader(TableField field, String lineBreak) {
+
+        StringBuilder header = new StringBuilder("|");
+        StringBuilder separator = new StringBuilder("|");
+
+        for (TableColumnField column : field.getColumns()) {
+
+            header.append(column.getText()).append("|");
+            separator.append("---|");
+        }
+
+        return header.append(lineBreak).append(separator).append(lineBreak).toString();
+    }
+
+    /**
+     * Make sure that content ends with given number of line breaks, so next section starts on new line.
+     * @param sb - Content.
+     * @param lineBreak - Line break used in file.
+     * @param count - Number of line breaks (2 = blank line).
+     */
+    private static void appendLineBreak(StringBuilder sb, String lineBreak, int count) {
+
+        String suffix = String.join("", Collections.nCopies(count, lineBreak));
+
+        while (!endsWith(sb, suffix)) {
+
+            sb.append(lineBreak);
+        }
+    }
+
+    private static boolean endsWith(StringBuilder sb, String suffix) {
+
+        return sb.length() >= suffix.length() && sb.substring(sb.length() - suffix.length()).equals(suffix);
+    }
+}
@@ -7,7 +7,9 @@
 package cz.zcu.kiv.spac.richtext;
 
 import java.io.File;
+import java.nio.file.Paths;
 
+import cz.zcu.kiv.spac.image.ImageCache;
 import javafx.scene.Node;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -56,8 +58,8 @@ public class RealLinkedImage implements LinkedImage {
 
     @Override
     public Node createNode() {
-        Image image = new Image("file:" + imagePath); // XXX: No need to create new Image objects each time -
-                                                      // could be cached in the model layer
+        // Image is decoded in background and downscaled to display width, decoded images are cached.
+        Image image = ImageCache.getImage(Paths.get(imagePath));
         ImageView result = new ImageView(image);
         return result;
     }
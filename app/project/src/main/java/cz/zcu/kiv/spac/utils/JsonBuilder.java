@@ -0,0 +1,163 @@
+package cz.zcu.kiv.spac.utils;
+
+/**
+ * Simple builder of JSON content for machine-readable outputs (reports, indexes).
+ * Commas between values are added automatically, caller is responsible for correct nesting.
+ */
+public class JsonBuilder {
+
+    private final StringBuilder sb = new StringBuilder();
+
+    // True if next value in current object / array must be separated by comma.
+    private boolean separatorNeeded = false;
+
+    public JsonBuilder beginObject() {
+
+        separate();
+        sb.append('{');
+        separatorNeeded = false;
+        return this;
+    }
+
+    public JsonBuilder endObject() {
+
+        sb.append('}');
+        separatorNeeded = true;
+        return this;
+    }
+
+    public JsonBuilder beginArray() {
+
+        separate();
+        sb.append('[');
+        separatorNeeded = false;
+        return this;
+    }
+
+    public JsonBuilder endArray() {
+
+        sb.append(']');
+        separatorNeeded = true;
+        return this;
+    }
+
+    /**
+     * Write name of next value in object.
+     * @param name - Name.
+     * @return This builder.
+     */
+    public JsonBuilder name(String name) {
+
+        separate();
+        appendString(name);
+        sb.append(':');
+        separatorNeeded = false;
+        return this;
+    }
+
+    public JsonBuilder value(String value) {
+
+        separate();
+
+        if (value == null) {
+
+            sb.append("null");
+
+        } else {
+
+            appendString(value);
+        }
+
+        separatorNeeded = true;
+        return this;
+    }
+
+    public JsonBuilder value(long value) {
+
+        separate();
+        sb.append(value);
+        separatorNeeded = true;
+        return this;
+    }
+
+    public JsonBuilder value(double value) {
+
+        separate();
+        sb.append(value);
+        separatorNeeded = true;
+        return this;
+    }
+
+    public JsonBuilder value(boolean value) {
+
+        separate();
+        sb.append(value);
+        separatorNeeded = true;
+        return this;
+    }
+
+    private void separate() {
+
+        if (separatorNeeded) {
+
+            sb.append(',');
+            separatorNeeded = false;
+        }
+    }
+
+    /**
+     * Append escaped string in quotes.
+     * @param value - String.
+     */
+    private void appendString(String value) {
+
+        sb.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            switch (c) {
+
+                case '"':
+                    sb.append("\\\"");
+                    break;
+
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+
+                case '\n':
+                    sb.append("\\n");
+                    break;
+
+                case '\r':
+                    sb.append("\\r");
+                    break;
+
+                case '\t':
+                    sb.append("\\t");
+                    break;
+
+                default:
+
+                    if (c < 0x20) {
+
+                        sb.append(String.format("\\u%04x", (int) c));
+
+                    } else {
+
+                        sb.append(c);
+                    }
+            }
+        }
+
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+
+        return sb.toString();
+    }
+}
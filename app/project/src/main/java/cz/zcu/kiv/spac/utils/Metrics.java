@@ -0,0 +1,72 @@
+package cz.zcu.kiv.spac.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters of application work (performed / skipped writes, preview cache hits / misses, ...).
+ * Counters can be incremented from multiple threads.
+ */
+public class Metrics {
+
+    public static final String FILE_WRITES_PERFORMED = "file.writes.performed";
+    public static final String FILE_WRITES_SKIPPED = "file.writes.skipped";
+    public static final String HTML_PREVIEW_CACHE_HITS = "html.preview.cache.hits";
+    public static final String HTML_PREVIEW_CACHE_MISSES = "html.preview.cache.misses";
+    public static final String HTML_PREVIEW_CACHE_EVICTIONS = "html.preview.cache.evictions";
+    public static final String IMAGE_CACHE_HITS = "image.cache.hits";
+    public static final String IMAGE_CACHE_MISSES = "image.cache.misses";
+    public static final String IMAGE_CACHE_EVICTIONS = "image.cache.evictions";
+    public static final String GIT_STATUS_FULL_SCANS = "git.status.full.scans";
+    public static final String GIT_STATUS_PARTIAL_SCANS = "git.status.partial.scans";
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Increment counter by one.
+     * @param name - Counter name.
+     */
+    public static void increment(String name) {
+
+        add(name, 1);
+    }
+
+    /**
+     * Add value to counter.
+     * @param name - Counter name.
+     * @param value - Added value.
+     */
+    public static void add(String name, long value) {
+
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(value);
+    }
+
+    /**
+     * Get value of counter.
+     * @param name - Counter name.
+     * @return Counter value, 0 if counter was never incremented.
+     */
+    public static long get(String name) {
+
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Get values of all counters.
+     * @return Counter name -> value, sorted by name.
+     */
+    public static Map<String, Long> getAll() {
+
+        Map<String, Long> values = new TreeMap<>();
+
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return values;
+    }
+}
@@ -2,17 +2,14 @@ package cz.zcu.kiv.spac.utils;
 
 import cz.zcu.kiv.spac.data.Constants;
 import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
 import cz.zcu.kiv.spac.file.FileLoader;
 import javafx.scene.control.Alert;
 import javafx.scene.layout.Region;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jgit.diff.*;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
@@ -74,12 +71,7 @@ public class Utils {
      */
     public static String formatAntipatternName(String filename) {
 
-        String antipatternName = FilenameUtils.removeExtension(filename);
-        antipatternName = antipatternName.replace("_", " ");
-        antipatternName = antipatternName.replace("'", "");
-        antipatternName = antipatternName.replace("’", "");
-
-        return antipatternName;
+        return AntipatternKey.format(filename);
     }
 
     /**
@@ -90,15 +82,49 @@ public class Utils {
      */
     public static boolean isAntipatternNamesEquals(String antipatternName1, String antipatternName2) {
 
-        antipatternName1 = antipatternName1.replace("’", "");
-        antipatternName1 = antipatternName1.replace("'", "");
-        antipatternName1 = antipatternName1.replace("_", " ");
+        int i = 0;
+        int j = 0;
+
+        // Compare names char by char, apostrophes are skipped and '_' is same as space.
+        while (true) {
+
+            while (i < antipatternName1.length() && isIgnoredNameChar(antipatternName1.charAt(i))) {
+
+                i++;
+            }
+
+            while (j < antipatternName2.length() && isIgnoredNameChar(antipatternName2.charAt(j))) {
+
+                j++;
+            }
+
+            if (i == antipatternName1.length() || j == antipatternName2.length()) {
+
+                return i == antipatternName1.length() && j == antipatternName2.length();
+            }
 
-        antipatternName2 = antipatternName2.replace("’", "");
-        antipatternName2 = antipatternName2.replace("'", "");
-        antipatternName2 = antipatternName2.replace("_", " ");
+            char c1 = antipatternName1.charAt(i++);
+            char c2 = antipatternName2.charAt(j++);
+
+            c1 = c1 == '_' ? ' ' : c1;
+            c2 = c2 == '_' ? ' ' : c2;
+
+            if (c1 != c2 && Character.toUpperCase(c1) != Character.toUpperCase(c2)
+                    && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Check if char is ignored when comparing antipattern names.
+     * @param c - Char.
+     * @return True for apostrophes.
+     */
+    private static boolean isIgnoredNameChar(char c) {
 
-        return antipatternName1.equalsIgnoreCase(antipatternName2);
+        return c == '\'' || c == '’';
     }
 
     /**
@@ -121,32 +147,6 @@ public class Utils {
         return new SimpleDateFormat("dd.MM.yyyy HH:mm:ss").format(Calendar.getInstance().getTime());
     }
 
-    /**
-     * Get differences between two file contents (used for comparing file in 2 revisions)
-     * @param content1 - Content of file from previous commit.
-     * @param content2 - Current content file.
-     * @return Differences in git diff command output format.
-     */
-    public static String getFilesDifference(String content1, String content2) {
-
-        OutputStream out = new ByteArrayOutputStream();
-
-        try {
-
-            RawText rt1 = new RawText(content1.getBytes());
-            RawText rt2 = new RawText(content2.getBytes());
-            EditList diffList = new EditList();
-            diffList.addAll(new HistogramDiff().diff(RawTextComparator.WS_IGNORE_ALL, rt1, rt2));
-            new DiffFormatter(out).format(diffList, rt1, rt2);
-
-        } catch (IOException e) {
-
-            e.printStackTrace();
-        }
-
-        return out.toString();
-    }
-
     /**
      * Create antipattern markdown filename.
      * @param antipattern - Antipattern.
@@ -158,6 +158,18 @@ public class Utils {
         return Utils.getAntipatternFolderPath() + Constants.CATALOGUE_FOLDER + "/" + filename + ".md";
     }
 
+    /**
+     * Create filename of catalogue shard for catalogue instance.
+     * Keys, which are not letters or digits, are encoded as code point, so filename is always valid.
+     * @param key - Key of catalogue instance.
+     * @return Filename of catalogue shard.
+     */
+    public static String createCatalogueShardFilename(String key) {
+
+        String id = key.length() == 1 && Character.isLetterOrDigit(key.charAt(0)) ? key : "_" + Integer.toHexString(key.codePointAt(0));
+        return Constants.CATALOGUE_SHARD_PREFIX + id + Constants.FILES_EXTENSION;
+    }
+
     /**
      * Show alert window.
      * @param type - Type of alert.
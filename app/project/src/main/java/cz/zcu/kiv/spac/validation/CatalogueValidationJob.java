@@ -0,0 +1,387 @@
+package cz.zcu.kiv.spac.validation;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternRelation;
+import cz.zcu.kiv.spac.data.catalogue.Catalogue;
+import cz.zcu.kiv.spac.data.catalogue.CatalogueRecord;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validation of whole catalogue without user interface.
+ * Checks (template conformance, missing files, broken relation links, unknown citations, linking consistency)
+ * run in parallel, every check is timed. Catalogue and antipatterns must not be changed while job is running.
+ */
+public class CatalogueValidationJob {
+
+    public static final String CHECK_TEMPLATE = "Template conformance";
+    public static final String CHECK_FILES = "Missing files";
+    public static final String CHECK_RELATIONS = "Broken relation links";
+    public static final String CHECK_CITATIONS = "Unknown citations";
+    public static final String CHECK_LINKING = "Linking consistency";
+
+    // Citation in antipattern content, e.g. [[CUN'10]](../References.md).
+    private static final Pattern CITATION_PATTERN = Pattern.compile("\\[\\[([^\\[\\]]+)\\]\\]");
+
+    // Logger.
+    private static Logger log = LogManager.getLogger(CatalogueValidationJob.class);
+
+    private final Template template;
+    private final Map<AntipatternKey, Antipattern> antipatterns;
+    private final List<CatalogueRecord> catalogueRecords;
+    private final Set<String> referenceKeys;
+    private final File antipatternFolder;
+
+    /**
+     * Constructor.
+     * @param template - Template.
+     * @param catalogue - Catalogue.
+     * @param antipatterns - Map of antipatterns.
+     * @param referenceKeys - Keys of references from references file.
+     * @param antipatternFolder - Folder with catalogue file (paths in catalogue are relative to it).
+     */
+    public CatalogueValidationJob(Template template, Catalogue catalogue, Map<AntipatternKey, Antipattern> antipatterns, Set<String> referenceKeys, File antipatternFolder) {
+
+        this.template = template;
+        this.antipatterns = antipatterns;
+        this.referenceKeys = referenceKeys;
+        this.antipatternFolder = antipatternFolder;
+
+        // Catalogue loads its instances lazily, so records are collected before checks run in parallel.
+        this.catalogueRecords = new ArrayList<>();
+
+        for (List<CatalogueRecord> records : catalogue.getCatalogueRecords().values()) {
+
+            catalogueRecords.addAll(records);
+        }
+    }
+
+    /**
+     * Run all checks in parallel.
+     * Check, which throws exception, is reported as failed, results of other checks are kept.
+     * @return Validation report.
+     */
+    public ValidationReport run() {
+
+        Map<String, Supplier<List<ValidationIssue>>> checks = new LinkedHashMap<>();
+        checks.put(CHECK_TEMPLATE, this::checkTemplate);
+        checks.put(CHECK_FILES, this::checkFiles);
+        checks.put(CHECK_RELATIONS, this::checkRelations);
+        checks.put(CHECK_CITATIONS, this::checkCitations);
+        checks.put(CHECK_LINKING, this::checkLinking);
+
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(checks.size(), Runtime.getRuntime().availableProcessors()));
+        Map<String, Future<ValidationCheckResult>> futures = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Supplier<List<ValidationIssue>>> check : checks.entrySet()) {
+
+            futures.put(check.getKey(), executor.submit(() -> runCheck(check.getKey(), check.getValue())));
+        }
+
+        List<ValidationCheckResult> results = new ArrayList<>();
+        boolean interrupted = false;
+
+        try {
+
+            for (Map.Entry<String, Future<ValidationCheckResult>> future : futures.entrySet()) {
+
+                // Checks, which were not finished before interruption, are not waited for.
+                if (interrupted) {
+
+                    results.add(new ValidationCheckResult(future.getKey(), "Validation was interrupted."));
+                    continue;
+                }
+
+                try {
+
+                    results.add(future.getValue().get());
+
+                } catch (ExecutionException e) {
+
+                    log.error("Check '" + future.getKey() + "' failed: " + e.getCause());
+                    results.add(new ValidationCheckResult(future.getKey(), String.valueOf(e.getCause())));
+
+                } catch (InterruptedException e) {
+
+                    log.error("Catalogue validation was interrupted.");
+                    results.add(new ValidationCheckResult(future.getKey(), "Validation was interrupted."));
+                    interrupted = true;
+                }
+            }
+
+        } finally {
+
+            executor.shutdownNow();
+        }
+
+        if (interrupted) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        return new ValidationReport(results, antipatterns.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Run and time one check.
+     * @param name - Name of check.
+     * @param check - Check.
+     * @return Result of check.
+     */
+    private static ValidationCheckResult runCheck(String name, Supplier<List<ValidationIssue>> check) {
+
+        long start = System.nanoTime();
+        List<ValidationIssue> issues = check.get();
+        long duration = System.nanoTime() - start;
+
+        log.info("Check '" + name + "' found " + issues.size() + " problems in " + duration / 1_000_000 + " ms.");
+
+        return new ValidationCheckResult(name, duration, issues);
+    }
+
+    /**
+     * Get antipatterns, which have their own content (created and not linking another antipattern).
+     * @return List of antipatterns.
+     */
+    private List<Antipattern> getContentAntipatterns() {
+
+        List<Antipattern> list = new ArrayList<>();
+
+        for (Antipattern antipattern : antipatterns.values()) {
+
+            if (antipattern.isCreated() && !antipattern.isLinking()) {
+
+                list.add(antipattern);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Check headings of antipatterns against template.
+     * @return List of problems.
+     */
+    private List<ValidationIssue> checkTemplate() {
+
+        List<ValidationIssue> issues = new ArrayList<>();
+        Map<AntipatternKey, List<TemplateViolation>> violations = template.getValidator().validateAll(getContentAntipatterns());
+
+        for (Map.Entry<AntipatternKey, List<TemplateViolation>> entry : violations.entrySet()) {
+
+            String antipatternName = antipatterns.get(entry.getKey()).getName();
+
+            for (TemplateViolation violation : entry.getValue()) {
+
+                String location = violation.getHeading();
+
+                if (violation.getPosition() != TemplateViolation.NO_POSITION) {
+
+                    location += " (heading " + (violation.getPosition() + 1) + ")";
+                }
+
+                issues.add(new ValidationIssue(antipatternName, violation.getType().name(), location, violation.getMessage()));
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Check if files referenced in catalogue exist and if every antipattern file is referenced in catalogue.
+     * @return List of problems.
+     */
+    private List<ValidationIssue> checkFiles() {
+
+        List<ValidationIssue> issues = new ArrayList<>();
+        Set<String> referencedFiles = new HashSet<>();
+
+        for (CatalogueRecord record : catalogueRecords) {
+
+            if (record.getPath().isEmpty()) {
+
+                continue;
+            }
+
+            File file = new File(antipatternFolder, record.getPath());
+            referencedFiles.add(file.getAbsoluteFile().toPath().normalize().toString());
+
+            if (!file.exists()) {
+
+                issues.add(new ValidationIssue(record.getAntipatternName(), "MISSING_FILE", record.getPath(),
+                        "File '" + record.getPath() + "' referenced in catalogue does not exist !"));
+            }
+        }
+
+        File[] files = new File(antipatternFolder, Constants.CATALOGUE_FOLDER).listFiles((dir, name) -> name.endsWith(Constants.FILES_EXTENSION));
+
+        if (files != null) {
+
+            for (File file : files) {
+
+                String path = Constants.CATALOGUE_FOLDER + "/" + file.getName();
+
+                if (!file.getName().equals(Constants.TEMPLATE_FILE) && !referencedFiles.contains(file.getAbsoluteFile().toPath().normalize().toString())) {
+
+                    issues.add(new ValidationIssue(AntipatternKey.format(file.getName()), "UNREFERENCED_FILE", path,
+                            "File '" + path + "' is not referenced in catalogue."));
+                }
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Check if related antipatterns exist and if links to them point to existing files.
+     * @return List of problems.
+     */
+    private List<ValidationIssue> checkRelations() {
+
+        List<ValidationIssue> issues = new ArrayList<>();
+
+        for (Antipattern antipattern : getContentAntipatterns()) {
+
+            if (antipattern.getRelations() == null) {
+
+                continue;
+            }
+
+            File antipatternDirectory = new File(antipatternFolder, antipattern.getPath()).getParentFile();
+
+            for (AntipatternRelation relation : antipattern.getRelations()) {
+
+                String related = relation.getAntipattern();
+
+                if (antipatterns.get(relation.getAntipatternKey()) == null) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "UNKNOWN_RELATION", related,
+                            "Related anti-pattern '" + relation.getAntipatternKey().getName() + "' is not in catalogue !"));
+
+                } else if (MarkdownParser.isTableRecordLink(related)) {
+
+                    String linkPath = related.substring(related.indexOf("](") + 2, related.lastIndexOf(")"));
+
+                    if (!new File(antipatternDirectory, linkPath).exists()) {
+
+                        issues.add(new ValidationIssue(antipattern.getName(), "BROKEN_LINK", related,
+                                "Link to related anti-pattern points to non-existing file '" + linkPath + "' !"));
+                    }
+                }
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Check if citations in antipatterns exist in references.
+     * @return List of problems.
+     */
+    private List<ValidationIssue> checkCitations() {
+
+        List<ValidationIssue> issues = new ArrayList<>();
+
+        for (Antipattern antipattern : getContentAntipatterns()) {
+
+            if (antipattern.getContent() == null || antipattern.getContent().toString() == null) {
+
+                continue;
+            }
+
+            Matcher matcher = CITATION_PATTERN.matcher(antipattern.getContent().toString());
+
+            while (matcher.find()) {
+
+                String citation = matcher.group(1);
+
+                if (!referenceKeys.contains(citation)) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "UNKNOWN_CITATION", citation,
+                            "Citation '" + citation + "' is not in references !"));
+                }
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Check if linking antipatterns and their linked antipatterns refer to each other.
+     * @return List of problems.
+     */
+    private List<ValidationIssue> checkLinking() {
+
+        List<ValidationIssue> issues = new ArrayList<>();
+
+        for (Antipattern antipattern : antipatterns.values()) {
+
+            if (antipattern.isLinking()) {
+
+                Antipattern linkedAntipattern = antipatterns.get(AntipatternKey.of(antipattern.getLinkedAntipatternName()));
+
+                if (linkedAntipattern == null) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "MISSING_LINKED", antipattern.getPath(),
+                            "Linked anti-pattern '" + antipattern.getLinkedAntipatternName() + "' is not in catalogue !"));
+
+                } else if (linkedAntipattern.isLinking()) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "LINK_CHAIN", antipattern.getPath(),
+                            "Linked anti-pattern '" + linkedAntipattern.getName() + "' links another anti-pattern !"));
+
+                } else if (!containsAntipattern(linkedAntipattern.getLinkingAntipatterns(), antipattern.getKey())) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "LINK_NOT_REGISTERED", antipattern.getPath(),
+                            "Linked anti-pattern '" + linkedAntipattern.getName() + "' does not know about linking anti-pattern !"));
+                }
+            }
+
+            for (String linkingAntipatternName : antipattern.getLinkingAntipatterns()) {
+
+                Antipattern linkingAntipattern = antipatterns.get(AntipatternKey.of(linkingAntipatternName));
+
+                if (linkingAntipattern == null || !linkingAntipattern.isLinking()
+                        || !antipattern.getKey().equals(AntipatternKey.of(linkingAntipattern.getLinkedAntipatternName()))) {
+
+                    issues.add(new ValidationIssue(antipattern.getName(), "STALE_LINKING", linkingAntipatternName,
+                            "Anti-pattern '" + linkingAntipatternName + "' does not link this anti-pattern !"));
+                }
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Check if list of antipattern names contains antipattern. Names can be formatted or original.
+     * @param names - Antipattern names.
+     * @param key - Antipattern key.
+     * @return True if list contains antipattern.
+     */
+    private static boolean containsAntipattern(List<String> names, AntipatternKey key) {
+
+        for (String name : names) {
+
+            if (AntipatternKey.of(name).equals(key)) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
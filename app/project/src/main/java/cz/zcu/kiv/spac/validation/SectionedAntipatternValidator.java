@@ -0,0 +1,197 @@
+package cz.zcu.kiv.spac.validation;
+
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternContent;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.markdown.MarkdownParser;
+import cz.zcu.kiv.spac.markdown.MarkdownSection;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Validation of antipattern markdown content, which is edited repeatedly.
+ * Content is split into sections by headings and only sections, which were changed since previous validation, are parsed.
+ * Validator is not thread-safe, it is expected to be used from single background thread.
+ */
+public class SectionedAntipatternValidator {
+
+    // Maximum number of parsed sections kept for next validations.
+    private static final int CACHE_SIZE = 256;
+
+    // Heading placed before section, so section heading is not parsed as antipattern name.
+    private static final String NAME_PLACEHOLDER = "# -\r\n\r\n";
+
+    private final MarkdownParser parser;
+    private final Template template;
+    private final String antipatternName;
+    private final String antipatternPath;
+
+    // Section content -> parsed headings of section.
+    private final Map<String, ParsedSection> sectionCache = new LinkedHashMap<String, ParsedSection>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedSection> eldest) {
+
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Constructor.
+     * @param parser - Markdown parser.
+     * @param template - Template.
+     * @param antipatternName - Name of edited antipattern.
+     * @param antipatternPath - Path of edited antipattern.
+     */
+    public SectionedAntipatternValidator(MarkdownParser parser, Template template, String antipatternName, String antipatternPath) {
+
+        this.parser = parser;
+        this.template = template;
+        this.antipatternName = antipatternName;
+        this.antipatternPath = antipatternPath;
+    }
+
+    /**
+     * Validate antipattern content against template.
+     * Validation is stopped with CancellationException if current thread is interrupted.
+     * @param content - Antipattern markdown content.
+     * @return Result of validation.
+     */
+    public Result validate(String content) {
+
+        Map<String, AntipatternHeading> headings = new LinkedHashMap<>();
+        List<Integer> headingLines = new ArrayList<>();
+        String relationsHeadingName = "";
+
+        List<MarkdownSection> sections = MarkdownSection.split(content);
+
+        for (int i = 0; i < sections.size(); i++) {
+
+            if (Thread.currentThread().isInterrupted()) {
+
+                throw new CancellationException();
+            }
+
+            MarkdownSection section = sections.get(i);
+            String sectionContent = section.getContent(content);
+
+            // First section contains antipattern name, so it is parsed differently.
+            String cacheKey = i == 0 ? "\u0000" + sectionContent : sectionContent;
+            ParsedSection parsedSection = sectionCache.get(cacheKey);
+
+            if (parsedSection == null) {
+
+                parsedSection = parseSection(sectionContent, i == 0);
+                sectionCache.put(cacheKey, parsedSection);
+            }
+
+            for (Map.Entry<String, AntipatternHeading> entry : parsedSection.headings.entrySet()) {
+
+                if (!headings.containsKey(entry.getKey())) {
+
+                    headingLines.add(section.getLine());
+                }
+
+                headings.put(entry.getKey(), entry.getValue());
+            }
+
+            if (!parsedSection.relationsHeadingName.isEmpty()) {
+
+                relationsHeadingName = parsedSection.relationsHeadingName;
+            }
+        }
+
+        Antipattern antipattern = new Antipattern(antipatternName, new AntipatternContent(content), antipatternPath);
+        antipattern.setAntipatternHeadings(headings);
+        antipattern.setRelationsHeadingName(relationsHeadingName);
+
+        return new Result(template.getValidator().validate(antipattern), headingLines);
+    }
+
+    /**
+     * Parse headings of one section.
+     * @param sectionContent - Section content, starting with heading.
+     * @param first - True if section is first section (antipattern name).
+     * @return Parsed section.
+     */
+    private ParsedSection parseSection(String sectionContent, boolean first) {
+
+        Antipattern sectionAntipattern = new Antipattern(antipatternName, new AntipatternContent(sectionContent), antipatternPath);
+
+        if (first) {
+
+            Map<String, AntipatternHeading> headings = parser.parseHeadings(sectionAntipattern, sectionContent);
+            return new ParsedSection(headings, sectionAntipattern.getRelationsHeadingName());
+        }
+
+        Map<String, AntipatternHeading> parsedHeadings = parser.parseHeadings(sectionAntipattern, NAME_PLACEHOLDER + sectionContent);
+        Map<String, AntipatternHeading> headings = new LinkedHashMap<>();
+
+        // Skip placeholder heading.
+        boolean placeholder = true;
+
+        for (Map.Entry<String, AntipatternHeading> entry : parsedHeadings.entrySet()) {
+
+            if (!placeholder) {
+
+                headings.put(entry.getKey(), entry.getValue());
+            }
+
+            placeholder = false;
+        }
+
+        return new ParsedSection(headings, sectionAntipattern.getRelationsHeadingName());
+    }
+
+    /**
+     * Headings parsed from one section.
+     */
+    private static class ParsedSection {
+
+        private final Map<String, AntipatternHeading> headings;
+        private final String relationsHeadingName;
+
+        private ParsedSection(Map<String, AntipatternHeading> headings, String relationsHeadingName) {
+
+            this.headings = headings;
+            this.relationsHeadingName = relationsHeadingName;
+        }
+    }
+
+    /**
+     * Result of validation with lines of headings, so violations can be shown in editor.
+     */
+    public static class Result {
+
+        private final List<TemplateViolation> violations;
+        private final List<Integer> headingLines;
+
+        private Result(List<TemplateViolation> violations, List<Integer> headingLines) {
+
+            this.violations = violations;
+            this.headingLines = headingLines;
+        }
+
+        public List<TemplateViolation> getViolations() {
+
+            return violations;
+        }
+
+        /**
+         * Get line of violation in content.
+         * @param violation - Template violation.
+         * @return Line index (0 = first line), -1 if violation is not related to existing heading.
+         */
+        public int getLine(TemplateViolation violation) {
+
+            if (violation.getPosition() == TemplateViolation.NO_POSITION || violation.getPosition() >= headingLines.size()) {
+
+                return -1;
+            }
+
+            return headingLines.get(violation.getPosition());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package cz.zcu.kiv.spac.validation;
+
+import cz.zcu.kiv.spac.data.Constants;
+import cz.zcu.kiv.spac.data.antipattern.Antipattern;
+import cz.zcu.kiv.spac.data.antipattern.AntipatternKey;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternHeading;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTableHeading;
+import cz.zcu.kiv.spac.data.antipattern.heading.AntipatternTextHeading;
+import cz.zcu.kiv.spac.data.template.TableColumnField;
+import cz.zcu.kiv.spac.data.template.TableField;
+import cz.zcu.kiv.spac.data.template.Template;
+import cz.zcu.kiv.spac.data.template.TemplateField;
+import cz.zcu.kiv.spac.data.template.TemplateFieldType;
+import cz.zcu.kiv.spac.enums.AntipatternHeadingType;
+import cz.zcu.kiv.spac.enums.TemplateViolationType;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Template compiled for validation of antipatterns.
+ * Template is compiled once into index of field names and texts and into table of headings expected on every position,
+ * so antipattern is validated by hash lookups in single pass over its headings.
+ * Validator is immutable and can be used from multiple threads.
+ */
+public class TemplateValidator {
+
+    private final TemplateField[] fields;
+
+    // Field name / text (with optional variants) -> field, first matching field in template order.
+    private final Map<String, TemplateField> fieldIndex;
+
+    // Position -> heading texts accepted on this position. Optional fields accept both variants of optional suffix.
+    private final String[][] expectedHeadings;
+
+    // Position -> column texts of table field, null if field is not table.
+    private final String[][] tableColumns;
+
+    /**
+     * Constructor.
+     * @param template - Template.
+     */
+    private TemplateValidator(Template template) {
+
+        List<TemplateField> fieldList = template.getFieldList();
+
+        this.fields = fieldList.toArray(new TemplateField[0]);
+        this.fieldIndex = new HashMap<>();
+        this.expectedHeadings = new String[fields.length][];
+        this.tableColumns = new String[fields.length][];
+
+        for (int i = 0; i < fields.length; i++) {
+
+            TemplateField field = fields[i];
+
+            fieldIndex.putIfAbsent(field.getName(), field);
+            fieldIndex.putIfAbsent(field.getText(), field);
+
+            if (field.isRequired()) {
+
+                expectedHeadings[i] = new String[] { field.getText() };
+
+            } else {
+
+                fieldIndex.putIfAbsent(field.getName() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING, field);
+                fieldIndex.putIfAbsent(field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING, field);
+
+                expectedHeadings[i] = new String[] {
+                        field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING,
+                        field.getText() + Constants.TEMPLATE_FIELD_OPTIONAL_STRING.toLowerCase()
+                };
+            }
+
+            if (field instanceof TableField) {
+
+                List<TableColumnField> columns = ((TableField) field).getColumns();
+                tableColumns[i] = new String[columns.size()];
+
+                for (int j = 0; j < columns.size(); j++) {
+
+                    tableColumns[i][j] = columns.get(j).getText();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile template.
+     * @param template - Template.
+     * @return Compiled template validator.
+     */
+    public static TemplateValidator compile(Template template) {
+
+        return new TemplateValidator(template);
+    }
+
+    /**
+     * Get field by field name or text.
+     * @param fieldName - Field name or text, optional fields can have optional suffix.
+     * @return Field, null if template does not contain field.
+     */
+    public TemplateField getField(String fieldName) {
+
+        return fieldIndex.get(fieldName);
+    }
+
+    /**
+     * Validate antipattern headings against template.
+     * @param antipattern - Validated antipattern.
+     * @return List of violations in order: field checks in template order, unknown headings, positions.
+     */
+    public List<TemplateViolation> validate(Antipattern antipattern) {
+
+        List<TemplateViolation> violations = new ArrayList<>();
+
+        List<String> headings = antipattern.getAntipatternHeadingsTexts();
+
+        if (headings == null) {
+
+            headings = Collections.emptyList();
+        }
+
+        // Heading text -> position of heading in antipattern.
+        Map<String, Integer> headingPositions = new HashMap<>();
+
+        for (int i = 0; i < headings.size(); i++) {
+
+            headingPositions.putIfAbsent(headings.get(i), i);
+        }
+
+        // Headings, which were matched with template field.
+        boolean[] matched = new boolean[headings.size()];
+
+        for (int i = 0; i < fields.length; i++) {
+
+            TemplateField field = fields[i];
+
+            if (!field.isRequired()) {
+
+                for (String optionalText : expectedHeadings[i]) {
+
+                    Integer position = headingPositions.get(optionalText);
+
+                    if (position != null) {
+
+                        matched[position] = true;
+                    }
+                }
+
+                continue;
+            }
+
+            Integer position = headingPositions.get(field.getText());
+
+            if (position == null) {
+
+                violations.add(new TemplateViolation(field.getText(), TemplateViolationType.MISSING_HEADING, TemplateViolation.NO_POSITION));
+                continue;
+            }
+
+            matched[position] = true;
+            validateHeading(antipattern.getAntipatternHeading(field.getName()), i, position, violations);
+        }
+
+        // Headings, which are in antipattern but not in template.
+        Set<String> unmatchedHeadings = new HashSet<>();
+
+        for (int i = 0; i < headings.size(); i++) {
+
+            if (!matched[i]) {
+
+                String heading = headings.get(i);
+                unmatchedHeadings.add(heading);
+
+                if (getField(heading) == null) {
+
+                    violations.add(new TemplateViolation(heading, TemplateViolationType.UNKNOWN_HEADING, i));
+                }
+            }
+        }
+
+        validatePositions(headings, headingPositions, unmatchedHeadings, violations);
+
+        return violations;
+    }
+
+    /**
+     * Validate content of heading, which is required by template.
+     * @param heading - Antipattern heading.
+     * @param fieldPosition - Position of field in template.
+     * @param position - Position of heading in antipattern.
+     * @param violations - List of violations.
+     */
+    private void validateHeading(AntipatternHeading heading, int fieldPosition, int position, List<TemplateViolation> violations) {
+
+        TemplateField field = fields[fieldPosition];
+
+        if (heading == null) {
+
+            return;
+        }
+
+        if (field.getType() == TemplateFieldType.TABLE && heading.getType() != AntipatternHeadingType.TABLE) {
+
+            violations.add(new TemplateViolation(field.getText(), TemplateViolationType.EMPTY_TABLE, position));
+            return;
+        }
+
+        if (heading.getType() == AntipatternHeadingType.TABLE && heading instanceof AntipatternTableHeading) {
+
+            AntipatternTableHeading tableHeading = (AntipatternTableHeading) heading;
+
+            if (tableColumns[fieldPosition] == null || tableHeading.getRelations() == null || tableHeading.getRelations().isEmpty()) {
+
+                return;
+            }
+
+            // Columns of heading, which were not matched with template columns yet.
+            List<String> headingColumns = new ArrayList<>(tableHeading.getColumns());
+
+            for (String column : tableColumns[fieldPosition]) {
+
+                if (!headingColumns.remove(column)) {
+
+                    violations.add(new TemplateViolation(field.getText(), TemplateViolationType.MISSING_COLUMN, position, column));
+                }
+            }
+
+            for (String column : headingColumns) {
+
+                violations.add(new TemplateViolation(field.getText(), TemplateViolationType.UNKNOWN_COLUMN, position, column));
+            }
+
+        } else if (heading.getType() == AntipatternHeadingType.TEXT && heading instanceof AntipatternTextHeading) {
+
+            String value = ((AntipatternTextHeading) heading).getValue();
+
+            if (value == null || value.length() == 0) {
+
+                violations.add(new TemplateViolation(field.getText(), TemplateViolationType.EMPTY_TEXT, position));
+            }
+        }
+    }
+
+    /**
+     * Validate positions of headings. Heading on every position is compared with headings expected by template on same position.
+     * @param headings - Antipattern heading texts.
+     * @param headingPositions - Heading text -> position in antipattern.
+     * @param unmatchedHeadings - Headings, which are not matched with template field.
+     * @param violations - List of violations.
+     */
+    private void validatePositions(List<String> headings, Map<String, Integer> headingPositions, Set<String> unmatchedHeadings, List<TemplateViolation> violations) {
+
+        int count = Math.min(fields.length, headings.size());
+
+        for (int i = 0; i < count; i++) {
+
+            String heading = headings.get(i);
+            String[] expected = expectedHeadings[i];
+
+            if (fields[i].isRequired()) {
+
+                if (!heading.equals(expected[0]) && !unmatchedHeadings.contains(heading)) {
+
+                    violations.add(new TemplateViolation(heading, TemplateViolationType.BAD_POSITION, i));
+                }
+
+            } else if (headingPositions.containsKey(expected[0]) || headingPositions.containsKey(expected[1])) {
+
+                // Optional field is checked only if antipattern contains it.
+                if (!heading.equals(expected[0]) && !heading.equals(expected[1])) {
+
+                    violations.add(new TemplateViolation(heading, TemplateViolationType.BAD_OPTIONAL_POSITION, i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate antipatterns in parallel.
+     * @param antipatterns - Validated antipatterns.
+     * @return Map of antipattern keys and violations in order of antipatterns.
+     */
+    public Map<AntipatternKey, List<TemplateViolation>> validateAll(Collection<Antipattern> antipatterns) {
+
+        List<Antipattern> antipatternList = new ArrayList<>(antipatterns);
+        List<List<TemplateViolation>> results = antipatternList.parallelStream()
+                .map(this::validate)
+                .collect(Collectors.toList());
+
+        Map<AntipatternKey, List<TemplateViolation>> violations = new LinkedHashMap<>();
+
+        for (int i = 0; i < antipatternList.size(); i++) {
+
+            violations.put(antipatternList.get(i).getKey(), results.get(i));
+        }
+
+        return violations;
+    }
+}
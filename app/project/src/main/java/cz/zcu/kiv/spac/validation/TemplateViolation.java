@@ -0,0 +1,100 @@
+package cz.zcu.kiv.spac.validation;
+
+import cz.zcu.kiv.spac.enums.TemplateViolationType;
+
+/**
+ * Class representing one difference between antipattern and template.
+ */
+public class TemplateViolation {
+
+    // Position of heading, which is missing in antipattern.
+    public static final int NO_POSITION = -1;
+
+    private final String heading;
+    private final TemplateViolationType type;
+    private final int position;
+    private final String column;
+
+    /**
+     * Constructor.
+     * @param heading - Heading text (template field text or heading from antipattern).
+     * @param type - Type of violation.
+     * @param position - Position of heading in antipattern (0 = first heading), NO_POSITION if heading is missing.
+     * @param column - Table column for column violations, null otherwise.
+     */
+    public TemplateViolation(String heading, TemplateViolationType type, int position, String column) {
+
+        this.heading = heading;
+        this.type = type;
+        this.position = position;
+        this.column = column;
+    }
+
+    public TemplateViolation(String heading, TemplateViolationType type, int position) {
+
+        this(heading, type, position, null);
+    }
+
+    public String getHeading() {
+
+        return heading;
+    }
+
+    public TemplateViolationType getType() {
+
+        return type;
+    }
+
+    public int getPosition() {
+
+        return position;
+    }
+
+    public String getColumn() {
+
+        return column;
+    }
+
+    /**
+     * Get message for user.
+     * @return Message describing violation.
+     */
+    public String getMessage() {
+
+        switch (type) {
+
+            case MISSING_HEADING:
+                return "Missing heading '" + heading + "' !";
+
+            case EMPTY_TABLE:
+                return "Heading '" + heading + "' does not contains any record in table !";
+
+            case MISSING_COLUMN:
+                return "Heading '" + heading + "': Table does not contains column '" + column + "'";
+
+            case UNKNOWN_COLUMN:
+                return "Heading '" + heading + "': Column '" + column + "' is not presented in template!";
+
+            case EMPTY_TEXT:
+                return "Heading '" + heading + "' does not contains any text !";
+
+            case UNKNOWN_HEADING:
+                return "Heading '" + heading + "' is not presented in template !";
+
+            case BAD_POSITION:
+                return "Bad position for heading '" + heading + "'!";
+
+            case BAD_OPTIONAL_POSITION:
+                return "Heading '" + heading + "' has bad position!";
+
+            default:
+                return heading;
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return getMessage();
+    }
+}
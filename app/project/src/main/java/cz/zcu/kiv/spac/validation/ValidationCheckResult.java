@@ -0,0 +1,76 @@
+package cz.zcu.kiv.spac.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class representing result of one catalogue validation check.
+ */
+public class ValidationCheckResult {
+
+    private final String name;
+    private final long durationNanos;
+    private final List<ValidationIssue> issues;
+    private final String error;
+
+    /**
+     * Constructor.
+     * @param name - Name of check.
+     * @param durationNanos - Duration of check in nanoseconds.
+     * @param issues - Problems found by check.
+     */
+    public ValidationCheckResult(String name, long durationNanos, List<ValidationIssue> issues) {
+
+        this.name = name;
+        this.durationNanos = durationNanos;
+        this.issues = issues;
+        this.error = null;
+    }
+
+    /**
+     * Constructor of check, which was not completed.
+     * @param name - Name of check.
+     * @param error - Reason, why check was not completed.
+     */
+    public ValidationCheckResult(String name, String error) {
+
+        this.name = name;
+        this.durationNanos = 0;
+        this.issues = Collections.emptyList();
+        this.error = error;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public long getDurationNanos() {
+
+        return durationNanos;
+    }
+
+    public double getDurationMillis() {
+
+        return durationNanos / 1_000_000.0;
+    }
+
+    public List<ValidationIssue> getIssues() {
+
+        return issues;
+    }
+
+    /**
+     * Check if check was not completed, so its problems are unknown.
+     * @return True if check failed.
+     */
+    public boolean isFailed() {
+
+        return error != null;
+    }
+
+    public String getError() {
+
+        return error;
+    }
+}
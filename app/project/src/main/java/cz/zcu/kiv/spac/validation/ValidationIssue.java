@@ -0,0 +1,47 @@
+package cz.zcu.kiv.spac.validation;
+
+/**
+ * Class representing one problem found by catalogue validation.
+ */
+public class ValidationIssue {
+
+    private final String antipattern;
+    private final String type;
+    private final String location;
+    private final String message;
+
+    /**
+     * Constructor.
+     * @param antipattern - Name of antipattern, which contains problem.
+     * @param type - Type of problem.
+     * @param location - Location of problem in antipattern (heading, relation, path, ...).
+     * @param message - Message for user.
+     */
+    public ValidationIssue(String antipattern, String type, String location, String message) {
+
+        this.antipattern = antipattern;
+        this.type = type;
+        this.location = location;
+        this.message = message;
+    }
+
+    public String getAntipattern() {
+
+        return antipattern;
+    }
+
+    public String getType() {
+
+        return type;
+    }
+
+    public String getLocation() {
+
+        return location;
+    }
+
+    public String getMessage() {
+
+        return message;
+    }
+}
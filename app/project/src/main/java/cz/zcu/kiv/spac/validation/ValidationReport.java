@@ -0,0 +1,135 @@
+package cz.zcu.kiv.spac.validation;
+
+import cz.zcu.kiv.spac.utils.JsonBuilder;
+import cz.zcu.kiv.spac.utils.Utils;
+
+import java.util.List;
+
+/**
+ * Class representing report of catalogue validation.
+ */
+public class ValidationReport {
+
+    private final List<ValidationCheckResult> results;
+    private final int antipatternCount;
+    private final long durationNanos;
+    private final String created;
+
+    /**
+     * Constructor.
+     * @param results - Results of checks.
+     * @param antipatternCount - Number of validated antipatterns.
+     * @param durationNanos - Duration of whole validation in nanoseconds.
+     */
+    public ValidationReport(List<ValidationCheckResult> results, int antipatternCount, long durationNanos) {
+
+        this.results = results;
+        this.antipatternCount = antipatternCount;
+        this.durationNanos = durationNanos;
+        this.created = Utils.getCurrentDateInString();
+    }
+
+    public List<ValidationCheckResult> getResults() {
+
+        return results;
+    }
+
+    public int getAntipatternCount() {
+
+        return antipatternCount;
+    }
+
+    public double getDurationMillis() {
+
+        return durationNanos / 1_000_000.0;
+    }
+
+    public String getCreated() {
+
+        return created;
+    }
+
+    /**
+     * Get number of problems found by all checks.
+     * @return Number of problems.
+     */
+    public int getIssueCount() {
+
+        int count = 0;
+
+        for (ValidationCheckResult result : results) {
+
+            count += result.getIssues().size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Get number of checks, which were not completed.
+     * @return Number of failed checks.
+     */
+    public int getFailedCheckCount() {
+
+        int count = 0;
+
+        for (ValidationCheckResult result : results) {
+
+            if (result.isFailed()) {
+
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Create JSON content of report.
+     * @return JSON content.
+     */
+    public String toJson() {
+
+        JsonBuilder json = new JsonBuilder();
+
+        json.beginObject();
+        json.name("created").value(created);
+        json.name("antipatterns").value(antipatternCount);
+        json.name("issues").value(getIssueCount());
+        json.name("failedChecks").value(getFailedCheckCount());
+        json.name("durationMillis").value(getDurationMillis());
+        json.name("checks").beginArray();
+
+        for (ValidationCheckResult result : results) {
+
+            json.beginObject();
+            json.name("name").value(result.getName());
+            json.name("durationMillis").value(result.getDurationMillis());
+
+            if (result.isFailed()) {
+
+                json.name("error").value(result.getError());
+            }
+
+            json.name("issues").beginArray();
+
+            for (ValidationIssue issue : result.getIssues()) {
+
+                json.beginObject();
+                json.name("antipattern").value(issue.getAntipattern());
+                json.name("type").value(issue.getType());
+                json.name("location").value(issue.getLocation());
+                json.name("message").value(issue.getMessage());
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject();
+        }
+
+        json.endArray();
+        json.endObject();
+
+        return json.toString();
+    }
+}